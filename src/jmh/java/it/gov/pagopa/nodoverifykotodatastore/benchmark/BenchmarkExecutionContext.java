@@ -0,0 +1,39 @@
+package it.gov.pagopa.nodoverifykotodatastore.benchmark;
+
+import com.microsoft.azure.functions.ExecutionContext;
+
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal {@link ExecutionContext} used to invoke the functions outside the Azure runtime.
+ * The logger keeps the INFO level used in production but has no handler attached, so the
+ * log messages are built as usual and then discarded.
+ */
+public class BenchmarkExecutionContext implements ExecutionContext {
+
+    private final Logger logger;
+    private final String invocationId = UUID.randomUUID().toString();
+
+    public BenchmarkExecutionContext(String loggerName) {
+        this.logger = Logger.getLogger(loggerName);
+        this.logger.setUseParentHandlers(false);
+        this.logger.setLevel(Level.INFO);
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public String getInvocationId() {
+        return invocationId;
+    }
+
+    @Override
+    public String getFunctionName() {
+        return "EventHubNodoVerifyKOEventToDSProcessor";
+    }
+}
@@ -0,0 +1,27 @@
+package it.gov.pagopa.nodoverifykotodatastore.benchmark;
+
+import com.microsoft.azure.functions.OutputBinding;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link OutputBinding} that hands every value to a JMH {@link Blackhole},
+ * so that the persisted batch cannot be optimized away.
+ */
+public class BlackholeOutputBinding<T> implements OutputBinding<T> {
+
+    private final Blackhole blackhole;
+
+    public BlackholeOutputBinding(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public T getValue() {
+        return null;
+    }
+
+    @Override
+    public void setValue(T value) {
+        blackhole.consume(value);
+    }
+}
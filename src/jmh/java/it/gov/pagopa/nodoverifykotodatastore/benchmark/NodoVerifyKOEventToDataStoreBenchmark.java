@@ -0,0 +1,84 @@
+package it.gov.pagopa.nodoverifykotodatastore.benchmark;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.nodoverifykotodatastore.NodoVerifyKOEventToDataStore;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a full {@link NodoVerifyKOEventToDataStore#processNodoVerifyKOEvent} invocation
+ * on synthetic batches built from the <code>events/event_ok_*.json</code> fixtures.
+ * One benchmark operation is one invocation, so the per-event cost is the score divided by <code>batchSize</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class NodoVerifyKOEventToDataStoreBenchmark {
+
+    private static final String[] FIXTURES = {"events/event_ok_1.json", "events/event_ok_2.json"};
+
+    @Param({"1", "10", "100", "1000"})
+    private int batchSize;
+
+    @Param({"0", "10", "30"})
+    private int propertyCount;
+
+    private NodoVerifyKOEventToDataStore function;
+    private ExecutionContext context;
+    private List<byte[]> events;
+    private Map<String, Object>[] properties;
+    private Map<String, Object>[] systemProperties;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        function = new NodoVerifyKOEventToDataStore();
+        context = new BenchmarkExecutionContext("NodoVerifyKOEventToDataStore-benchmark");
+
+        String[] templates = new String[FIXTURES.length];
+        for (int i = 0; i < FIXTURES.length; i++) {
+            templates[i] = TestUtil.readStringFromFile(FIXTURES[i]);
+        }
+
+        events = new ArrayList<>(batchSize);
+        properties = new HashMap[batchSize];
+        systemProperties = new HashMap[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            String template = templates[i % templates.length];
+            events.add(template.replaceFirst("\"uuid-\\d+\"", "\"uuid-" + i + "\"").getBytes(StandardCharsets.UTF_8));
+            properties[i] = generateProperties(i);
+            systemProperties[i] = new HashMap<>(Map.of("EnqueuedTimeUtc", "2023-12-12T18:34:40.123Z", "SequenceNumber", i));
+        }
+    }
+
+    @Benchmark
+    public void processBatch(Blackhole blackhole) {
+        // the function does not modify its input, so the same batch is reused on every invocation
+        function.processNodoVerifyKOEvent(events, properties, systemProperties, new BlackholeOutputBinding<>(blackhole), new BlackholeOutputBinding<>(blackhole), context);
+    }
+
+    /**
+     * Generates Event Hub properties alike the ones received in production: half of the keys
+     * are dash-separated, so that the key normalization is exercised too.
+     */
+    private Map<String, Object> generateProperties(int eventIndex) {
+        Map<String, Object> eventProperties = new HashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            String key = i % 2 == 0 ? "custom-property-" + i : "customProperty" + i;
+            eventProperties.put(key, i % 3 == 0 ? (Object) (long) eventIndex : "value-" + eventIndex + "-" + i);
+        }
+        return eventProperties;
+    }
+}
@@ -0,0 +1,67 @@
+package it.gov.pagopa.nodoverifykotodatastore.benchmark;
+
+import it.gov.pagopa.nodoverifykotodatastore.service.PropertyNameNormalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the normalization of the property names of a single event, done with the regular expression used
+ * up to version 0.1.8 and with the cached {@link PropertyNameNormalizer}.
+ * One benchmark operation normalizes all the <code>propertyCount</code> names of an event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PropertyNameNormalizerBenchmark {
+
+    private static final Pattern REPLACE_DASH_PATTERN = Pattern.compile("-([a-zA-Z])");
+
+    @Param({"10", "30"})
+    private int propertyCount;
+
+    private String[] propertyNames;
+    private PropertyNameNormalizer normalizer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        propertyNames = new String[propertyCount];
+        for (int i = 0; i < propertyCount; i++) {
+            propertyNames[i] = i % 2 == 0 ? "custom-property-" + i : "customProperty" + i;
+        }
+        normalizer = new PropertyNameNormalizer(1024);
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String propertyName : propertyNames) {
+            blackhole.consume(replaceWithRegex(propertyName));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for (String propertyName : propertyNames) {
+            blackhole.consume(normalizer.normalize(propertyName));
+        }
+    }
+
+    private static String replaceWithRegex(String input) {
+        if (!input.contains("-")) {
+            return input;
+        }
+        Matcher matcher = REPLACE_DASH_PATTERN.matcher(input);
+        StringBuilder builder = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(builder, matcher.group(1).toUpperCase());
+        }
+        matcher.appendTail(builder);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+/**
+ * Supplies the bodies of the events sent to the function, as received from Event Hub with the <code>binary</code> data type.
+ * A source is used by a single partition, so it does not need to be thread-safe.
+ */
+public interface EventSource {
+
+    byte[] next();
+}
@@ -0,0 +1,39 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Replays the events of a JSONL capture, one event body per line, starting again from the first line once
+ * the capture is over. Each partition starts from a different line, so that the partitions do not send the same batches.
+ */
+public class JsonlEventSource implements EventSource {
+
+    private final List<byte[]> events;
+    private int position;
+
+    public JsonlEventSource(List<byte[]> events, int offset) {
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("The capture has no events.");
+        }
+        this.events = events;
+        this.position = offset % events.size();
+    }
+
+    public static List<byte[]> read(Path path) throws IOException {
+        try (var lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isBlank()).map(line -> line.getBytes(StandardCharsets.UTF_8)).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public byte[] next() {
+        byte[] event = events.get(position);
+        position = (position + 1) % events.size();
+        return event;
+    }
+}
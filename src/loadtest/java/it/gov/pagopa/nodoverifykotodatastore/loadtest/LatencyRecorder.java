@@ -0,0 +1,52 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies of the invocations of a partition, in nanoseconds, growing as needed.
+ */
+public class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int size;
+
+    public void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = nanos;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Merges the latencies of the passed recorders in a single sorted array.
+     */
+    public static long[] sorted(Iterable<LatencyRecorder> recorders) {
+        int total = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.size;
+        }
+        long[] merged = new long[total];
+        int position = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged, position, recorder.size);
+            position += recorder.size;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Returns the passed percentile, between 0 and 100, of the sorted latencies with the nearest-rank method.
+     */
+    public static long percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length, rank) - 1)];
+    }
+}
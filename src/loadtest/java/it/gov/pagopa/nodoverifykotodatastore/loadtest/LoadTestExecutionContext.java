@@ -0,0 +1,34 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import com.microsoft.azure.functions.ExecutionContext;
+
+import java.util.logging.Logger;
+
+/**
+ * Minimal {@link ExecutionContext} of a single invocation driven by the load test, with no retry context.
+ */
+public class LoadTestExecutionContext implements ExecutionContext {
+
+    private final Logger logger;
+    private final String invocationId;
+
+    public LoadTestExecutionContext(Logger logger, String invocationId) {
+        this.logger = logger;
+        this.invocationId = invocationId;
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public String getInvocationId() {
+        return invocationId;
+    }
+
+    @Override
+    public String getFunctionName() {
+        return "EventHubNodoVerifyKOEventToDSProcessor";
+    }
+}
@@ -0,0 +1,162 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import it.gov.pagopa.nodoverifykotodatastore.NodoVerifyKOEventToDataStore;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays verify KO events through {@link NodoVerifyKOEventToDataStore#processNodoVerifyKOEvent} at a configurable rate,
+ * with no Azure resource: the events come from a JSONL capture or are generated from the <code>events/event_ok_1.json</code>
+ * fixture, the Event Hub properties are generated and the Cosmos DB output bindings are replaced by recording bindings.
+ * <p>
+ * After a warm-up, the events are sent by one driver per Event Hub partition and the run reports the sustained
+ * throughput, the latency percentiles of the invocations, the heap usage and the garbage collections.
+ *
+ * @see LoadTestOptions
+ */
+public class LoadTestHarness {
+
+    private static final String TEMPLATE = "events/event_ok_1.json";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadTestOptions options;
+    private final NodoVerifyKOEventToDataStore function = new NodoVerifyKOEventToDataStore();
+    private final Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-loadtest");
+    private final List<byte[]> capture;
+    private final String template;
+
+    public LoadTestHarness(LoadTestOptions options) throws IOException {
+        this.options = options;
+        this.capture = options.getInput() == null ? null : JsonlEventSource.read(Path.of(options.getInput()));
+        this.template = TestUtil.readStringFromFile(TEMPLATE);
+        // as in the benchmarks, the messages are built at the production level and then discarded
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.out.println("Load test: " + options);
+        LoadTestHarness harness = new LoadTestHarness(options);
+        if (options.getWarmupEvents() > 0) {
+            harness.run(options.getWarmupEvents());
+        }
+        System.out.println(harness.run(options.getEvents()));
+        System.exit(0);
+    }
+
+    /**
+     * Sends the passed number of events, split among the partitions, and reports the results.
+     */
+    public String run(long events) throws IOException, InterruptedException, ExecutionException {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcCountBefore = getGcCount();
+        long gcTimeBefore = getGcTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getPartitions());
+        List<Future<PartitionDriver>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int partition = 0; partition < options.getPartitions(); partition++) {
+                long partitionEvents = events / options.getPartitions() + (partition < events % options.getPartitions() ? 1 : 0);
+                futures.add(executor.submit(new PartitionDriver(function, newEventSource(partition), options, partition, partitionEvents, logger)));
+            }
+            List<PartitionDriver> drivers = new ArrayList<>();
+            for (Future<PartitionDriver> future : futures) {
+                drivers.add(future.get());
+            }
+            long elapsed = System.nanoTime() - start;
+            return report(drivers, elapsed, heapPools, getGcCount() - gcCountBefore, getGcTime() - gcTimeBefore);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private EventSource newEventSource(int partition) throws IOException {
+        if (capture != null) {
+            return new JsonlEventSource(capture, partition * capture.size() / options.getPartitions());
+        }
+        return new SyntheticEventSource(template, options, partition);
+    }
+
+    private String report(List<PartitionDriver> drivers, long elapsedNanos, List<MemoryPoolMXBean> heapPools, long gcCount, long gcMillis) {
+        long events = 0;
+        long failedInvocations = 0;
+        long documents = 0;
+        long documentCharacters = 0;
+        long deadLetterDocuments = 0;
+        long allocatedBytes = 0;
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        for (PartitionDriver driver : drivers) {
+            events += driver.getEvents();
+            failedInvocations += driver.getFailedInvocations();
+            documents += driver.getDocuments().getValues();
+            documentCharacters += driver.getDocuments().getCharacters();
+            deadLetterDocuments += driver.getDeadLetterDocuments().getValues();
+            allocatedBytes = allocatedBytes < 0 || driver.getAllocatedBytes() < 0 ? -1 : allocatedBytes + driver.getAllocatedBytes();
+            recorders.add(driver.getLatencies());
+        }
+        long[] latencies = LatencyRecorder.sorted(recorders);
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        Runtime runtime = Runtime.getRuntime();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Events: %d in %d invocations (%d failed), %.1f s%n", events, latencies.length, failedInvocations, elapsedNanos / 1e9));
+        report.append(String.format("Throughput: %.0f events/s%n", events * 1e9 / elapsedNanos));
+        report.append("Invocation latency (ms):");
+        for (double percentile : PERCENTILES) {
+            report.append(String.format(" p%s %.2f", percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile),
+                    LatencyRecorder.percentile(latencies, percentile) / 1e6));
+        }
+        report.append(String.format(" max %.2f%n", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6));
+        report.append(String.format("Output binding: %d batches, %.1f MB, %d dead-letter batches%n", documents, documentCharacters / 1e6, deadLetterDocuments));
+        report.append(String.format("Heap: peak %.1f MB, used %.1f MB of %.1f MB, max %.1f MB%n", peakHeap / 1e6,
+                (runtime.totalMemory() - runtime.freeMemory()) / 1e6, runtime.totalMemory() / 1e6, runtime.maxMemory() / 1e6));
+        report.append(String.format("GC: %d collections, %d ms", gcCount, gcMillis));
+        if (allocatedBytes >= 0) {
+            report.append(String.format("%nAllocation: %.1f KB/event, including the generation of the events", allocatedBytes / 1024.0 / events));
+        }
+        return report.toString();
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long getGcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
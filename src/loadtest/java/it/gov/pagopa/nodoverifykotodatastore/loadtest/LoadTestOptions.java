@@ -0,0 +1,68 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The options of a load test run, passed as <code>--name=value</code> arguments.
+ */
+@Getter
+public class LoadTestOptions {
+
+    private final String input;
+    private final long events;
+    private final long warmupEvents;
+    private final int batchSize;
+    private final int partitions;
+    private final double rate;
+    private final int creditors;
+    private final int psps;
+    private final double skew;
+    private final int propertyCount;
+    private final long seed;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.input = values.remove("input");
+        this.events = Long.parseLong(values.getOrDefault("events", "100000"));
+        this.warmupEvents = Long.parseLong(values.getOrDefault("warmup-events", "20000"));
+        this.batchSize = Integer.parseInt(values.getOrDefault("batch-size", "100"));
+        this.partitions = Integer.parseInt(values.getOrDefault("partitions", "1"));
+        this.rate = Double.parseDouble(values.getOrDefault("rate", "0"));
+        this.creditors = Integer.parseInt(values.getOrDefault("creditors", "500"));
+        this.psps = Integer.parseInt(values.getOrDefault("psps", "50"));
+        this.skew = Double.parseDouble(values.getOrDefault("skew", "1.1"));
+        this.propertyCount = Integer.parseInt(values.getOrDefault("property-count", "10"));
+        this.seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        if (events < 1 || batchSize < 1 || partitions < 1 || creditors < 1 || psps < 1 || rate < 0) {
+            throw new IllegalArgumentException("The events, the batch size, the partitions, the creditors and the PSPs must be positive, the rate not negative.");
+        }
+    }
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Invalid argument [" + arg + "], expected --name=value");
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    /**
+     * The target rate of a single partition, in events per second; 0 if unbounded.
+     */
+    public double getPartitionRate() {
+        return rate / partitions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("source [%s], events [%d], warm-up events [%d], batch size [%d], partitions [%d], rate [%s], creditors [%d], PSPs [%d], skew [%.2f], properties [%d]",
+                input == null ? "synthetic" : input, events, warmupEvents, batchSize, partitions, rate > 0 ? rate + " events/s" : "unbounded",
+                creditors, psps, skew, propertyCount);
+    }
+}
@@ -0,0 +1,153 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import it.gov.pagopa.nodoverifykotodatastore.NodoVerifyKOEventToDataStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Drives the function as the Event Hub trigger does for a single partition: the batches of a partition are processed
+ * one after another, each one by a new invocation.
+ * <p>
+ * With a target rate, each batch is scheduled at the time its first event would have been received and the latency is
+ * measured from that time, so that the time a batch waits behind a slow invocation is not omitted from the results.
+ */
+public class PartitionDriver implements Callable<PartitionDriver> {
+
+    private final NodoVerifyKOEventToDataStore function;
+    private final EventSource eventSource;
+    private final LoadTestOptions options;
+    private final int partition;
+    private final long events;
+    private final Logger logger;
+    private final RecordingOutputBinding documents = new RecordingOutputBinding();
+    private final RecordingOutputBinding deadLetterDocuments = new RecordingOutputBinding();
+    private final LatencyRecorder latencies = new LatencyRecorder();
+
+    private long sequenceNumber;
+    private long failedInvocations;
+    private long allocatedBytes = -1;
+
+    public PartitionDriver(NodoVerifyKOEventToDataStore function, EventSource eventSource, LoadTestOptions options, int partition, long events, Logger logger) {
+        this.function = function;
+        this.eventSource = eventSource;
+        this.options = options;
+        this.partition = partition;
+        this.events = events;
+        this.logger = logger;
+    }
+
+    @Override
+    public PartitionDriver call() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = getAllocatedBytes(threadBean);
+        double rate = options.getPartitionRate();
+        long start = System.nanoTime();
+        long sent = 0;
+        int invocation = 0;
+        while (sent < events) {
+            int batchSize = (int) Math.min(options.getBatchSize(), events - sent);
+            List<byte[]> batch = new ArrayList<>(batchSize);
+            Map<String, Object>[] properties = newArray(batchSize);
+            Map<String, Object>[] systemProperties = newArray(batchSize);
+            for (int index = 0; index < batchSize; index++) {
+                batch.add(eventSource.next());
+                properties[index] = generateProperties(sequenceNumber);
+                systemProperties[index] = generateSystemProperties(sequenceNumber++);
+            }
+
+            long scheduled = System.nanoTime();
+            if (rate > 0) {
+                scheduled = start + (long) (sent * 1_000_000_000L / rate);
+                waitUntil(scheduled);
+            }
+            try {
+                function.processNodoVerifyKOEvent(batch, properties, systemProperties, documents, deadLetterDocuments,
+                        new LoadTestExecutionContext(logger, "loadtest-" + partition + "-" + invocation++));
+            } catch (RuntimeException e) {
+                failedInvocations++;
+            }
+            latencies.record(System.nanoTime() - scheduled);
+            sent += batchSize;
+        }
+        long allocatedAfter = getAllocatedBytes(threadBean);
+        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+            allocatedBytes = allocatedAfter - allocatedBefore;
+        }
+        return this;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    public long getFailedInvocations() {
+        return failedInvocations;
+    }
+
+    public RecordingOutputBinding getDocuments() {
+        return documents;
+    }
+
+    public RecordingOutputBinding getDeadLetterDocuments() {
+        return deadLetterDocuments;
+    }
+
+    /**
+     * Returns the bytes allocated by the driver thread, including the generation of the events, or -1 if the JVM does not measure them.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Generates Event Hub properties alike the ones received in production: half of the keys
+     * are dash-separated, so that the key normalization is exercised too.
+     */
+    private Map<String, Object> generateProperties(long eventIndex) {
+        Map<String, Object> eventProperties = new HashMap<>();
+        for (int i = 0; i < options.getPropertyCount(); i++) {
+            String key = i % 2 == 0 ? "custom-property-" + i : "customProperty" + i;
+            eventProperties.put(key, i % 3 == 0 ? (Object) eventIndex : "value-" + eventIndex + "-" + i);
+        }
+        return eventProperties;
+    }
+
+    private Map<String, Object> generateSystemProperties(long eventIndex) {
+        Map<String, Object> eventSystemProperties = new HashMap<>();
+        eventSystemProperties.put("EnqueuedTimeUtc", Instant.now().toString());
+        eventSystemProperties.put("SequenceNumber", eventIndex);
+        eventSystemProperties.put("Offset", String.valueOf(eventIndex * 1024));
+        return eventSystemProperties;
+    }
+
+    private static void waitUntil(long nanoTime) {
+        for (long remaining = nanoTime - System.nanoTime(); remaining > 0; remaining = nanoTime - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean threadBean) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object>[] newArray(int size) {
+        return new HashMap[size];
+    }
+}
@@ -0,0 +1,34 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import com.microsoft.azure.functions.OutputBinding;
+
+/**
+ * {@link OutputBinding} standing in for the Cosmos DB output binding: it counts the written values and their
+ * characters and keeps only the last value, so that a long run does not retain the written documents.
+ */
+public class RecordingOutputBinding implements OutputBinding<String> {
+
+    private String value;
+    private long values;
+    private long characters;
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.value = value;
+        this.values++;
+        this.characters += value == null ? 0 : value.length();
+    }
+
+    public long getValues() {
+        return values;
+    }
+
+    public long getCharacters() {
+        return characters;
+    }
+}
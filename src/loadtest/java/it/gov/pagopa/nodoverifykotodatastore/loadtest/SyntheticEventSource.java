@@ -0,0 +1,64 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates verify KO events from a fixture, with unique ids and creditors, stations and PSPs drawn with a
+ * Zipf distribution, so that the partition keys are as skewed as in production. The <code>faultBean.timestamp</code>
+ * is the generation time, with the 6 fraction digits the events usually carry.
+ */
+public class SyntheticEventSource implements EventSource {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+    private static final String[] FAULT_CODES = {"PPT_STAZIONE_INT_PA_ERRORE_RESPONSE", "PPT_STAZIONE_INT_PA_TIMEOUT",
+            "PPT_STAZIONE_INT_PA_IRRAGGIUNGIBILE", "PPT_PAGAMENTO_DUPLICATO", "PPT_DOMINIO_SCONOSCIUTO"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectNode template;
+    private final ZipfSampler creditorSampler;
+    private final ZipfSampler pspSampler;
+    private final Random random;
+    private final String idPrefix;
+    private long sequence;
+
+    public SyntheticEventSource(String template, LoadTestOptions options, int partition) throws IOException {
+        this.template = (ObjectNode) objectMapper.readTree(template);
+        this.creditorSampler = new ZipfSampler(options.getCreditors(), options.getSkew());
+        this.pspSampler = new ZipfSampler(options.getPsps(), options.getSkew());
+        this.random = new Random(options.getSeed() + partition);
+        this.idPrefix = "loadtest-" + partition + "-";
+    }
+
+    @Override
+    public byte[] next() {
+        String creditor = String.format("%011d", 80000000000L + creditorSampler.sample(random));
+        String psp = String.format("%011d", 10000000000L + pspSampler.sample(random));
+
+        ObjectNode event = template.deepCopy();
+        event.put("id", idPrefix + sequence++);
+        event.with("debtorPosition").put("noticeNumber", String.format("3%017d", Math.floorMod(random.nextLong(), 100000000000000000L)));
+        ObjectNode creditorNode = event.with("creditor");
+        creditorNode.put("idPA", creditor);
+        creditorNode.put("idBrokerPA", creditor);
+        creditorNode.put("idStation", creditor + "_0" + (1 + random.nextInt(3)));
+        ObjectNode pspNode = event.with("psp");
+        pspNode.put("idPsp", psp);
+        pspNode.put("idBrokerPsp", psp);
+        pspNode.put("idChannel", psp + "_01");
+        ObjectNode faultBean = event.with("faultBean");
+        faultBean.put("faultCode", FAULT_CODES[Math.min(FAULT_CODES.length - 1, (int) (-Math.log(1 - random.nextDouble()) * 1.5))]);
+        faultBean.put("timestamp", TIMESTAMP_FORMATTER.format(LocalDateTime.now(ZoneOffset.UTC)));
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
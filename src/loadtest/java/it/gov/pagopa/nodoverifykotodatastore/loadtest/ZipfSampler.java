@@ -0,0 +1,32 @@
+package it.gov.pagopa.nodoverifykotodatastore.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks in <code>[0, size)</code> with a Zipf distribution: rank <code>k</code> is drawn with a probability
+ * proportional to <code>1 / (k + 1)^exponent</code>, so that a few creditors or PSPs produce most of the events,
+ * as it happens in production. An exponent of 0 gives a uniform distribution.
+ */
+public class ZipfSampler {
+
+    private final double[] cumulativeProbabilities;
+
+    public ZipfSampler(int size, double exponent) {
+        cumulativeProbabilities = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulativeProbabilities[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulativeProbabilities[rank] /= total;
+        }
+    }
+
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulativeProbabilities.length - 1);
+    }
+}
@@ -0,0 +1,53 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.TimerTrigger;
+import it.gov.pagopa.nodoverifykotodatastore.exception.AppException;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveResult;
+import it.gov.pagopa.nodoverifykotodatastore.service.ArchiveExporter;
+
+import java.util.logging.Level;
+
+/**
+ * Azure Functions with Timer trigger, exporting the aged verify KO events to compressed NDJSON archive files
+ * and optionally deleting them from the events container.
+ * The function does nothing unless the <code>ARCHIVE_EXPORT</code> app setting is enabled.
+ */
+public class ArchiveExport {
+
+	/**
+	 * This function will be invoked every hour: each run exports the aged events for at most
+	 * <code>ARCHIVE_MAX_RUN_SECONDS</code>, the following one resuming from its checkpoint.
+	 */
+	@FunctionName("ArchiveExport")
+	public void run (
+			@TimerTrigger(name = "ArchiveExportTrigger", schedule = "0 0 * * * *") String timerInfo,
+			final ExecutionContext context) {
+
+		ArchiveExporter exporter = getExporter();
+		if (exporter == null) {
+			return;
+		}
+		ArchiveResult result;
+		try {
+			result = exporter.run();
+		} catch (Exception e) {
+			context.getLogger().log(Level.SEVERE, e, () -> "[ALERT][VerifyKOToDS] Error exporting the events to the archive: " + e.getMessage());
+			throw new AppException("Error exporting the events to the archive: " + e.getMessage());
+		}
+		context.getLogger().log(Level.INFO, () -> String.format("Archive export: Events [%d], Files [%d], Deleted [%d], Completed [%s]",
+				result.getDocuments(), result.getFiles(), result.getDeleted(), result.isCompleted()));
+	}
+
+	ArchiveExporter getExporter() {
+		return ExporterHolder.EXPORTER;
+	}
+
+	/**
+	 * Holds the exporter shared by all the invocations of the host instance, created on the first run.
+	 */
+	private static class ExporterHolder {
+		private static final ArchiveExporter EXPORTER = ArchiveExporter.fromSettings();
+	}
+}
@@ -0,0 +1,161 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.AuthorizationLevel;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.HttpTrigger;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventPage;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventQuery;
+import it.gov.pagopa.nodoverifykotodatastore.model.PersistenceEngine;
+import it.gov.pagopa.nodoverifykotodatastore.service.EventQueryService;
+import it.gov.pagopa.nodoverifykotodatastore.store.CosmosEventStore;
+import it.gov.pagopa.nodoverifykotodatastore.store.InMemoryEventStore;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+
+/**
+ * Azure Functions with Azure Http trigger, looking up the verify KO events of a day, creditor and PSP.
+ * The events are read with single-partition queries and returned one page at a time: the response holds the
+ * <code>continuationToken</code> to pass to read the following page.
+ */
+public class Events {
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	private static final int DEFAULT_PAGE_SIZE = AppSettings.getInt(Constants.QUERY_PAGE_SIZE_SETTING, 100);
+
+	/**
+	 * This function will be invoked when a Http Trigger occurs, i.e. on
+	 * <code>GET events?date=2023-12-12&amp;creditor=77777777777&amp;psp=88888888888&amp;noticeNumber=302040000090000000</code>
+	 */
+	@FunctionName("Events")
+	public HttpResponseMessage run (
+			@HttpTrigger(name = "EventsTrigger",
+			methods = {HttpMethod.GET},
+			route = "events",
+			authLevel = AuthorizationLevel.FUNCTION) HttpRequestMessage<Optional<String>> request,
+			final ExecutionContext context) {
+
+		Map<String, String> parameters = request.getQueryParameters();
+		EventQuery query;
+		try {
+			query = toQuery(parameters);
+		} catch (IllegalArgumentException e) {
+			return respond(request, HttpStatus.BAD_REQUEST, toError(e.getMessage()));
+		}
+
+		try {
+			EventQueryService queryService = getQueryService();
+			EventPage page = queryService.query(query);
+			context.getLogger().log(Level.FINE, () -> String.format("Queried events: PartitionKey [%s], Events [%d]", queryService.getPartitionKey(query), page.getDocuments().size()));
+			return respond(request, HttpStatus.OK, toBody(queryService.getPartitionKey(query), page));
+		} catch (IllegalArgumentException e) {
+			return respond(request, HttpStatus.BAD_REQUEST, toError(e.getMessage()));
+		} catch (Exception e) {
+			context.getLogger().log(Level.SEVERE, e, () -> "[ALERT][VerifyKOToDS] Error querying the events: " + e.getMessage());
+			return respond(request, HttpStatus.INTERNAL_SERVER_ERROR, toError("Error querying the events."));
+		}
+	}
+
+	EventQueryService getQueryService() {
+		return QueryServiceHolder.QUERY_SERVICE;
+	}
+
+	static EventQuery toQuery(Map<String, String> parameters) {
+		LocalDate date;
+		try {
+			date = LocalDate.parse(getRequired(parameters, "date"));
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("The parameter [date] must be formatted as yyyy-MM-dd.", e);
+		}
+		int pageSize = DEFAULT_PAGE_SIZE;
+		String pageSizeParameter = parameters.get("pageSize");
+		if (pageSizeParameter != null) {
+			try {
+				pageSize = Integer.parseInt(pageSizeParameter);
+			} catch (NumberFormatException e) {
+				pageSize = -1;
+			}
+			if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+				throw new IllegalArgumentException("The parameter [pageSize] must be between 1 and " + MAX_PAGE_SIZE + ".");
+			}
+		}
+		return EventQuery.builder()
+				.date(date)
+				.creditorId(getRequired(parameters, "creditor"))
+				.pspId(getRequired(parameters, "psp"))
+				.noticeNumber(parameters.get("noticeNumber"))
+				.pageSize(pageSize)
+				.continuationToken(parameters.get("continuationToken"))
+				.build();
+	}
+
+	private static String getRequired(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		if (value == null || value.isBlank()) {
+			throw new IllegalArgumentException("The parameter [" + name + "] is required.");
+		}
+		return value;
+	}
+
+	/**
+	 * Writes the page streaming the documents as they are, with no parsing.
+	 */
+	private static String toBody(String partitionKey, EventPage page) throws IOException {
+		SegmentedStringWriter writer = ObjectMapperUtils.createStringWriter();
+		try (JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+			generator.writeStartObject();
+			generator.writeStringField("partitionKey", partitionKey);
+			generator.writeNumberField("count", page.getDocuments().size());
+			generator.writeArrayFieldStart("events");
+			for (String document : page.getDocuments()) {
+				generator.writeRawValue(document);
+			}
+			generator.writeEndArray();
+			generator.writeStringField("continuationToken", page.getContinuationToken());
+			generator.writeEndObject();
+		}
+		return writer.getAndClear();
+	}
+
+	private static String toError(String message) {
+		SegmentedStringWriter writer = ObjectMapperUtils.createStringWriter();
+		try (JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+			generator.writeStartObject();
+			generator.writeStringField("error", message);
+			generator.writeEndObject();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return writer.getAndClear();
+	}
+
+	private static HttpResponseMessage respond(HttpRequestMessage<Optional<String>> request, HttpStatus status, String body) {
+		return request.createResponseBuilder(status)
+				.header("Content-Type", "application/json")
+				.body(body)
+				.build();
+	}
+
+	/**
+	 * Holds the query service shared by all the invocations of the host instance, reading the in-memory events
+	 * with the <code>IN_MEMORY</code> persistence engine and the events container otherwise.
+	 */
+	private static class QueryServiceHolder {
+		private static final EventQueryService QUERY_SERVICE = EventQueryService.fromSettings(
+				AppSettings.getEnum(Constants.PERSISTENCE_ENGINE_SETTING, PersistenceEngine.class, PersistenceEngine.OUTPUT_BINDING) == PersistenceEngine.IN_MEMORY
+						? InMemoryEventStore.getInstance()
+						: CosmosEventStore.getInstance());
+	}
+}
@@ -8,6 +8,9 @@ import it.gov.pagopa.nodoverifykotodatastore.util.AppInfo;
 import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
 
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.logging.Level;
@@ -19,6 +22,8 @@ import java.util.logging.Logger;
  */
 public class Info {
 
+	private static final Map<String, AppInfo> APP_INFOS = Collections.synchronizedMap(new HashMap<>());
+
 	/**
 	 * This function will be invoked when a Http Trigger occurs
 	 * @return
@@ -38,13 +43,20 @@ public class Info {
 				.build();
 	}
 
-	public synchronized AppInfo getInfo(Logger logger, String path) {
+	/**
+	 * Returns the info of the application read from the passed <code>pom.properties</code>: the resources of the
+	 * classpath cannot change while the host instance is running, so each path is read once and cached.
+	 */
+	public AppInfo getInfo(Logger logger, String path) {
+		return APP_INFOS.computeIfAbsent(path, key -> loadInfo(logger, key));
+	}
+
+	private AppInfo loadInfo(Logger logger, String path) {
 		String version = null;
 		String name = null;
-		try {
-			Properties properties = new Properties();
-			InputStream inputStream = getClass().getResourceAsStream(path);
+		try (InputStream inputStream = getClass().getResourceAsStream(path)) {
 			if (inputStream != null) {
+				Properties properties = new Properties();
 				properties.load(inputStream);
 				version = properties.getProperty("version", null);
 				name = properties.getProperty("artifactId", null);
@@ -54,6 +66,4 @@ public class Info {
 		}
 		return AppInfo.builder().version(version).environment("azure-fn").name(name).build();
 	}
-
-
 }
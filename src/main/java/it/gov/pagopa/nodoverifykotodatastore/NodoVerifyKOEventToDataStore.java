@@ -4,17 +4,53 @@ import com.microsoft.azure.functions.ExecutionContext;
 import com.microsoft.azure.functions.OutputBinding;
 import com.microsoft.azure.functions.annotation.*;
 import it.gov.pagopa.nodoverifykotodatastore.exception.AppException;
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.exception.PersistenceException;
+import it.gov.pagopa.nodoverifykotodatastore.field.EventFieldPaths;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.FailureCause;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.IngestionMetrics;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.Stage;
+import it.gov.pagopa.nodoverifykotodatastore.model.BatchTransformResult;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailureMode;
+import it.gov.pagopa.nodoverifykotodatastore.model.PersistenceEngine;
+import it.gov.pagopa.nodoverifykotodatastore.model.RollupDelta;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.service.DeadLetterDocumentBuilder;
+import it.gov.pagopa.nodoverifykotodatastore.service.DocumentProjection;
+import it.gov.pagopa.nodoverifykotodatastore.service.EventBatchTransformer;
+import it.gov.pagopa.nodoverifykotodatastore.service.EventFolder;
+import it.gov.pagopa.nodoverifykotodatastore.service.HotPartitionKeySalter;
+import it.gov.pagopa.nodoverifykotodatastore.service.PartitionKeyBuilder;
+import it.gov.pagopa.nodoverifykotodatastore.service.RollupAggregator;
+import it.gov.pagopa.nodoverifykotodatastore.service.TransformWarmUp;
+import it.gov.pagopa.nodoverifykotodatastore.service.VerifyKOEventTransformer;
+import it.gov.pagopa.nodoverifykotodatastore.sink.AggregatingEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.CosmosBulkEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.EventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.IdempotentEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.ItemResult;
+import it.gov.pagopa.nodoverifykotodatastore.sink.OutputBindingEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.RollupSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.SinkResult;
+import it.gov.pagopa.nodoverifykotodatastore.store.InMemoryEventStore;
+import it.gov.pagopa.nodoverifykotodatastore.tuning.AdaptiveController;
+import it.gov.pagopa.nodoverifykotodatastore.tuning.BatchObservation;
+import it.gov.pagopa.nodoverifykotodatastore.tuning.Recommendation;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.BatchTrace;
 import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
-import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
 import lombok.NonNull;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
 
 /**
  * Azure Functions with Azure Event Hub trigger.
@@ -24,6 +60,29 @@ public class NodoVerifyKOEventToDataStore {
 
 	private static final Integer MAX_RETRY_COUNT = 5;
 
+	private static final FailureMode FAILURE_MODE = AppSettings.getEnum(Constants.FAILURE_MODE_SETTING, FailureMode.class, FailureMode.FAIL_BATCH);
+
+	private static final PersistenceEngine PERSISTENCE_ENGINE = AppSettings.getEnum(Constants.PERSISTENCE_ENGINE_SETTING, PersistenceEngine.class, PersistenceEngine.OUTPUT_BINDING);
+
+	private static final int TRACE_MAX_IDS = AppSettings.getInt(Constants.TRACE_MAX_IDS_SETTING, 10);
+
+	private static final boolean IDEMPOTENT_WRITES = AppSettings.getBoolean(Constants.IDEMPOTENT_WRITES_SETTING, false);
+
+	private static final int WARM_UP_ITERATIONS = AppSettings.getInt(Constants.WARM_UP_ITERATIONS_SETTING, 100);
+
+	private static final boolean ROLLUPS = isRollupEnabledBySettings();
+
+	private static final IngestionMetrics METRICS = IngestionMetrics.fromSettings();
+
+	private static final EventFolder EVENT_FOLDER = EventFolder.fromSettings();
+
+	private static final EventBatchTransformer BATCH_TRANSFORMER = EventBatchTransformer.fromSettings(
+			new VerifyKOEventTransformer(getCapturedPaths(), PartitionKeyBuilder.fromSettings(), HotPartitionKeySalter.fromSettings(), DocumentProjection.fromSettings(), METRICS.isEnabled()));
+
+	private static final boolean PROJECTION_ENABLED = BATCH_TRANSFORMER.getTransformer().getProjection() != null;
+
+	private static final RollupAggregator ROLLUP_AGGREGATOR = new RollupAggregator(PartitionKeyBuilder.fromSettings());
+
 	@FunctionName("EventHubNodoVerifyKOEventToDSProcessor")
 	@ExponentialBackoffRetry(maxRetryCount = 5, maximumInterval = "00:15:00", minimumInterval = "00:00:10")
     public void processNodoVerifyKOEvent (
@@ -31,16 +90,25 @@ public class NodoVerifyKOEventToDataStore {
                     name = "NodoVerifyKOEvent",
                     eventHubName = "", // blank because the value is included in the connection string
                     connection = "EVENTHUB_CONN_STRING",
+                    dataType = "binary",
                     cardinality = Cardinality.MANY)
-    		List<String> events,
+    		List<byte[]> events,
     		@BindingName(value = "PropertiesArray") Map<String, Object>[] properties,
+    		@BindingName(value = "SystemPropertiesArray") Map<String, Object>[] systemProperties,
 			@CosmosDBOutput(
 					name = "NodoVerifyKOEventToDataStore",
 					databaseName = "nodo_verifyko",
 					containerName = "events",
 					createIfNotExists = false,
 					connection = "COSMOS_CONN_STRING")
-			@NonNull OutputBinding<List<Object>> documentdb,
+			@NonNull OutputBinding<String> documentdb,
+			@CosmosDBOutput(
+					name = "NodoVerifyKOEventToDeadLetter",
+					databaseName = "nodo_verifyko",
+					containerName = "events-deadletter",
+					createIfNotExists = false,
+					connection = "COSMOS_CONN_STRING")
+			@NonNull OutputBinding<String> deadLetterDocumentdb,
             final ExecutionContext context) {
 
 		String errorCause = null;
@@ -50,59 +118,85 @@ public class NodoVerifyKOEventToDataStore {
 		Logger logger = context.getLogger();
 		logger.log(Level.FINE, () -> String.format("Persisting [%d] events...", events.size()));
 
+		long start = System.nanoTime();
+		IngestionMetrics metrics = getMetrics();
+		AdaptiveController adaptiveController = getAdaptiveController();
+		metrics.recordBatch(events.size(), retryIndex);
+		long lagMillis = metrics.isEnabled() || adaptiveController.isEnabled() ? metrics.recordEventLag(systemProperties, properties, Instant.now()) : -1;
+
 		if (retryIndex == MAX_RETRY_COUNT) {
-			logger.log(Level.WARNING, () -> String.format("[ALERT][LAST RETRY][VerifyKOToDS] Performing last retry for event ingestion: InvocationId [%s], Events: %s", context.getInvocationId(), events));
+			logger.log(Level.WARNING, () -> String.format("[ALERT][LAST RETRY][VerifyKOToDS] Performing last retry for event ingestion: InvocationId [%s], Events [%d]", context.getInvocationId(), events.size()));
 		}
 
         try {
         	if (events.size() == properties.length) {
-				List<Object> eventsToPersist = new ArrayList<>();
-
-				for (int index = 0; index < properties.length; index++) {
-					final Map<String, Object> event = ObjectMapperUtils.readValue(events.get(index), Map.class);
-
-					// update event with the required parameters and other needed fields
-					properties[index].forEach((property, value) -> event.put(replaceDashWithUppercase(property), value));
-
-					Map<String, Object> faultBeanMap = (Map) event.getOrDefault(Constants.FAULTBEAN_EVENT_FIELD, new HashMap<>());
-					String faultBeanTimestamp = (String) faultBeanMap.getOrDefault(Constants.TIMESTAMP_EVENT_FIELD, "ERROR");
+				// update events with the required parameters and other needed fields, each one in a single streaming pass
+				List<TransformedEvent> eventsToPersist;
+				int failedEvents = 0;
+				if (getFailureMode() == FailureMode.DEAD_LETTER) {
+					BatchTransformResult result = BATCH_TRANSFORMER.transformTolerant(events, properties, retryIndex > 0);
+					eventsToPersist = result.getTransformedEvents();
+					failedEvents = result.getFailedEvents().size();
+					persistFailedEvents(logger, deadLetterDocumentdb, result.getFailedEvents(), context.getInvocationId());
+					result.getFailedEvents().forEach(failedEvent -> metrics.recordFailure(failedEvent.getCause()));
+				} else {
+					eventsToPersist = BATCH_TRANSFORMER.transform(events, properties, retryIndex > 0);
+				}
+				metrics.recordTransformStages(eventsToPersist);
+				logHottestPartitionKeys(logger);
+				if (PROJECTION_ENABLED) {
+					logger.log(Level.INFO, () -> "Document projection: " + DocumentProjection.report(eventsToPersist));
+				}
 
-					// sometimes faultBeanTimestamp has less than 6 digits regarding microseconds
-					faultBeanTimestamp = fixDateTime(faultBeanTimestamp);
+				int finalFailedEvents = failedEvents;
+				logger.log(Level.INFO, () -> "Performing event ingestion: " + BatchTrace.ofTransformedEvents(context.getInvocationId(), retryIndex, eventsToPersist, finalFailedEvents, TRACE_MAX_IDS));
 
-					if (faultBeanTimestamp.contains("ERROR")) {
-						throw new IllegalStateException("Missing " + Constants.FAULTBEAN_EVENT_FIELD + " or " + Constants.FAULTBEAN_TIMESTAMP_EVENT_FIELD);
+				// save all events in the retrieved batch in the storage
+				long persistStart = System.nanoTime();
+				EventFolder eventFolder = getEventFolder();
+				EventFolder.Folding folding = eventFolder == null ? null : eventFolder.fold(eventsToPersist);
+				List<TransformedEvent> documentsToPersist = folding == null ? eventsToPersist : folding.getDocuments();
+				if (documentsToPersist.size() < eventsToPersist.size()) {
+					logger.log(Level.INFO, () -> String.format("Folded events: InvocationId [%s], Events [%d], Documents [%d], Open windows [%d]",
+							context.getInvocationId(), eventsToPersist.size(), documentsToPersist.size(), eventFolder.getOpenWindows()));
+				}
+				SinkResult sinkResult = null;
+				try {
+					sinkResult = persistEventBatch(logger, getEventSink(documentdb), documentsToPersist, context.getInvocationId());
+				} finally {
+					// the windows are released in any case, their counters updated only if the documents are persisted
+					if (folding != null && sinkResult != null) {
+						eventFolder.commit(folding);
+					} else if (folding != null) {
+						eventFolder.abort(folding);
 					}
-
-					DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-					LocalDateTime dateTime = LocalDateTime.parse(faultBeanTimestamp, formatter);
-
-					long timestamp = dateTime.toEpochSecond(ZoneOffset.UTC);
-					faultBeanMap.put(Constants.TIMESTAMP_EVENT_FIELD, timestamp);
-					faultBeanMap.put(Constants.DATE_TIME_EVENT_FIELD, faultBeanTimestamp);
-
-					String insertedDateValue = dateTime.getYear() + "-" + dateTime.getMonthValue() + "-" + dateTime.getDayOfMonth();
-					event.put(Constants.PARTITION_KEY_EVENT_FIELD, generatePartitionKey(event, insertedDateValue));
-
-					eventsToPersist.add(event);
+				}
+				metrics.recordStage(Stage.PERSIST, System.nanoTime() - persistStart);
+				if (isRollupEnabled()) {
+					updateRollups(logger, eventsToPersist, folding, sinkResult, context.getInvocationId());
 				}
 
-				logger.log(Level.INFO, () -> String.format("Performing event ingestion: InvocationId [%s], Retry Attempt [%d], Events: %s", context.getInvocationId(), retryIndex, extractTraceForEventsToPersist(eventsToPersist)));
-
-				// save all events in the retrieved batch in the storage
-				persistEventBatch(logger, documentdb, eventsToPersist);
+				if (adaptiveController.isEnabled()) {
+					tune(logger, adaptiveController, BatchObservation.builder()
+							.batchSize(events.size())
+							.processingMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+							.throttledWrites(sinkResult.getThrottledWrites())
+							.requestCharge(sinkResult.getRequestCharge())
+							.lagMillis(lagMillis)
+							.build());
+				}
             } else {
 				isPersistenceOk = false;
+				metrics.recordFailure(FailureCause.LENGTH_MISMATCH);
 				errorCause = String.format("[ALERT][VerifyKOToDS] AppException - Error processing events, lengths do not match: [events: %d - properties: %d]", events.size(), properties.length);
             }
-        } catch (IllegalArgumentException e) {
+        } catch (InvalidEventException e) {
 			isPersistenceOk = false;
-			errorCause = "[ALERT][VerifyKOToDS] AppException - Illegal argument exception on cosmos nodo-verify-ko-events msg ingestion at " + LocalDateTime.now() + " : " + e;
-		} catch (IllegalStateException e) {
-			isPersistenceOk = false;
-			errorCause = "[ALERT][VerifyKOToDS] AppException - Missing argument exception on nodo-verify-ko-events msg ingestion at " + LocalDateTime.now() + " : " + e;
+			metrics.recordFailure(e);
+			errorCause = "[ALERT][VerifyKOToDS] AppException - Invalid event [" + e.getError() + "] on nodo-verify-ko-events msg ingestion at " + LocalDateTime.now() + " : " + e.getMessage();
 		} catch (Exception e) {
 			isPersistenceOk = false;
+			metrics.recordFailure(FailureCause.of(e));
 			errorCause = "[ALERT][VerifyKOToDS] AppException - Generic exception on cosmos nodo-verify-ko-events msg ingestion at " + LocalDateTime.now() + " : " + e.getMessage();
         }
 
@@ -113,74 +207,174 @@ public class NodoVerifyKOEventToDataStore {
 		}
     }
 
-	@SuppressWarnings({"unchecked"})
-	private static String extractTraceForEventsToPersist(List<Object> eventsToPersist) {
-        return Arrays.toString(eventsToPersist.stream()
-                .map(event -> {
-                    Map<String, Object> eventMap = (Map<String, Object>) event;
-					String rowKey = getEventField(eventMap, "id", String.class, "null");
-					String partitionKey = getEventField(eventMap, Constants.PARTITION_KEY_EVENT_FIELD, String.class, "null");
-					Long eventTimestamp = getEventField(eventMap, "faultBean.timestamp", Long.class, -1L);
-                    return String.format("{PartitionKey: %s, RowKey: %s, EventTimestamp: %d}", partitionKey, rowKey, eventTimestamp);
-                })
-				.toArray());
-	}
-
-	private String fixDateTime(String faultBeanTimestamp) {
-		int dotIndex = faultBeanTimestamp.indexOf('.');
-		if (dotIndex != -1) {
-			int fractionLength = faultBeanTimestamp.length() - dotIndex - 1;
-			faultBeanTimestamp = fractionLength < 6 ? String.format("%s%s", faultBeanTimestamp, "0".repeat(6 - fractionLength)) : faultBeanTimestamp;
+	/**
+	 * Initializes the state shared by the invocations, connecting to Cosmos DB with the <code>COSMOS_BULK</code> engine,
+	 * and primes the JIT on a sample batch, so that the first batches of a new host instance are not slowed down.
+	 */
+	public static void warmUp(Logger logger) {
+		long start = System.nanoTime();
+		try {
+			int events = TransformWarmUp.run(PartitionKeyBuilder.fromSettings(), METRICS.isEnabled(), WARM_UP_ITERATIONS);
+			if (PERSISTENCE_ENGINE == PersistenceEngine.COSMOS_BULK) {
+				Objects.requireNonNull(BulkEventSinkHolder.EVENT_SINK);
+			}
+			logger.log(Level.INFO, () -> String.format("Warm-up completed: Events [%d], Elapsed [%d ms]", events, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+		} catch (Exception | ExceptionInInitializerError e) {
+			logger.log(Level.WARNING, e, () -> "Warm-up failed, the state will be initialized by the first invocation");
 		}
-		else {
-			faultBeanTimestamp = String.format("%s.000000", faultBeanTimestamp);
+	}
+
+	private void persistFailedEvents(Logger logger, OutputBinding<String> deadLetterDocumentdb, List<FailedEvent> failedEvents, String invocationId) throws IOException {
+		if (failedEvents.isEmpty()) {
+			return;
 		}
-		return faultBeanTimestamp;
+		logger.log(Level.WARNING, () -> String.format("[ALERT][VerifyKOToDS] Moving [%d] invalid events to dead-letter: InvocationId [%s], Causes: %s", failedEvents.size(), invocationId,
+				BatchTrace.ofFailedEvents(failedEvents, TRACE_MAX_IDS)));
+		deadLetterDocumentdb.setValue(DeadLetterDocumentBuilder.toJsonArray(failedEvents, invocationId, Instant.now()));
 	}
 
-	private String replaceDashWithUppercase(String input) {
-		if(!input.contains("-")){
-			return input;
+	private void logHottestPartitionKeys(Logger logger) {
+		HotPartitionKeySalter partitionKeySalter = BATCH_TRANSFORMER.getTransformer().getPartitionKeySalter();
+		List<HotPartitionKeySalter.KeyRate> hottestKeys = partitionKeySalter == null ? null : partitionKeySalter.pollReport();
+		if (hottestKeys != null && !hottestKeys.isEmpty()) {
+			logger.log(Level.INFO, () -> "Hottest partition keys: " + hottestKeys);
 		}
-		Matcher matcher = Constants.REPLACE_DASH_PATTERN.matcher(input);
-		StringBuilder builder = new StringBuilder();
-		while (matcher.find()) {
-			matcher.appendReplacement(builder, matcher.group(1).toUpperCase());
+	}
+
+	/**
+	 * Returns the fields captured while transforming the events, in addition to the ones needed for the partition key:
+	 * the fault code counted by the rollups and the signature of the folded events.
+	 */
+	private static List<FieldPath> getCapturedPaths() {
+		List<FieldPath> paths = new ArrayList<>();
+		paths.add(EventFieldPaths.FAULT_CODE);
+		if (EVENT_FOLDER != null) {
+			paths.addAll(EVENT_FOLDER.getSignature());
+		}
+		return paths;
+	}
+
+	AdaptiveController getAdaptiveController() {
+		return AdaptiveController.getInstance();
+	}
+
+	IngestionMetrics getMetrics() {
+		return METRICS;
+	}
+
+	FailureMode getFailureMode() {
+		return FAILURE_MODE;
+	}
+
+	EventFolder getEventFolder() {
+		return EVENT_FOLDER;
+	}
+
+	boolean isRollupEnabled() {
+		return ROLLUPS;
+	}
+
+	/**
+	 * Reads the rollup switch, rejecting the output binding as persistence engine: the binding writes the events only
+	 * after the function returns and does not report their outcomes, so the events of a retried batch would be counted
+	 * twice.
+	 */
+	private static boolean isRollupEnabledBySettings() {
+		boolean rollups = AppSettings.getBoolean(Constants.ROLLUPS_SETTING, false);
+		if (rollups && PERSISTENCE_ENGINE == PersistenceEngine.OUTPUT_BINDING) {
+			throw new IllegalStateException("The app setting [" + Constants.ROLLUPS_SETTING + "] requires the events to be written by the function, with ["
+					+ Constants.PERSISTENCE_ENGINE_SETTING + "] set to [" + PersistenceEngine.COSMOS_BULK + "].");
+		}
+		return rollups;
+	}
+
+	RollupSink getRollupSink() {
+		return RollupSink.getInstance();
+	}
+
+	EventSink getEventSink(OutputBinding<String> documentdb) {
+		if (PERSISTENCE_ENGINE == PersistenceEngine.COSMOS_BULK) {
+			return BulkEventSinkHolder.EVENT_SINK;
+		} else if (PERSISTENCE_ENGINE == PersistenceEngine.IN_MEMORY) {
+			return InMemoryEventStore.getInstance().getSink();
 		}
-		matcher.appendTail(builder);
-		return builder.toString();
+		return new OutputBindingEventSink(documentdb);
 	}
 
-	private void persistEventBatch(Logger logger, OutputBinding<List<Object>> documentdb, List<Object> eventsToPersistCosmos) {
-		documentdb.setValue(eventsToPersistCosmos);
+	/**
+	 * Holds the sink writing through the Cosmos DB bulk executor, shared by all the invocations of the host instance.
+	 */
+	private static class BulkEventSinkHolder {
+		private static final EventSink EVENT_SINK = createBulkEventSink();
+
+		private static EventSink createBulkEventSink() {
+			EventSink eventSink = IDEMPOTENT_WRITES ? IdempotentEventSink.getInstance() : CosmosBulkEventSink.getInstance();
+			int aggregationMaxBatchSize = AppSettings.getInt(Constants.AGGREGATION_MAX_BATCH_SIZE_SETTING, 0);
+			if (aggregationMaxBatchSize > 0) {
+				eventSink = new AggregatingEventSink(eventSink, AdaptiveController.getInstance()::getFlushSize, AppSettings.getLong(Constants.AGGREGATION_MAX_DELAY_MILLIS_SETTING, 200));
+			}
+			return eventSink;
+		}
+	}
+
+	private SinkResult persistEventBatch(Logger logger, EventSink eventSink, List<TransformedEvent> eventsToPersistCosmos, String invocationId) {
+		SinkResult result = eventSink.persist(eventsToPersistCosmos);
+		if (result.getRequestCharge() > 0 || result.getThrottledWrites() > 0 || result.getSkippedCount() > 0) {
+			logger.log(Level.INFO, () -> String.format("Persisted events: InvocationId [%s], Events [%d], Skipped as already persisted [%d], Attempts [%d], Throttled writes [%d], Request charge [%.2f RU]",
+					invocationId, result.getItems().size(), result.getSkippedCount(), result.getAttempts(), result.getThrottledWrites(), result.getRequestCharge()));
+		}
+		if (!result.isSuccess()) {
+			List<ItemResult> failedItems = result.getFailedItems();
+			throw new PersistenceException(String.format("Failed to persist [%d] of [%d] events: %s", failedItems.size(), result.getItems().size(),
+					failedItems.stream().limit(TRACE_MAX_IDS).map(item -> String.format("{PartitionKey: %s, RowKey: %s, StatusCode: %d}", item.getPartitionKey(), item.getId(), item.getStatusCode())).collect(Collectors.toList())));
+		}
 		logger.log(Level.FINE, () -> "Done processing events");
+		return result;
 	}
 
-	private String generatePartitionKey(Map<String, Object> event, String insertedDateValue) {
-		return insertedDateValue.replace(":", "").replace(".", "").replace("T", "").replace("-", "") +
-				"-" +
-				getEventField(event, Constants.CREDITOR_ID_EVENT_FIELD, String.class, Constants.NA) +
-				"-" +
-				getEventField(event, Constants.PSP_ID_EVENT_FIELD, String.class, Constants.NA);
-	}
-
-	@SuppressWarnings({"rawtypes"})
-	private static <T> T getEventField(Map<String, Object> event, String name, Class<T> clazz, T defaultValue) {
-		T field = null;
-		List<String> splitPath = List.of(name.split("\\."));
-		Map eventSubset = event;
-		Iterator<String> it = splitPath.listIterator();
-		while(it.hasNext()) {
-			Object retrievedEventField = eventSubset.get(it.next());
-			if (!it.hasNext()) {
-				field = clazz.cast(retrievedEventField);
-			} else {
-				eventSubset = (Map) retrievedEventField;
-				if (eventSubset == null) {
-					throw new IllegalArgumentException("The field [" + name + "] does not exists in the passed event.");
-				}
+	/**
+	 * Increments the rollup counters with the events whose document is created by the write, as told by the
+	 * <code>201</code> status in any write mode, so that the events replaced or skipped on a retry are not counted
+	 * twice. A folded event is counted if the document it is folded in is written, as the folded documents are
+	 * rewritten by each batch touching their window. A failure is logged without failing the batch, as the events
+	 * are already persisted.
+	 */
+	private void updateRollups(Logger logger, List<TransformedEvent> events, EventFolder.Folding folding, SinkResult sinkResult, String invocationId) {
+		Set<String> createdIds = new HashSet<>();
+		Set<String> writtenIds = new HashSet<>();
+		for (ItemResult item : sinkResult.getItems()) {
+			if (item.isCreated()) {
+				createdIds.add(item.getId());
+			} else if (item.getStatusCode() >= 200 && item.getStatusCode() < 300) {
+				writtenIds.add(item.getId());
+			}
+		}
+		List<TransformedEvent> countedEvents = events.stream().filter(event -> {
+			String documentId = folding == null ? event.getId() : folding.getDocumentId(event.getId());
+			return createdIds.contains(documentId) || (!documentId.equals(event.getId()) && writtenIds.contains(documentId));
+		}).collect(Collectors.toList());
+		if (countedEvents.isEmpty()) {
+			return;
+		}
+		try {
+			List<RollupDelta> deltas = ROLLUP_AGGREGATOR.fold(countedEvents);
+			SinkResult result = getRollupSink().apply(deltas);
+			logger.log(Level.INFO, () -> String.format("Updated rollups: InvocationId [%s], Rollups [%d], Events [%d], Attempts [%d], Request charge [%.2f RU]",
+					invocationId, deltas.size(), countedEvents.size(), result.getAttempts(), result.getRequestCharge()));
+			if (!result.isSuccess()) {
+				List<ItemResult> failedItems = result.getFailedItems();
+				logger.log(Level.WARNING, () -> String.format("[ALERT][VerifyKOToDS] Failed to update [%d] rollups: InvocationId [%s], Rollups: %s", failedItems.size(), invocationId,
+						failedItems.stream().limit(TRACE_MAX_IDS).map(item -> String.format("{PartitionKey: %s, StatusCode: %d}", item.getPartitionKey(), item.getStatusCode())).collect(Collectors.toList())));
 			}
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, e, () -> "[ALERT][VerifyKOToDS] Failed to update the rollups: InvocationId [" + invocationId + "]");
+		}
+	}
+
+	private void tune(Logger logger, AdaptiveController adaptiveController, BatchObservation observation) {
+		if (adaptiveController.observe(observation)) {
+			Recommendation recommendation = adaptiveController.getRecommendation();
+			logger.log(Level.INFO, () -> "Adaptive tuning updated: " + recommendation);
 		}
-		return field == null ? defaultValue : field;
 	}
 }
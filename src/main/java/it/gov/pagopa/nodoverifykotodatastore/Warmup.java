@@ -0,0 +1,20 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.WarmupTrigger;
+
+/**
+ * Azure Functions with Warmup trigger.
+ * This function will be invoked when a new host instance is added, before it receives any event
+ * (Premium and Dedicated plans only).
+ */
+public class Warmup {
+
+	@FunctionName("Warmup")
+	public void run(
+			@WarmupTrigger(name = "warmupContext") Object warmupContext,
+			final ExecutionContext context) {
+		NodoVerifyKOEventToDataStore.warmUp(context.getLogger());
+	}
+}
@@ -0,0 +1,40 @@
+package it.gov.pagopa.nodoverifykotodatastore.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stores the archive files and the checkpoint of the export, i.e. on a file system or on a blob container.
+ */
+public interface ArchiveSink {
+
+    /**
+     * Creates a file, that is published with the passed name only once committed, so that a file interrupted
+     * by a failure is never read as complete.
+     */
+    ArchiveFile create(String fileName) throws IOException;
+
+    /**
+     * Returns the checkpoint saved by the last export, <code>null</code> if none.
+     */
+    String readCheckpoint() throws IOException;
+
+    /**
+     * Saves the checkpoint of the export, replacing the previous one; <code>null</code> removes it.
+     */
+    void writeCheckpoint(String checkpoint) throws IOException;
+
+    /**
+     * A file being written: closing it without a commit discards it.
+     */
+    interface ArchiveFile extends Closeable {
+
+        OutputStream getStream();
+
+        /**
+         * Closes the stream and publishes the file.
+         */
+        void commit() throws IOException;
+    }
+}
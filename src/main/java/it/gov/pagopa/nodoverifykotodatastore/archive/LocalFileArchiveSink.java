@@ -0,0 +1,85 @@
+package it.gov.pagopa.nodoverifykotodatastore.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores the archive files in a directory, writing each file with a <code>.part</code> suffix and renaming it once
+ * committed, or deleting it if discarded. The checkpoint is kept in the <code>checkpoint</code> file of the same directory.
+ */
+public class LocalFileArchiveSink implements ArchiveSink {
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    public LocalFileArchiveSink(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public ArchiveFile create(String fileName) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(fileName);
+        Path partial = directory.resolve(fileName + PARTIAL_SUFFIX);
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(partial), BUFFER_SIZE);
+        return new ArchiveFile() {
+            private boolean closed;
+
+            @Override
+            public OutputStream getStream() {
+                return stream;
+            }
+
+            @Override
+            public void commit() throws IOException {
+                closed = true;
+                stream.close();
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    stream.close();
+                } finally {
+                    Files.deleteIfExists(partial);
+                }
+            }
+        };
+    }
+
+    @Override
+    public String readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        return Files.exists(checkpoint) ? Files.readString(checkpoint, StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public void writeCheckpoint(String checkpoint) throws IOException {
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        if (checkpoint == null) {
+            Files.deleteIfExists(target);
+            return;
+        }
+        Files.createDirectories(directory);
+        Path partial = directory.resolve(CHECKPOINT_FILE + PARTIAL_SUFFIX);
+        Files.writeString(partial, checkpoint, StandardCharsets.UTF_8);
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
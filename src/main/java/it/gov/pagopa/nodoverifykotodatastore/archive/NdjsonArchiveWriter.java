@@ -0,0 +1,115 @@
+package it.gov.pagopa.nodoverifykotodatastore.archive;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the documents as gzip-compressed NDJSON (one JSON document per line) on the files of an {@link ArchiveSink},
+ * streaming each document to the file with no buffering beyond the compressor. The files are named with the passed
+ * prefix and a sequence number, and are rolled by the caller once {@link #isFull()}, so that a file always ends on a
+ * complete document; a file not rolled is discarded on {@link #close()}.
+ */
+public class NdjsonArchiveWriter implements Closeable {
+
+    static final String FILE_EXTENSION = ".ndjson.gz";
+    private static final int COMPRESSION_BUFFER_SIZE = 8 * 1024;
+
+    private final ArchiveSink sink;
+    private final String prefix;
+    private final long maxFileBytes;
+    private int sequence;
+    private ArchiveSink.ArchiveFile file;
+    private CountingOutputStream counter;
+    private GZIPOutputStream compressed;
+
+    /**
+     * @param maxFileBytes the compressed bytes after which the file is full
+     */
+    public NdjsonArchiveWriter(ArchiveSink sink, String prefix, long maxFileBytes) {
+        this.sink = sink;
+        this.prefix = prefix;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * Appends the document to the current file, creating it if needed.
+     */
+    public void write(String document) throws IOException {
+        if (compressed == null) {
+            file = sink.create(String.format("%s-%05d%s", prefix, ++sequence, FILE_EXTENSION));
+            counter = new CountingOutputStream(file.getStream());
+            compressed = new GZIPOutputStream(counter, COMPRESSION_BUFFER_SIZE);
+        }
+        compressed.write(document.getBytes(StandardCharsets.UTF_8));
+        compressed.write('\n');
+    }
+
+    /**
+     * Whether the compressed bytes written on the current file reached the maximum size. The count excludes the
+     * bytes still held by the compressor, so a file exceeds the maximum size by at most a page of documents.
+     */
+    public boolean isFull() {
+        return counter != null && counter.count >= maxFileBytes;
+    }
+
+    /**
+     * Completes and publishes the current file, if any.
+     *
+     * @return whether a file was published
+     */
+    public boolean roll() throws IOException {
+        if (file == null) {
+            return false;
+        }
+        try (ArchiveSink.ArchiveFile current = file) {
+            compressed.close();
+            current.commit();
+        } finally {
+            file = null;
+            counter = null;
+            compressed = null;
+        }
+        return true;
+    }
+
+    /**
+     * Discards the current file, if any, i.e. after a failure.
+     */
+    @Override
+    public void close() throws IOException {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } finally {
+            file = null;
+            counter = null;
+            compressed = null;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            out.write(value);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package it.gov.pagopa.nodoverifykotodatastore.exception;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.ValidationError;
+
+public class InvalidEventException extends IllegalArgumentException {
+
+    private final ValidationError error;
+
+    public InvalidEventException(ValidationError error, String message) {
+        super(message);
+        this.error = error;
+    }
+
+    public InvalidEventException(ValidationError error, String message, Throwable cause) {
+        super(message, cause);
+        this.error = error;
+    }
+
+    public ValidationError getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return error + ": " + getMessage();
+    }
+}
@@ -0,0 +1,8 @@
+package it.gov.pagopa.nodoverifykotodatastore.exception;
+
+public class PersistenceException extends RuntimeException {
+
+    public PersistenceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,125 @@
+package it.gov.pagopa.nodoverifykotodatastore.field;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * The values read for the paths of a {@link FieldPathTree} while a single event is streamed.
+ * Only scalar values are kept; objects are tracked just to tell apart a missing field from
+ * a field whose parent does not exist.
+ */
+public final class CapturedFields {
+
+    private static final byte NOT_SEEN = 0;
+    private static final byte OBJECT = 1;
+    private static final byte SCALAR = 2;
+    private static final byte NULL = 3;
+    private static final byte OTHER = 4;
+
+    private final FieldPathTree tree;
+    private final Object[] values;
+    private final byte[] states;
+
+    CapturedFields(FieldPathTree tree, int size) {
+        this.tree = tree;
+        this.values = new Object[size];
+        this.states = new byte[size];
+    }
+
+    /**
+     * Records that the field of the passed node is an object, whose fields are about to be streamed.
+     */
+    public void markObject(FieldPathTree.Node node) {
+        states[node.getOrdinal()] = OBJECT;
+    }
+
+    /**
+     * Records the value of the field of the passed node, the parser being positioned on its first token.
+     * The parser is not moved, so the value can still be copied.
+     */
+    public void capture(FieldPathTree.Node node, JsonParser parser, JsonToken token) throws IOException {
+        int ordinal = node.getOrdinal();
+        switch (token) {
+            case VALUE_STRING:
+                values[ordinal] = parser.getText();
+                states[ordinal] = SCALAR;
+                break;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                values[ordinal] = parser.getNumberValue();
+                states[ordinal] = SCALAR;
+                break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                values[ordinal] = token == JsonToken.VALUE_TRUE;
+                states[ordinal] = SCALAR;
+                break;
+            case VALUE_NULL:
+                states[ordinal] = NULL;
+                break;
+            default:
+                states[ordinal] = OTHER;
+        }
+    }
+
+    public FieldValue.Status getStatus(FieldPath path) {
+        FieldPathTree.Node node = getNode(path);
+        for (FieldPathTree.Node parent = node.getParent(); !parent.isRoot(); parent = parent.getParent()) {
+            if (states[parent.getOrdinal()] != OBJECT) {
+                return FieldValue.Status.PARENT_MISSING;
+            }
+        }
+        switch (states[node.getOrdinal()]) {
+            case NOT_SEEN:
+                return FieldValue.Status.MISSING;
+            case NULL:
+                return FieldValue.Status.NULL;
+            default:
+                return FieldValue.Status.PRESENT;
+        }
+    }
+
+    public FieldValue get(FieldPath path) {
+        switch (getStatus(path)) {
+            case PARENT_MISSING:
+                return FieldValue.PARENT_MISSING;
+            case MISSING:
+                return FieldValue.MISSING;
+            case NULL:
+                return FieldValue.NULL;
+            default:
+                return FieldValue.of(values[getNode(path).getOrdinal()]);
+        }
+    }
+
+    /**
+     * Returns the captured scalar as string, or the passed default if the field has no scalar value.
+     */
+    public String getString(FieldPath path, String defaultValue) {
+        Object value = getScalar(path);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    /**
+     * Returns the captured value as long, or the passed default if the field is not an integral number.
+     */
+    public Long getLong(FieldPath path, Long defaultValue) {
+        Object value = getScalar(path);
+        return value instanceof Long || value instanceof Integer || value instanceof Short ? Long.valueOf(((Number) value).longValue()) : defaultValue;
+    }
+
+    private Object getScalar(FieldPath path) {
+        int ordinal = getNode(path).getOrdinal();
+        return states[ordinal] == SCALAR ? values[ordinal] : null;
+    }
+
+    private FieldPathTree.Node getNode(FieldPath path) {
+        FieldPathTree.Node node = tree.getNode(path);
+        if (node == null) {
+            throw new IllegalArgumentException("The field [" + path + "] is not captured.");
+        }
+        return node;
+    }
+}
@@ -0,0 +1,24 @@
+package it.gov.pagopa.nodoverifykotodatastore.field;
+
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.util.List;
+
+/**
+ * The compiled paths of the verify KO event fields read by the ingestion.
+ */
+public class EventFieldPaths {
+
+    private EventFieldPaths() {}
+
+    public static final FieldPath ID = FieldPath.of(Constants.ID_EVENT_FIELD);
+    public static final FieldPath CREDITOR_ID = FieldPath.of(Constants.CREDITOR_ID_EVENT_FIELD);
+    public static final FieldPath PSP_ID = FieldPath.of(Constants.PSP_ID_EVENT_FIELD);
+    public static final FieldPath FAULTBEAN_TIMESTAMP = FieldPath.of(Constants.FAULTBEAN_TIMESTAMP_EVENT_FIELD);
+    public static final FieldPath FAULT_CODE = FieldPath.of(Constants.FAULT_CODE_EVENT_FIELD);
+
+    /**
+     * The paths captured by default while an event is transformed.
+     */
+    public static final List<FieldPath> DEFAULTS = List.of(ID, CREDITOR_ID, PSP_ID, FAULTBEAN_TIMESTAMP);
+}
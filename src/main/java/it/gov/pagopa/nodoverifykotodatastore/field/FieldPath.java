@@ -0,0 +1,74 @@
+package it.gov.pagopa.nodoverifykotodatastore.field;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A dot-separated path to an event field (i.e. <code>creditor.idPA</code>), split once at
+ * creation time so that lookups never parse the path again. Instances are immutable and
+ * are meant to be stored in constants.
+ */
+public final class FieldPath {
+
+    private final String path;
+    private final String[] segments;
+
+    private FieldPath(String path, String[] segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * Compiles the passed dot-separated path.
+     *
+     * @throws IllegalArgumentException if the path is empty or contains an empty segment
+     */
+    public static FieldPath of(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("The field path cannot be empty.");
+        }
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int index = 0; index <= path.length(); index++) {
+            if (index == path.length() || path.charAt(index) == '.') {
+                if (index == start) {
+                    throw new IllegalArgumentException("The field path [" + path + "] contains an empty segment.");
+                }
+                segments.add(path.substring(start, index));
+                start = index + 1;
+            }
+        }
+        return new FieldPath(path, segments.toArray(new String[0]));
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getDepth() {
+        return segments.length;
+    }
+
+    public String getSegment(int index) {
+        return segments[index];
+    }
+
+    public String getLastSegment() {
+        return segments[segments.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FieldPath && path.equals(((FieldPath) other).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -0,0 +1,111 @@
+package it.gov.pagopa.nodoverifykotodatastore.field;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of field paths to capture while an event is streamed, merged in a tree of
+ * path segments so that each JSON field is matched with a single map lookup.
+ * The tree is immutable once built and can be shared between threads.
+ */
+public final class FieldPathTree {
+
+    private final Node root;
+    private final Map<String, Node> nodesByPath;
+    private final int size;
+
+    private FieldPathTree(Node root, Map<String, Node> nodesByPath, int size) {
+        this.root = root;
+        this.nodesByPath = nodesByPath;
+        this.size = size;
+    }
+
+    public static FieldPathTree of(List<FieldPath> paths) {
+        Node root = new Node(null, null, -1);
+        Map<String, Node> nodesByPath = new HashMap<>();
+        int size = 0;
+        for (FieldPath path : paths) {
+            Node node = root;
+            StringBuilder prefix = new StringBuilder();
+            for (int index = 0; index < path.getDepth(); index++) {
+                String segment = path.getSegment(index);
+                prefix.append(index == 0 ? "" : ".").append(segment);
+                Node child = node.children.get(segment);
+                if (child == null) {
+                    child = new Node(node, segment, size++);
+                    node.children.put(segment, child);
+                    nodesByPath.put(prefix.toString(), child);
+                }
+                node = child;
+            }
+        }
+        return new FieldPathTree(root.freeze(), Collections.unmodifiableMap(nodesByPath), size);
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the node of the passed path, or <code>null</code> if the path is not part of the tree.
+     */
+    public Node getNode(FieldPath path) {
+        return nodesByPath.get(path.getPath());
+    }
+
+    /**
+     * Creates the container for the values captured from a single event.
+     */
+    public CapturedFields newCapture() {
+        return new CapturedFields(this, size);
+    }
+
+    public static final class Node {
+
+        private final Node parent;
+        private final String name;
+        private final int ordinal;
+        private Map<String, Node> children = new HashMap<>();
+
+        private Node(Node parent, String name, int ordinal) {
+            this.parent = parent;
+            this.name = name;
+            this.ordinal = ordinal;
+        }
+
+        private Node freeze() {
+            for (Node child : new ArrayList<>(children.values())) {
+                child.freeze();
+            }
+            children = children.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(children);
+            return this;
+        }
+
+        public Node getParent() {
+            return parent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        int getOrdinal() {
+            return ordinal;
+        }
+
+        public Node getChild(String name) {
+            return children.get(name);
+        }
+
+        public boolean isLeaf() {
+            return children.isEmpty();
+        }
+
+        boolean isRoot() {
+            return parent == null;
+        }
+    }
+}
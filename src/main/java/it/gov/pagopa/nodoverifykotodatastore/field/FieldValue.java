@@ -0,0 +1,65 @@
+package it.gov.pagopa.nodoverifykotodatastore.field;
+
+/**
+ * The result of a field lookup, telling apart a field with a value, a field explicitly set
+ * to <code>null</code>, a missing field and a field whose parent object does not exist.
+ */
+public final class FieldValue {
+
+    public enum Status {
+        PRESENT,
+        NULL,
+        MISSING,
+        PARENT_MISSING
+    }
+
+    static final FieldValue NULL = new FieldValue(Status.NULL, null);
+    static final FieldValue MISSING = new FieldValue(Status.MISSING, null);
+    static final FieldValue PARENT_MISSING = new FieldValue(Status.PARENT_MISSING, null);
+
+    private final Status status;
+    private final Object value;
+
+    private FieldValue(Status status, Object value) {
+        this.status = status;
+        this.value = value;
+    }
+
+    static FieldValue of(Object value) {
+        return value == null ? NULL : new FieldValue(Status.PRESENT, value);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isPresent() {
+        return status == Status.PRESENT;
+    }
+
+    public boolean isNull() {
+        return status == Status.NULL;
+    }
+
+    public boolean isMissing() {
+        return status == Status.MISSING || status == Status.PARENT_MISSING;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the value as string if it is a scalar, the passed default otherwise.
+     */
+    public String asString(String defaultValue) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean ? value.toString() : defaultValue;
+    }
+
+    /**
+     * Returns the value as long if it is an integral number, the passed default otherwise.
+     */
+    public Long asLong(Long defaultValue) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short ? Long.valueOf(((Number) value).longValue()) : defaultValue;
+    }
+}
@@ -0,0 +1,37 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.exception.PersistenceException;
+import it.gov.pagopa.nodoverifykotodatastore.model.ValidationError;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The causes the ingestion failures are counted by. The invalid events are told by their {@link ValidationError},
+ * the other failures, as a missing app setting or an interrupted write, are either persistence or generic ones.
+ */
+public enum FailureCause {
+    LENGTH_MISMATCH,
+    INVALID_EVENT,
+    MISSING_TIMESTAMP,
+    MALFORMED_EVENT,
+    PERSISTENCE,
+    GENERIC;
+
+    public static FailureCause of(Throwable throwable) {
+        if (throwable instanceof PersistenceException) {
+            return PERSISTENCE;
+        } else if (throwable instanceof InvalidEventException) {
+            ValidationError error = ((InvalidEventException) throwable).getError();
+            return error == ValidationError.MISSING_FAULT_BEAN || error == ValidationError.MISSING_TIMESTAMP ? MISSING_TIMESTAMP : INVALID_EVENT;
+        } else if (throwable instanceof IOException) {
+            return MALFORMED_EVENT;
+        }
+        return GENERIC;
+    }
+
+    public String getTag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,65 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the metrics in memory, summarizing each distribution with count, sum and max.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    public void increment(String name, String... tags) {
+        summary(name, tags).add(1);
+    }
+
+    @Override
+    public void record(String name, double value, String... tags) {
+        summary(name, tags).add(value);
+    }
+
+    @Override
+    public void recordNanos(String name, long nanos, String... tags) {
+        summary(name, tags).add(nanos);
+    }
+
+    /**
+     * Returns the samples recorded with the passed name and tags, that is the value of a counter.
+     */
+    public long getCount(String name, String... tags) {
+        Summary summary = summaries.get(id(name, tags));
+        return summary == null ? 0 : summary.count;
+    }
+
+    public double getSum(String name, String... tags) {
+        Summary summary = summaries.get(id(name, tags));
+        return summary == null ? 0 : summary.sum;
+    }
+
+    public double getMax(String name, String... tags) {
+        Summary summary = summaries.get(id(name, tags));
+        return summary == null ? 0 : summary.max;
+    }
+
+    private Summary summary(String name, String... tags) {
+        return summaries.computeIfAbsent(id(name, tags), id -> new Summary());
+    }
+
+    private static String id(String name, String... tags) {
+        return tags.length == 0 ? name : name + "|" + String.join(",", tags);
+    }
+
+    private static class Summary {
+        private long count;
+        private double sum;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private synchronized void add(double value) {
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+    }
+}
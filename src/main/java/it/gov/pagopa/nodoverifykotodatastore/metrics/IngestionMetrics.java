@@ -0,0 +1,151 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.ValidationError;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the metrics of the ingestion function on a {@link MetricsRegistry}.
+ */
+public class IngestionMetrics {
+
+    public static final String BATCH_SIZE = "verifyko.batch.size";
+    public static final String STAGE_DURATION = "verifyko.stage.duration";
+    public static final String EVENT_LAG = "verifyko.event.lag";
+    public static final String FAILURES = "verifyko.failures";
+    public static final String RETRY_INDEX = "verifyko.retry.index";
+    public static final String VALIDATION_ERRORS = "verifyko.validation.errors";
+
+    private static final String STAGE_TAG = "stage";
+    private static final String CAUSE_TAG = "cause";
+    private static final String ERROR_TAG = "error";
+    private static final String ENQUEUED_TIME_SYSTEM_PROPERTY = "EnqueuedTimeUtc";
+    private static final String ENQUEUED_TIME_PROPERTY = "x-opt-enqueued-time";
+    private static final Stage[] TRANSFORM_STAGES = {Stage.PARSE, Stage.ENRICH, Stage.TIMESTAMP, Stage.KEY};
+
+    private final MetricsRegistry registry;
+    private final boolean enabled;
+
+    public IngestionMetrics(MetricsRegistry registry, boolean enabled) {
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates the metrics recorded on the Micrometer global registry or, if disabled by the app settings, discarded.
+     */
+    public static IngestionMetrics fromSettings() {
+        boolean enabled = AppSettings.getBoolean(Constants.METRICS_ENABLED_SETTING, true);
+        return new IngestionMetrics(enabled ? new MicrometerMetricsRegistry(Metrics.globalRegistry) : new NoopMetricsRegistry(), enabled);
+    }
+
+    /**
+     * Tells whether the metrics are recorded, so that the callers can skip measuring them.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordBatch(int batchSize, int retryIndex) {
+        registry.record(BATCH_SIZE, batchSize);
+        if (retryIndex >= 0) {
+            registry.record(RETRY_INDEX, retryIndex);
+        }
+    }
+
+    /**
+     * Records the time spent by the whole batch in each transformation stage.
+     */
+    public void recordTransformStages(List<TransformedEvent> events) {
+        StageTimings total = new StageTimings();
+        for (TransformedEvent event : events) {
+            if (event.getTimings() != null) {
+                total.addAll(event.getTimings());
+            }
+        }
+        for (Stage stage : TRANSFORM_STAGES) {
+            recordStage(stage, total.get(stage));
+        }
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        registry.recordNanos(STAGE_DURATION, nanos, STAGE_TAG, stage.getTag());
+    }
+
+    /**
+     * Records, for each event, the time elapsed since it was enqueued in Event Hub. The enqueued time is read from the
+     * system properties of the event or, if not available, from its <code>x-opt-enqueued-time</code> property.
+     *
+     * @return the lag of the oldest event in milliseconds, <code>-1</code> if no enqueued time is available
+     */
+    public long recordEventLag(Map<String, Object>[] systemProperties, Map<String, Object>[] properties, Instant now) {
+        long maxLagMillis = -1;
+        int events = Math.max(systemProperties == null ? 0 : systemProperties.length, properties == null ? 0 : properties.length);
+        for (int index = 0; index < events; index++) {
+            Instant enqueuedTime = toInstant(get(systemProperties, index, ENQUEUED_TIME_SYSTEM_PROPERTY));
+            if (enqueuedTime == null) {
+                enqueuedTime = toInstant(get(properties, index, ENQUEUED_TIME_PROPERTY));
+            }
+            if (enqueuedTime != null) {
+                long lagMillis = Math.max(0, now.toEpochMilli() - enqueuedTime.toEpochMilli());
+                maxLagMillis = Math.max(maxLagMillis, lagMillis);
+                registry.recordNanos(EVENT_LAG, lagMillis * 1_000_000);
+            }
+        }
+        return maxLagMillis;
+    }
+
+    public void recordFailure(FailureCause cause) {
+        registry.increment(FAILURES, CAUSE_TAG, cause.getTag());
+    }
+
+    /**
+     * Records the failure caused by the passed error and, for an event rejected by the validation, its {@link ValidationError}.
+     */
+    public void recordFailure(Throwable error) {
+        recordFailure(FailureCause.of(error));
+        if (error instanceof InvalidEventException) {
+            registry.increment(VALIDATION_ERRORS, ERROR_TAG, ((InvalidEventException) error).getError().getTag());
+        }
+    }
+
+    private static Object get(Map<String, Object>[] properties, int index, String name) {
+        return properties == null || index >= properties.length || properties[index] == null ? null : properties[index].get(name);
+    }
+
+    static Instant toInstant(Object value) {
+        if (value instanceof Instant) {
+            return (Instant) value;
+        } else if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        } else if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        } else if (value instanceof String) {
+            String text = (String) value;
+            try {
+                return OffsetDateTime.parse(text).toInstant();
+            } catch (DateTimeParseException e) {
+                try {
+                    return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC);
+                } catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+/**
+ * The registry where the ingestion metrics are recorded. The tags are passed as key/value pairs.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Increments by one the counter with the passed name and tags.
+     */
+    void increment(String name, String... tags);
+
+    /**
+     * Records a sample of the distribution with the passed name and tags.
+     */
+    void record(String name, double value, String... tags);
+
+    /**
+     * Records a duration in the timer with the passed name and tags.
+     */
+    void recordNanos(String name, long nanos, String... tags);
+}
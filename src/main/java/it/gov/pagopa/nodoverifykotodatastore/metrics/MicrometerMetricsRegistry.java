@@ -0,0 +1,77 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the metrics on a Micrometer registry. On Azure, the Application Insights agent collects the meters
+ * of the Micrometer global registry, so no exporter has to be configured by the function.
+ * <p>
+ * The meters are registered once for each name and tags, and then looked up in a local map, so that recording
+ * a sample does not go through the registry.
+ */
+public class MicrometerMetricsRegistry implements MetricsRegistry {
+
+    private final MeterRegistry registry;
+    private final Map<MeterKey, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public MicrometerMetricsRegistry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void increment(String name, String... tags) {
+        counters.computeIfAbsent(new MeterKey(name, tags), key -> Counter.builder(name).tags(tags).register(registry))
+                .increment();
+    }
+
+    @Override
+    public void record(String name, double value, String... tags) {
+        summaries.computeIfAbsent(new MeterKey(name, tags), key -> DistributionSummary.builder(name).tags(tags).publishPercentileHistogram().register(registry))
+                .record(value);
+    }
+
+    @Override
+    public void recordNanos(String name, long nanos, String... tags) {
+        timers.computeIfAbsent(new MeterKey(name, tags), key -> Timer.builder(name).tags(tags).publishPercentileHistogram().register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class MeterKey {
+        private final String name;
+        private final String[] tags;
+        private final int hash;
+
+        private MeterKey(String name, String[] tags) {
+            this.name = name;
+            this.tags = tags;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(tags);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof MeterKey)) {
+                return false;
+            }
+            MeterKey key = (MeterKey) other;
+            return hash == key.hash && name.equals(key.name) && Arrays.equals(tags, key.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
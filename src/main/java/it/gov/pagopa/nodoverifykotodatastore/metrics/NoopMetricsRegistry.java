@@ -0,0 +1,22 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+/**
+ * Discards all the metrics.
+ */
+public class NoopMetricsRegistry implements MetricsRegistry {
+
+    @Override
+    public void increment(String name, String... tags) {
+        // intentionally blank
+    }
+
+    @Override
+    public void record(String name, double value, String... tags) {
+        // intentionally blank
+    }
+
+    @Override
+    public void recordNanos(String name, long nanos, String... tags) {
+        // intentionally blank
+    }
+}
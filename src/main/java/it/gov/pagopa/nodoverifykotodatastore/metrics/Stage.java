@@ -0,0 +1,33 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import java.util.Locale;
+
+/**
+ * The stages of the ingestion of a batch.
+ */
+public enum Stage {
+    /**
+     * The streaming pass on the event, copying its fields to the document.
+     */
+    PARSE,
+    /**
+     * The validation of the event and the enrichment with the Event Hub properties.
+     */
+    ENRICH,
+    /**
+     * The normalization of the <code>faultBean.timestamp</code>.
+     */
+    TIMESTAMP,
+    /**
+     * The generation of the <code>PartitionKey</code>.
+     */
+    KEY,
+    /**
+     * The write of the documents to the storage.
+     */
+    PERSIST;
+
+    public String getTag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,25 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+/**
+ * The nanoseconds spent in each {@link Stage}, accumulated by a single thread.
+ */
+public class StageTimings {
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long[] nanos = new long[STAGES.length];
+
+    public void add(Stage stage, long elapsedNanos) {
+        nanos[stage.ordinal()] += elapsedNanos;
+    }
+
+    public long get(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public void addAll(StageTimings timings) {
+        for (int index = 0; index < nanos.length; index++) {
+            nanos[index] += timings.nanos[index];
+        }
+    }
+}
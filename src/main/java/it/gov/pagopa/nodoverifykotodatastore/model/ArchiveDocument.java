@@ -0,0 +1,18 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A persisted event read to be archived, as JSON document with the keys to delete it once archived.
+ */
+@Getter
+@AllArgsConstructor
+public class ArchiveDocument {
+
+    private final String id;
+
+    private final String partitionKey;
+
+    private final String document;
+}
@@ -0,0 +1,35 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of a run of the archive export.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ArchiveResult {
+
+    /**
+     * The events written on the archive files.
+     */
+    private final long documents;
+
+    /**
+     * The archive files written.
+     */
+    private final int files;
+
+    /**
+     * The archived events deleted from the events container.
+     */
+    private final long deleted;
+
+    /**
+     * Whether all the aged events were exported, <code>false</code> if the run stopped on its time budget
+     * and the following one resumes from the saved checkpoint.
+     */
+    private final boolean completed;
+}
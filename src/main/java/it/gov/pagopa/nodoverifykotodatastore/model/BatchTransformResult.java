@@ -0,0 +1,17 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The outcome of the transformation of a batch whose invalid events do not fail the whole batch.
+ */
+@Getter
+@AllArgsConstructor
+public class BatchTransformResult {
+
+    private final List<TransformedEvent> transformedEvents;
+    private final List<FailedEvent> failedEvents;
+}
@@ -0,0 +1,21 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A page of the events returned by a query, as JSON documents.
+ */
+@Getter
+@AllArgsConstructor
+public class EventPage {
+
+    private final List<String> documents;
+
+    /**
+     * The token to read the following page, <code>null</code> if this is the last one.
+     */
+    private final String continuationToken;
+}
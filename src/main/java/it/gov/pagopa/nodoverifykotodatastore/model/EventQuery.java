@@ -0,0 +1,33 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * A lookup of the verify KO events of a day, creditor and PSP, optionally restricted to a notice number.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EventQuery {
+
+    private LocalDate date;
+    private String creditorId;
+    private String pspId;
+
+    /**
+     * The <code>debtorPosition.noticeNumber</code> of the events, <code>null</code> to return all the events.
+     */
+    private String noticeNumber;
+
+    private int pageSize;
+
+    /**
+     * The token returned with the previous page, <code>null</code> for the first page.
+     */
+    private String continuationToken;
+}
@@ -0,0 +1,19 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * An event that could not be transformed, with the cause of the failure.
+ */
+@Getter
+@AllArgsConstructor
+public class FailedEvent {
+
+    private final int index;
+    private final String event;
+    private final Map<String, Object> properties;
+    private final Exception cause;
+}
@@ -0,0 +1,15 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+/**
+ * How the ingestion handles the invalid events of a batch.
+ */
+public enum FailureMode {
+    /**
+     * The whole batch fails, so that it is retried by the function retry policy.
+     */
+    FAIL_BATCH,
+    /**
+     * The valid events are persisted and the invalid ones are written to the dead-letter container.
+     */
+    DEAD_LETTER
+}
@@ -0,0 +1,35 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A <code>faultBean.timestamp</code> normalized to UTC with microsecond precision.
+ */
+@Getter
+@AllArgsConstructor
+public class FaultTimestamp {
+
+    /**
+     * The seconds from the epoch.
+     */
+    private final long epochSecond;
+
+    /**
+     * The microseconds within the second.
+     */
+    private final int micros;
+
+    /**
+     * The canonical representation, formatted as <code>yyyy-MM-dd'T'HH:mm:ss.SSSSSS</code>.
+     */
+    private final String dateTime;
+
+    private final int year;
+    private final int month;
+    private final int dayOfMonth;
+
+    public long getEpochMicros() {
+        return epochSecond * 1_000_000L + micros;
+    }
+}
@@ -0,0 +1,20 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+/**
+ * How the transformed events are written to the events container.
+ */
+public enum PersistenceEngine {
+    /**
+     * The events are handed over to the Cosmos DB output binding, written once the invocation completes.
+     */
+    OUTPUT_BINDING,
+    /**
+     * The events are written by the function through the Cosmos DB bulk executor, reporting the outcome of each write.
+     */
+    COSMOS_BULK,
+    /**
+     * The events are kept in memory by the host instance and read back by the query functions, to run the
+     * function locally without a Cosmos DB account.
+     */
+    IN_MEMORY
+}
@@ -0,0 +1,67 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The increments of the KO counters of a day, creditor and PSP, folded from the events of a batch.
+ * The rollup document has the same <code>id</code> and <code>PartitionKey</code>, built as the one of the events.
+ */
+@Getter
+public class RollupDelta {
+
+    private final String id;
+    private final String day;
+    private final String creditorId;
+    private final String pspId;
+    private long count;
+
+    /**
+     * The increments by <code>faultBean.faultCode</code>, summing up to the <code>count</code>.
+     */
+    private final Map<String, Long> faultCodes = new TreeMap<>();
+
+    public RollupDelta(String id, String day, String creditorId, String pspId) {
+        this.id = id;
+        this.day = day;
+        this.creditorId = creditorId;
+        this.pspId = pspId;
+    }
+
+    public void add(String faultCode, long increment) {
+        count += increment;
+        faultCodes.merge(faultCode, increment, Long::sum);
+    }
+
+    /**
+     * Splits the delta in parts with at most <code>maxCounters</code> counters each, the <code>count</code> included,
+     * that only the first part increments.
+     */
+    public List<RollupDelta> split(int maxCounters) {
+        if (faultCodes.size() < maxCounters) {
+            return List.of(this);
+        }
+        List<RollupDelta> parts = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> entries = faultCodes.entrySet().iterator();
+        RollupDelta part = new RollupDelta(id, day, creditorId, pspId);
+        part.count = count;
+        int counters = 1;
+        while (entries.hasNext()) {
+            if (counters == maxCounters) {
+                parts.add(part);
+                part = new RollupDelta(id, day, creditorId, pspId);
+                counters = 0;
+            }
+            Map.Entry<String, Long> entry = entries.next();
+            part.faultCodes.put(entry.getKey(), entry.getValue());
+            counters++;
+        }
+        parts.add(part);
+        return parts;
+    }
+}
@@ -0,0 +1,35 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import it.gov.pagopa.nodoverifykotodatastore.field.CapturedFields;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.StageTimings;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A verify KO event ready to be persisted: the enriched JSON document and the fields
+ * extracted from it while it was being rewritten.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransformedEvent {
+
+    private String id;
+    private String partitionKey;
+    private long timestamp;
+    private String dateTime;
+    private String document;
+    private CapturedFields fields;
+
+    /**
+     * The time spent in each transformation stage, <code>null</code> if not measured.
+     */
+    private StageTimings timings;
+
+    /**
+     * The UTF-8 bytes removed from the document by the projection, 0 if the document is not projected.
+     */
+    private long removedBytes;
+}
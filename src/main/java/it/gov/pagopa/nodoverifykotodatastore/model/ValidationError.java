@@ -0,0 +1,50 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+import java.util.Locale;
+
+/**
+ * The reasons a verify KO event is rejected by the validation, before it is enriched.
+ */
+public enum ValidationError {
+    /**
+     * The event has no content.
+     */
+    EMPTY_EVENT,
+    /**
+     * The event is not a JSON object.
+     */
+    NOT_AN_OBJECT,
+    /**
+     * The <code>id</code> is missing, is not a string or is blank.
+     */
+    INVALID_ID,
+    /**
+     * The <code>faultBean</code> is missing.
+     */
+    MISSING_FAULT_BEAN,
+    /**
+     * The <code>faultBean</code> is not an object.
+     */
+    INVALID_FAULT_BEAN,
+    /**
+     * The <code>faultBean.timestamp</code> is missing or reports an error in place of the timestamp.
+     */
+    MISSING_TIMESTAMP,
+    /**
+     * The <code>faultBean.timestamp</code> is not a string shaped as <code>yyyy-MM-dd'T'HH:mm:ss</code>, optionally
+     * followed by a fraction and an offset, or is out of range.
+     */
+    INVALID_TIMESTAMP,
+    /**
+     * The <code>creditor</code> object, needed for the partition key, is missing.
+     */
+    MISSING_CREDITOR,
+    /**
+     * The <code>psp</code> object, needed for the partition key, is missing.
+     */
+    MISSING_PSP;
+
+    public String getTag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,15 @@
+package it.gov.pagopa.nodoverifykotodatastore.model;
+
+/**
+ * The operation used to write a document through the Cosmos DB bulk executor.
+ */
+public enum WriteMode {
+    /**
+     * The document replaces the one with the same id and partition key, if any.
+     */
+    UPSERT,
+    /**
+     * The document is created; a document with the same id and partition key is considered as already persisted.
+     */
+    CREATE
+}
@@ -0,0 +1,146 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.archive.ArchiveSink;
+import it.gov.pagopa.nodoverifykotodatastore.archive.LocalFileArchiveSink;
+import it.gov.pagopa.nodoverifykotodatastore.archive.NdjsonArchiveWriter;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveDocument;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchivePage;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveResult;
+import it.gov.pagopa.nodoverifykotodatastore.store.ArchiveSource;
+import it.gov.pagopa.nodoverifykotodatastore.store.CosmosArchiveSource;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Exports the events older than a maximum age to gzip-compressed NDJSON files, optionally deleting them once archived.
+ * <p>
+ * The events are streamed one page at a time in order of <code>PartitionKey</code>, so the memory used is bounded by
+ * a page of documents and by the keys of the events of the current file, kept to delete them. Once a file is full,
+ * and at the end of the run, the file is published, its events are deleted and the continuation token of the query is
+ * saved on the sink as checkpoint with the cutoff it was created for: a run stopped by its time budget, or by a failure,
+ * is resumed from the last checkpoint by the following one, so each event is archived at least once and deleted only
+ * after its file is published. Once all the aged events are exported the checkpoint is removed, and the following run
+ * starts a new query with a new cutoff.
+ */
+public class ArchiveExporter {
+
+    private static final char CHECKPOINT_SEPARATOR = ':';
+    private static final String FILE_PREFIX = "verifyko-events-";
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final ArchiveSource source;
+    private final ArchiveSink sink;
+    private final long maxAgeSeconds;
+    private final int pageSize;
+    private final long maxFileBytes;
+    private final boolean delete;
+    private final long maxRunMillis;
+    private final LongSupplier clockMillis;
+
+    /**
+     * @param maxAgeSeconds the age after which an event is archived, from the time of its last write
+     * @param maxFileBytes the compressed bytes after which a file is rolled
+     * @param delete whether the archived events are deleted from the source
+     * @param maxRunMillis the time after which a run saves its checkpoint and stops
+     */
+    public ArchiveExporter(ArchiveSource source, ArchiveSink sink, long maxAgeSeconds, int pageSize, long maxFileBytes,
+                           boolean delete, long maxRunMillis, LongSupplier clockMillis) {
+        if (maxAgeSeconds < 0 || pageSize < 1 || maxFileBytes < 1) {
+            throw new IllegalArgumentException("The archive export needs a non-negative age, a positive page size and a positive file size.");
+        }
+        this.source = source;
+        this.sink = sink;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.pageSize = pageSize;
+        this.maxFileBytes = maxFileBytes;
+        this.delete = delete;
+        this.maxRunMillis = maxRunMillis;
+        this.clockMillis = clockMillis;
+    }
+
+    /**
+     * Creates the exporter configured by the <code>ARCHIVE_*</code> app settings, reading the events container and
+     * writing the files on the {@value Constants#ARCHIVE_DIRECTORY_SETTING}, or returns <code>null</code> if the
+     * {@value Constants#ARCHIVE_EXPORT_SETTING} is not enabled, as by default.
+     */
+    public static ArchiveExporter fromSettings() {
+        if (!AppSettings.getBoolean(Constants.ARCHIVE_EXPORT_SETTING, false)) {
+            return null;
+        }
+        String directory = AppSettings.getString(Constants.ARCHIVE_DIRECTORY_SETTING, "");
+        if (directory.isBlank()) {
+            throw new IllegalStateException("The app setting [" + Constants.ARCHIVE_EXPORT_SETTING + "] requires the app setting ["
+                    + Constants.ARCHIVE_DIRECTORY_SETTING + "].");
+        }
+        return new ArchiveExporter(
+                new CosmosArchiveSource(Constants.EVENTS_DATABASE_NAME, Constants.EVENTS_CONTAINER_NAME),
+                new LocalFileArchiveSink(Path.of(directory)),
+                TimeUnit.DAYS.toSeconds(AppSettings.getLong(Constants.ARCHIVE_MAX_AGE_DAYS_SETTING, 90)),
+                AppSettings.getInt(Constants.ARCHIVE_PAGE_SIZE_SETTING, 500),
+                AppSettings.getLong(Constants.ARCHIVE_MAX_FILE_BYTES_SETTING, 64L * 1024 * 1024),
+                AppSettings.getBoolean(Constants.ARCHIVE_DELETE_SETTING, false),
+                TimeUnit.SECONDS.toMillis(AppSettings.getLong(Constants.ARCHIVE_MAX_RUN_SECONDS_SETTING, 240)),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Exports the aged events, resuming from the saved checkpoint if any, until all of them are exported or the
+     * time budget of the run is spent.
+     */
+    public ArchiveResult run() throws IOException {
+        long startMillis = clockMillis.getAsLong();
+        long cutoff;
+        String continuationToken;
+        String checkpoint = sink.readCheckpoint();
+        if (checkpoint == null) {
+            cutoff = TimeUnit.MILLISECONDS.toSeconds(startMillis) - maxAgeSeconds;
+            continuationToken = null;
+        } else {
+            int separator = checkpoint.indexOf(CHECKPOINT_SEPARATOR);
+            cutoff = Long.parseLong(checkpoint.substring(0, separator));
+            continuationToken = checkpoint.substring(separator + 1);
+        }
+
+        long documents = 0;
+        int files = 0;
+        long deleted = 0;
+        boolean timeUp;
+        List<ArchiveDocument> archived = new ArrayList<>();
+        try (NdjsonArchiveWriter writer = new NdjsonArchiveWriter(sink, FILE_PREFIX + RUN_ID_FORMAT.format(Instant.ofEpochMilli(startMillis)), maxFileBytes)) {
+            do {
+                ArchivePage page = source.read(cutoff, continuationToken, pageSize);
+                for (ArchiveDocument document : page.getDocuments()) {
+                    writer.write(document.getDocument());
+                    if (delete) {
+                        archived.add(new ArchiveDocument(document.getId(), document.getPartitionKey(), null));
+                    }
+                }
+                documents += page.getDocuments().size();
+                continuationToken = page.getContinuationToken();
+                timeUp = clockMillis.getAsLong() - startMillis >= maxRunMillis;
+
+                if (writer.isFull() || continuationToken == null || timeUp) {
+                    if (writer.roll()) {
+                        files++;
+                    }
+                    if (!archived.isEmpty()) {
+                        deleted += source.delete(archived);
+                        archived.clear();
+                    }
+                    sink.writeCheckpoint(continuationToken == null ? null : String.valueOf(cutoff) + CHECKPOINT_SEPARATOR + continuationToken);
+                }
+            } while (continuationToken != null && !timeUp);
+        }
+        return new ArchiveResult(documents, files, deleted, continuationToken == null);
+    }
+}
@@ -0,0 +1,70 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the documents written to the dead-letter container for the events that could not be transformed.
+ * <p>
+ * Each document keeps the raw event, its Event Hub properties and the cause of the failure, with its
+ * <code>errorCode</code> if the event was rejected by the validation. The document id is derived from the
+ * raw event and used as <code>PartitionKey</code> too, so that writing again the same event (i.e. on a retry or on a
+ * replay on another day) overwrites the same document.
+ */
+public class DeadLetterDocumentBuilder {
+
+    private DeadLetterDocumentBuilder() {}
+
+    /**
+     * Builds the JSON array of the dead-letter documents of the passed events.
+     */
+    public static String toJsonArray(List<FailedEvent> failedEvents, String invocationId, Instant now) throws IOException {
+        SegmentedStringWriter writer = ObjectMapperUtils.createStringWriter();
+        try (JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+            generator.writeStartArray();
+            for (FailedEvent failedEvent : failedEvents) {
+                writeDocument(generator, failedEvent, invocationId, now);
+            }
+            generator.writeEndArray();
+        }
+        return writer.getAndClear();
+    }
+
+    private static void writeDocument(JsonGenerator generator, FailedEvent failedEvent, String invocationId, Instant now) throws IOException {
+        String event = failedEvent.getEvent() == null ? "" : failedEvent.getEvent();
+        Exception cause = failedEvent.getCause();
+
+        generator.writeStartObject();
+        String id = UUID.nameUUIDFromBytes(event.getBytes(StandardCharsets.UTF_8)).toString();
+        generator.writeStringField(Constants.ID_EVENT_FIELD, id);
+        generator.writeStringField(Constants.PARTITION_KEY_EVENT_FIELD, id);
+        generator.writeStringField("invocationId", invocationId);
+        generator.writeNumberField("eventIndex", failedEvent.getIndex());
+        generator.writeNumberField("insertedTimestamp", now.toEpochMilli());
+        generator.writeStringField("errorType", cause.getClass().getName());
+        if (cause instanceof InvalidEventException) {
+            generator.writeStringField("errorCode", ((InvalidEventException) cause).getError().name());
+        }
+        generator.writeStringField("errorCause", cause.getMessage());
+        generator.writeStringField("event", event);
+        generator.writeObjectFieldStart("properties");
+        Map<String, Object> properties = failedEvent.getProperties() == null ? Map.of() : failedEvent.getProperties();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            generator.writeFieldName(property.getKey());
+            generator.writeObject(property.getValue());
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
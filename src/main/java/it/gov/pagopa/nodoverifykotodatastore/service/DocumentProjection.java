@@ -0,0 +1,237 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.Utf8CountingWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Shapes the documents written by the ingestion, to cut their size and so the request units of each write:
+ * <ul>
+ *     <li>the Event Hub properties are filtered by an allow-list and a deny-list, matching either their original or
+ *     their normalized name;</li>
+ *     <li>the fields are renamed with short aliases, i.e. <code>psp:p</code>: an alias of a top level
+ *     field applies to the property with the same normalized name too;</li>
+ *     <li>the passed fields are dropped, i.e. <code>faultBean.dateTime</code>, that repeats the <code>timestamp</code>
+ *     with the microseconds.</li>
+ * </ul>
+ * The <code>id</code> and the partition key fields cannot be aliased nor dropped, nor can the
+ * <code>debtorPosition.noticeNumber</code> and its parent, as the read API queries them. An alias cannot be shared by two
+ * fields of the same parent nor take the name of a sibling field, either one the ingestion knows or one configured in
+ * the projection. The fields needed by the ingestion, as the <code>faultBean.timestamp</code>, are still read when
+ * dropped or aliased.
+ */
+public class DocumentProjection {
+
+    public static final FieldPath DATE_TIME_PATH = FieldPath.of(Constants.FAULTBEAN_EVENT_FIELD + "." + Constants.DATE_TIME_EVENT_FIELD);
+
+    private static final Set<String> PROTECTED_FIELDS = Set.of(Constants.ID_EVENT_FIELD, Constants.PARTITION_KEY_EVENT_FIELD, Constants.PARTITION_KEY_SALTING_EVENT_FIELD);
+
+    private static final Set<String> QUERIED_PATHS = Set.of(Constants.NOTICE_NUMBER_EVENT_FIELD.substring(0, Constants.NOTICE_NUMBER_EVENT_FIELD.indexOf('.')), Constants.NOTICE_NUMBER_EVENT_FIELD);
+
+    private static final Set<FieldPath> KNOWN_FIELDS = Stream.of(Constants.ID_EVENT_FIELD, Constants.PARTITION_KEY_EVENT_FIELD,
+                    Constants.PARTITION_KEY_SALTING_EVENT_FIELD, Constants.TIMESTAMP_EVENT_FIELD, Constants.FOLDING_EVENT_FIELD,
+                    Constants.FAULTBEAN_TIMESTAMP_EVENT_FIELD, Constants.FAULT_CODE_EVENT_FIELD, DATE_TIME_PATH.getPath(),
+                    Constants.CREDITOR_ID_EVENT_FIELD, Constants.PSP_ID_EVENT_FIELD, Constants.NOTICE_NUMBER_EVENT_FIELD)
+            .map(FieldPath::of).collect(Collectors.toUnmodifiableSet());
+
+    private final Set<String> allowedProperties;
+    private final Set<String> deniedProperties;
+    private final Map<FieldPath, String> aliases;
+    private final Map<String, String> propertyAliases = new HashMap<>();
+    private final Set<FieldPath> droppedFields;
+
+    /**
+     * @param allowedProperties the properties written to the documents, all the properties if empty
+     * @param deniedProperties the properties never written to the documents
+     * @param aliases the aliases of the fields, by path
+     * @param droppedFields the paths of the fields not written to the documents
+     */
+    public DocumentProjection(Set<String> allowedProperties, Set<String> deniedProperties, Map<FieldPath, String> aliases, Set<FieldPath> droppedFields) {
+        for (FieldPath path : concat(aliases.keySet(), droppedFields)) {
+            if ((path.getDepth() == 1 && PROTECTED_FIELDS.contains(path.getPath())) || QUERIED_PATHS.contains(path.getPath())) {
+                throw new IllegalArgumentException("The field [" + path + "] cannot be projected.");
+            }
+        }
+        checkAliases(aliases, droppedFields);
+        this.allowedProperties = Set.copyOf(allowedProperties);
+        this.deniedProperties = Set.copyOf(deniedProperties);
+        this.aliases = Map.copyOf(aliases);
+        this.droppedFields = Set.copyOf(droppedFields);
+        aliases.forEach((path, alias) -> {
+            if (path.getDepth() == 1) {
+                propertyAliases.put(path.getPath(), alias);
+            }
+        });
+    }
+
+    /**
+     * Creates the projection configured by the <code>PROJECTION_*</code> app settings, or returns <code>null</code>
+     * if none of them is set, as by default.
+     */
+    public static DocumentProjection fromSettings() {
+        Set<String> allowedProperties = parseList(AppSettings.getString(Constants.PROJECTION_PROPERTY_ALLOW_LIST_SETTING, ""));
+        Set<String> deniedProperties = parseList(AppSettings.getString(Constants.PROJECTION_PROPERTY_DENY_LIST_SETTING, ""));
+        Map<FieldPath, String> aliases = parseAliases(AppSettings.getString(Constants.PROJECTION_FIELD_ALIASES_SETTING, ""));
+        Set<FieldPath> droppedFields = parseList(AppSettings.getString(Constants.PROJECTION_DROP_FIELDS_SETTING, "")).stream()
+                .map(FieldPath::of).collect(Collectors.toSet());
+        if (allowedProperties.isEmpty() && deniedProperties.isEmpty() && aliases.isEmpty() && droppedFields.isEmpty()) {
+            return null;
+        }
+        return new DocumentProjection(allowedProperties, deniedProperties, aliases, droppedFields);
+    }
+
+    /**
+     * Returns the paths the transformer must reach while streaming an event, to rename or drop them.
+     */
+    public List<FieldPath> getPaths() {
+        List<FieldPath> paths = new ArrayList<>();
+        for (FieldPath path : concat(aliases.keySet(), droppedFields)) {
+            if (!path.equals(DATE_TIME_PATH)) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    public Map<FieldPath, String> getAliases() {
+        return aliases;
+    }
+
+    public Set<FieldPath> getDroppedFields() {
+        return droppedFields;
+    }
+
+    /**
+     * Tells whether the property with the passed original and normalized names is written to the documents.
+     */
+    public boolean isPropertyIncluded(String property, String normalizedProperty) {
+        if (deniedProperties.contains(property) || deniedProperties.contains(normalizedProperty)) {
+            return false;
+        }
+        return allowedProperties.isEmpty() || allowedProperties.contains(property) || allowedProperties.contains(normalizedProperty);
+    }
+
+    /**
+     * Returns the alias of the property with the passed normalized name, <code>null</code> if it has none.
+     */
+    public String getPropertyAlias(String normalizedProperty) {
+        return propertyAliases.get(normalizedProperty);
+    }
+
+    /**
+     * Compares the size of the passed documents with the size they would have had with no projection.
+     */
+    public static SizeReport report(List<TransformedEvent> events) {
+        long projectedBytes = 0;
+        long removedBytes = 0;
+        for (TransformedEvent event : events) {
+            projectedBytes += Utf8CountingWriter.utf8Length(event.getDocument());
+            removedBytes += event.getRemovedBytes();
+        }
+        return new SizeReport(events.size(), projectedBytes + removedBytes, projectedBytes);
+    }
+
+    private static Set<String> parseList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).collect(Collectors.toSet());
+    }
+
+    private static Map<FieldPath, String> parseAliases(String value) {
+        Map<FieldPath, String> aliases = new HashMap<>();
+        for (String alias : parseList(value)) {
+            int separator = alias.indexOf(':');
+            if (separator <= 0 || separator == alias.length() - 1) {
+                throw new IllegalArgumentException("Invalid alias [" + alias + "], expected path:alias");
+            }
+            FieldPath path = FieldPath.of(alias.substring(0, separator).trim());
+            if (aliases.put(path, alias.substring(separator + 1).trim()) != null) {
+                throw new IllegalArgumentException("The field [" + path + "] has more than one alias.");
+            }
+        }
+        return aliases;
+    }
+
+    /**
+     * Rejects the aliases that would write two fields with the same name in one object: two aliases of the same parent
+     * being equal, or an alias being the name of a sibling field, the protected ones included.
+     */
+    private static void checkAliases(Map<FieldPath, String> aliases, Set<FieldPath> droppedFields) {
+        Map<String, Set<String>> fieldNames = new HashMap<>();
+        for (FieldPath path : concat(KNOWN_FIELDS, concat(aliases.keySet(), droppedFields))) {
+            for (int depth = 1; depth <= path.getDepth(); depth++) {
+                fieldNames.computeIfAbsent(parentOf(path, depth), parent -> new HashSet<>()).add(path.getSegment(depth - 1));
+            }
+        }
+        Map<String, FieldPath> aliasedPaths = new HashMap<>();
+        aliases.forEach((path, alias) -> {
+            String parent = parentOf(path, path.getDepth());
+            if (!alias.equals(path.getLastSegment()) && fieldNames.getOrDefault(parent, Set.of()).contains(alias)) {
+                throw new IllegalArgumentException("The alias [" + alias + "] of the field [" + path + "] is the name of another field.");
+            }
+            FieldPath other = aliasedPaths.put(parent.isEmpty() ? alias : parent + "." + alias, path);
+            if (other != null) {
+                throw new IllegalArgumentException("The fields [" + other + "] and [" + path + "] have the same alias [" + alias + "].");
+            }
+        });
+    }
+
+    private static String parentOf(FieldPath path, int depth) {
+        StringBuilder parent = new StringBuilder();
+        for (int index = 0; index < depth - 1; index++) {
+            parent.append(index == 0 ? "" : ".").append(path.getSegment(index));
+        }
+        return parent.toString();
+    }
+
+    private static Set<FieldPath> concat(Set<FieldPath> first, Set<FieldPath> second) {
+        Set<FieldPath> paths = new HashSet<>(first);
+        paths.addAll(second);
+        return Collections.unmodifiableSet(paths);
+    }
+
+    /**
+     * The size of the documents of a batch, in UTF-8 bytes, with and without the projection.
+     */
+    public static class SizeReport {
+
+        private final int documents;
+        private final long bytesBefore;
+        private final long bytesAfter;
+
+        public SizeReport(int documents, long bytesBefore, long bytesAfter) {
+            this.documents = documents;
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        public long getBytesBefore() {
+            return bytesBefore;
+        }
+
+        public long getBytesAfter() {
+            return bytesAfter;
+        }
+
+        @Override
+        public String toString() {
+            double saved = bytesBefore == 0 ? 0 : 100.0 * (bytesBefore - bytesAfter) / bytesBefore;
+            return String.format("Documents [%d], Bytes before [%d], Bytes after [%d], Saved [%.1f%%]", documents, bytesBefore, bytesAfter, saved);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.BatchTransformResult;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Transforms a whole Event Hub batch, one event after another or, for batches with at least
+ * <code>parallelThreshold</code> events, in parallel on a dedicated fork-join pool.
+ * <p>
+ * Either way the transformed events keep the order of the batch. With {@link #transform} the batch fails as
+ * a whole: if more events are invalid, the error raised is the one of the first invalid event, exactly as
+ * it happens when the events are transformed sequentially. With {@link #transformTolerant} the invalid
+ * events are returned apart, together with the cause of their failure.
+ * <p>
+ * The events can be passed either as Strings or as UTF-8 encoded <code>byte[]</code>, as bound by the trigger
+ * with the <code>binary</code> data type: the latter are parsed with no intermediate String.
+ */
+public class EventBatchTransformer {
+
+    private final VerifyKOEventTransformer transformer;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * @param transformer the transformer of the single events
+     * @param pool the pool used for the parallel transformation, <code>null</code> to always transform the events sequentially
+     * @param parallelThreshold the minimum number of events of a batch to be transformed in parallel
+     */
+    public EventBatchTransformer(VerifyKOEventTransformer transformer, ForkJoinPool pool, int parallelThreshold) {
+        this.transformer = transformer;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Creates the batch transformer configured by the {@value Constants#TRANSFORM_PARALLELISM_SETTING} and
+     * {@value Constants#TRANSFORM_PARALLEL_THRESHOLD_SETTING} app settings. With a parallelism of 1, the default,
+     * no pool is created.
+     */
+    public static EventBatchTransformer fromSettings(VerifyKOEventTransformer transformer) {
+        int parallelism = AppSettings.getInt(Constants.TRANSFORM_PARALLELISM_SETTING, 1);
+        int parallelThreshold = AppSettings.getInt(Constants.TRANSFORM_PARALLEL_THRESHOLD_SETTING, 50);
+        return new EventBatchTransformer(transformer, parallelism > 1 ? new ForkJoinPool(parallelism) : null, parallelThreshold);
+    }
+
+    public VerifyKOEventTransformer getTransformer() {
+        return transformer;
+    }
+
+    /**
+     * Transforms the passed events, each one with the properties at the same index.
+     *
+     * @throws IOException if an event is not valid JSON
+     * @throws it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException if an event is rejected by the validation
+     */
+    public List<TransformedEvent> transform(List<?> events, Map<String, Object>[] properties) throws IOException {
+        return transform(events, properties, false);
+    }
+
+    /**
+     * Transforms the passed events, each one with the properties at the same index, not counting their writes for the
+     * salting of the hot partition keys if the batch is <code>retried</code>.
+     *
+     * @see #transform(List, Map[])
+     */
+    public List<TransformedEvent> transform(List<?> events, Map<String, Object>[] properties, boolean retried) throws IOException {
+        TransformedEvent[] transformedEvents = new TransformedEvent[events.size()];
+        if (pool == null || events.size() < parallelThreshold) {
+            for (int index = 0; index < transformedEvents.length; index++) {
+                transformedEvents[index] = transformEvent(events.get(index), properties[index], retried);
+            }
+        } else {
+            Exception[] errors = new Exception[events.size()];
+            int granularity = Math.max(1, events.size() / (pool.getParallelism() * 4));
+            pool.invoke(new TransformTask(events, properties, retried, transformedEvents, errors, 0, events.size(), granularity));
+            rethrowFirst(errors);
+        }
+        return Arrays.asList(transformedEvents);
+    }
+
+    /**
+     * Transforms the passed events, each one with the properties at the same index, collecting the
+     * events that cannot be transformed instead of failing.
+     */
+    public BatchTransformResult transformTolerant(List<?> events, Map<String, Object>[] properties) {
+        return transformTolerant(events, properties, false);
+    }
+
+    /**
+     * Transforms the passed events collecting the ones that cannot be transformed, not counting their writes for the
+     * salting of the hot partition keys if the batch is <code>retried</code>.
+     *
+     * @see #transformTolerant(List, Map[])
+     */
+    public BatchTransformResult transformTolerant(List<?> events, Map<String, Object>[] properties, boolean retried) {
+        TransformedEvent[] transformedEvents = new TransformedEvent[events.size()];
+        Exception[] errors = new Exception[events.size()];
+        if (pool == null || events.size() < parallelThreshold) {
+            new TransformTask(events, properties, retried, transformedEvents, errors, 0, events.size(), events.size()).compute();
+        } else {
+            int granularity = Math.max(1, events.size() / (pool.getParallelism() * 4));
+            pool.invoke(new TransformTask(events, properties, retried, transformedEvents, errors, 0, events.size(), granularity));
+        }
+
+        List<TransformedEvent> validEvents = new ArrayList<>(events.size());
+        List<FailedEvent> failedEvents = new ArrayList<>();
+        for (int index = 0; index < transformedEvents.length; index++) {
+            if (errors[index] == null) {
+                validEvents.add(transformedEvents[index]);
+            } else {
+                failedEvents.add(new FailedEvent(index, toText(events.get(index)), properties[index], errors[index]));
+            }
+        }
+        return new BatchTransformResult(validEvents, failedEvents);
+    }
+
+    private TransformedEvent transformEvent(Object event, Map<String, Object> properties, boolean retried) throws IOException {
+        if (event instanceof byte[]) {
+            return transformer.transform((byte[]) event, properties, retried);
+        }
+        return transformer.transform((String) event, properties, retried);
+    }
+
+    private static String toText(Object event) {
+        return event instanceof byte[] ? new String((byte[]) event, StandardCharsets.UTF_8) : (String) event;
+    }
+
+    private static void rethrowFirst(Exception[] errors) throws IOException {
+        for (Exception error : errors) {
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error != null) {
+                throw (RuntimeException) error;
+            }
+        }
+    }
+
+    /**
+     * Transforms a range of the batch, splitting it in halves down to the passed granularity.
+     * A failure is recorded at the index of the event and does not stop the transformation of the other events.
+     */
+    private class TransformTask extends RecursiveAction {
+
+        private final transient List<?> events;
+        private final transient Map<String, Object>[] properties;
+        private final boolean retried;
+        private final transient TransformedEvent[] transformedEvents;
+        private final transient Exception[] errors;
+        private final int from;
+        private final int to;
+        private final int granularity;
+
+        private TransformTask(List<?> events, Map<String, Object>[] properties, boolean retried, TransformedEvent[] transformedEvents,
+                              Exception[] errors, int from, int to, int granularity) {
+            this.events = events;
+            this.properties = properties;
+            this.retried = retried;
+            this.transformedEvents = transformedEvents;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+            this.granularity = granularity;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= granularity) {
+                for (int index = from; index < to; index++) {
+                    try {
+                        transformedEvents[index] = transformEvent(events.get(index), properties[index], retried);
+                    } catch (IOException | RuntimeException e) {
+                        errors[index] = e;
+                    }
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TransformTask(events, properties, retried, transformedEvents, errors, from, middle, granularity),
+                        new TransformTask(events, properties, retried, transformedEvents, errors, middle, to, granularity));
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.model.PersistenceEngine;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.WriteMode;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Folds the events sharing the same signature (i.e. <code>creditor.idStation</code>, <code>faultBean.faultCode</code>
+ * and <code>debtorPosition.noticeNumber</code>) and <code>PartitionKey</code> within a tumbling window of event time
+ * in a single document: the first event of the window, with a new <code>id</code> and the <code>folding</code> field
+ * holding the occurrence count, the first and last timestamps and a sample of the folded ids. The <code>id</code> is
+ * derived from the window and its first event, so that a batch retried after a restart rewrites the same document.
+ * <p>
+ * The windows are kept in memory: each batch rewrites the documents of the windows it touches with the counters
+ * folded so far, and the counters are updated by {@link #commit(Folding)} only once the documents are persisted,
+ * so that a retried batch is not counted twice. A window is held by one batch at a time, from the fold to the commit
+ * or the {@link #abort(Folding)}, so that a concurrent batch does not overwrite its document with stale counters. A window is evicted once closed for a whole window length, measured
+ * on the latest event time seen so that a consumer lagging behind still folds, or, when too many windows are open,
+ * in creation order: a later event of an evicted window opens a new document.
+ * The events missing a field of the signature are not folded.
+ */
+public class EventFolder {
+
+    private static final char SIGNATURE_SEPARATOR = '|';
+
+    private final List<FieldPath> signature;
+    private final long windowSeconds;
+    private final int maxWindows;
+    private final int maxSampleIds;
+    private final LinkedHashMap<String, Window> windows = new LinkedHashMap<>();
+    private long latestTimestamp = Long.MIN_VALUE;
+
+    public EventFolder(List<FieldPath> signature, long windowSeconds, int maxWindows, int maxSampleIds) {
+        if (signature.isEmpty() || windowSeconds < 1 || maxWindows < 1 || maxSampleIds < 0) {
+            throw new IllegalArgumentException("The folding needs a signature, a positive window and a positive number of windows.");
+        }
+        this.signature = List.copyOf(signature);
+        this.windowSeconds = windowSeconds;
+        this.maxWindows = maxWindows;
+        this.maxSampleIds = maxSampleIds;
+    }
+
+    /**
+     * Creates the folder configured by the <code>FOLDING_*</code> app settings, or returns <code>null</code> if the
+     * {@value Constants#FOLDING_SIGNATURE_SETTING} is not set, as by default.
+     *
+     * @throws IllegalStateException if the events are written by the output binding, as the counters would be committed
+     *                               before the write, or not with upserts, as the folded documents are rewritten
+     */
+    public static EventFolder fromSettings() {
+        String signature = AppSettings.getString(Constants.FOLDING_SIGNATURE_SETTING, "");
+        if (signature.isBlank()) {
+            return null;
+        }
+        PersistenceEngine engine = AppSettings.getEnum(Constants.PERSISTENCE_ENGINE_SETTING, PersistenceEngine.class, PersistenceEngine.OUTPUT_BINDING);
+        if (engine == PersistenceEngine.OUTPUT_BINDING) {
+            throw new IllegalStateException("The app setting [" + Constants.FOLDING_SIGNATURE_SETTING + "] requires the events to be written by the function, with ["
+                    + Constants.PERSISTENCE_ENGINE_SETTING + "] set to [" + PersistenceEngine.COSMOS_BULK + "].");
+        }
+        boolean bulkCreate = engine == PersistenceEngine.COSMOS_BULK
+                && AppSettings.getEnum(Constants.COSMOS_BULK_WRITE_MODE_SETTING, WriteMode.class, WriteMode.UPSERT) == WriteMode.CREATE;
+        if (bulkCreate || AppSettings.getBoolean(Constants.IDEMPOTENT_WRITES_SETTING, false)) {
+            throw new IllegalStateException("The app setting [" + Constants.FOLDING_SIGNATURE_SETTING + "] requires the events to be written with upserts, "
+                    + "without [" + Constants.IDEMPOTENT_WRITES_SETTING + "].");
+        }
+        return new EventFolder(
+                Arrays.stream(signature.split(",")).map(String::trim).filter(path -> !path.isEmpty()).map(FieldPath::of).collect(Collectors.toList()),
+                AppSettings.getLong(Constants.FOLDING_WINDOW_SECONDS_SETTING, 300),
+                AppSettings.getInt(Constants.FOLDING_MAX_WINDOWS_SETTING, 10_000),
+                AppSettings.getInt(Constants.FOLDING_SAMPLE_IDS_SETTING, 10));
+    }
+
+    /**
+     * Returns the paths of the signature, that the transformer must capture.
+     */
+    public List<FieldPath> getSignature() {
+        return signature;
+    }
+
+    /**
+     * Folds the passed events, returning the documents to persist in place of them. The windows touched are held
+     * until the folding is committed or aborted, waiting for the ones held by another batch.
+     *
+     * @throws IllegalStateException if interrupted while waiting for a window
+     */
+    public synchronized Folding fold(List<TransformedEvent> events) {
+        String[] signatures = new String[events.size()];
+        String[] keys = new String[events.size()];
+        for (int index = 0; index < events.size(); index++) {
+            TransformedEvent event = events.get(index);
+            signatures[index] = getSignature(event);
+            if (signatures[index] != null) {
+                long windowStart = Math.floorDiv(event.getTimestamp(), windowSeconds) * windowSeconds;
+                keys[index] = event.getPartitionKey() + SIGNATURE_SEPARATOR + windowStart + SIGNATURE_SEPARATOR + signatures[index];
+            }
+        }
+        awaitWindows(keys);
+
+        evictClosedWindows();
+        Map<Window, Delta> deltas = new LinkedHashMap<>();
+        List<Object> slots = new ArrayList<>(events.size());
+        Map<String, String> documentIds = new HashMap<>();
+        for (int index = 0; index < events.size(); index++) {
+            TransformedEvent event = events.get(index);
+            String eventSignature = signatures[index];
+            if (eventSignature == null) {
+                slots.add(event);
+                documentIds.put(event.getId(), event.getId());
+                continue;
+            }
+            latestTimestamp = Math.max(latestTimestamp, event.getTimestamp());
+            long windowStart = Math.floorDiv(event.getTimestamp(), windowSeconds) * windowSeconds;
+            String key = keys[index];
+            Window window = windows.get(key);
+            if (window == null) {
+                // the id of the first event tells apart the document of a window opened again after an eviction
+                String id = "folded-" + UUID.nameUUIDFromBytes((key + SIGNATURE_SEPARATOR + event.getId()).getBytes(StandardCharsets.UTF_8));
+                window = new Window(id, eventSignature, windowStart, event, toDocumentHead(id, event));
+                windows.put(key, window);
+                evictExceedingWindows();
+            }
+            Delta delta = deltas.get(window);
+            if (delta == null) {
+                window.held = true;
+                delta = new Delta(window);
+                deltas.put(window, delta);
+                slots.add(delta);
+            }
+            delta.add(event);
+            documentIds.put(event.getId(), window.id);
+        }
+
+        List<TransformedEvent> documents = new ArrayList<>(slots.size());
+        for (Object slot : slots) {
+            documents.add(slot instanceof Delta ? toDocument((Delta) slot) : (TransformedEvent) slot);
+        }
+        return new Folding(documents, documentIds, new ArrayList<>(deltas.values()));
+    }
+
+    /**
+     * Adds the counters of the passed folding to the windows, once its documents are persisted, and releases them.
+     */
+    public synchronized void commit(Folding folding) {
+        for (Delta delta : folding.deltas) {
+            Window window = delta.window;
+            window.count += delta.count;
+            window.firstTimestamp = Math.min(window.firstTimestamp, delta.firstTimestamp);
+            window.lastTimestamp = Math.max(window.lastTimestamp, delta.lastTimestamp);
+            for (String id : delta.ids) {
+                if (window.sampleIds.size() < maxSampleIds) {
+                    window.sampleIds.add(id);
+                }
+            }
+        }
+        release(folding);
+    }
+
+    /**
+     * Releases the windows of the passed folding, whose documents were not persisted, leaving their counters as they were.
+     */
+    public synchronized void abort(Folding folding) {
+        release(folding);
+    }
+
+    private void release(Folding folding) {
+        for (Delta delta : folding.deltas) {
+            delta.window.held = false;
+        }
+        notifyAll();
+    }
+
+    private void awaitWindows(String[] keys) {
+        try {
+            while (isAnyHeld(keys)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the folding windows.", e);
+        }
+    }
+
+    private boolean isAnyHeld(String[] keys) {
+        for (String key : keys) {
+            Window window = key == null ? null : windows.get(key);
+            if (window != null && window.held) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int getOpenWindows() {
+        return windows.size();
+    }
+
+    private String getSignature(TransformedEvent event) {
+        StringBuilder builder = new StringBuilder();
+        for (FieldPath path : signature) {
+            String value = event.getFields().getString(path, null);
+            if (value == null) {
+                return null;
+            }
+            if (builder.length() > 0) {
+                builder.append(SIGNATURE_SEPARATOR);
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Copies the first event of a window with the <code>id</code> of the window, leaving the object open for the
+     * <code>folding</code> field, so that the event is parsed once per window and not once per batch.
+     */
+    private static String toDocumentHead(String id, TransformedEvent template) {
+        SegmentedStringWriter writer = ObjectMapperUtils.createStringWriter();
+        try (JsonParser parser = ObjectMapperUtils.createParser(template.getDocument());
+             JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "The folded event is not a JSON object.");
+            }
+            generator.writeStartObject();
+            generator.writeStringField(Constants.ID_EVENT_FIELD, id);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (Constants.ID_EVENT_FIELD.equals(fieldName) || Constants.FOLDING_EVENT_FIELD.equals(fieldName)) {
+                    parser.skipChildren();
+                } else {
+                    generator.writeFieldName(fieldName);
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String document = writer.getAndClear();
+        return document.substring(0, document.length() - 1) + ",\"" + Constants.FOLDING_EVENT_FIELD + "\":";
+    }
+
+    private TransformedEvent toDocument(Delta delta) {
+        Window window = delta.window;
+        SegmentedStringWriter writer = ObjectMapperUtils.createStringWriter();
+        try (JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+            generator.writeRaw(window.documentHead);
+            generator.writeStartObject();
+            generator.writeStringField("signature", window.signature);
+            generator.writeNumberField("windowStart", window.windowStart);
+            generator.writeNumberField("windowEnd", window.windowStart + windowSeconds);
+            generator.writeNumberField("count", window.count + delta.count);
+            generator.writeNumberField("firstTimestamp", Math.min(window.firstTimestamp, delta.firstTimestamp));
+            generator.writeNumberField("lastTimestamp", Math.max(window.lastTimestamp, delta.lastTimestamp));
+            generator.writeArrayFieldStart("ids");
+            int sampled = 0;
+            for (String id : window.sampleIds) {
+                generator.writeString(id);
+                sampled++;
+            }
+            for (int index = 0; index < delta.ids.size() && sampled < maxSampleIds; index++, sampled++) {
+                generator.writeString(delta.ids.get(index));
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('}');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return window.template.toBuilder()
+                .id(window.id)
+                .document(writer.getAndClear())
+                .timings(null)
+                .removedBytes(0)
+                .build();
+    }
+
+    private void evictClosedWindows() {
+        // a window is kept open for a further window length, to fold the late events too
+        windows.values().removeIf(window -> window.windowStart + 2 * windowSeconds <= latestTimestamp);
+    }
+
+    private void evictExceedingWindows() {
+        Iterator<Window> eldest = windows.values().iterator();
+        while (windows.size() > maxWindows && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * The documents to persist in place of the events of a batch.
+     */
+    public static class Folding {
+
+        private final List<TransformedEvent> documents;
+        private final Map<String, String> documentIds;
+        private final List<Delta> deltas;
+
+        private Folding(List<TransformedEvent> documents, Map<String, String> documentIds, List<Delta> deltas) {
+            this.documents = documents;
+            this.documentIds = documentIds;
+            this.deltas = deltas;
+        }
+
+        public List<TransformedEvent> getDocuments() {
+            return documents;
+        }
+
+        /**
+         * Returns the <code>id</code> of the document holding the event with the passed <code>id</code>.
+         */
+        public String getDocumentId(String eventId) {
+            return documentIds.get(eventId);
+        }
+    }
+
+    private static class Window {
+        private final String id;
+        private final String signature;
+        private final long windowStart;
+        private final TransformedEvent template;
+        private final String documentHead;
+        private final List<String> sampleIds = new ArrayList<>();
+        private long count;
+        private long firstTimestamp = Long.MAX_VALUE;
+        private long lastTimestamp = Long.MIN_VALUE;
+        private boolean held;
+
+        private Window(String id, String signature, long windowStart, TransformedEvent template, String documentHead) {
+            this.id = id;
+            this.signature = signature;
+            this.windowStart = windowStart;
+            this.template = template;
+            this.documentHead = documentHead;
+        }
+    }
+
+    private static class Delta {
+        private final Window window;
+        private final List<String> ids = new ArrayList<>();
+        private long count;
+        private long firstTimestamp = Long.MAX_VALUE;
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        private Delta(Window window) {
+            this.window = window;
+        }
+
+        private void add(TransformedEvent event) {
+            count++;
+            firstTimestamp = Math.min(firstTimestamp, event.getTimestamp());
+            lastTimestamp = Math.max(lastTimestamp, event.getTimestamp());
+            ids.add(event.getId());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventPage;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventQuery;
+import it.gov.pagopa.nodoverifykotodatastore.store.EventStore;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Looks up the verify KO events of a day, creditor and PSP with single-partition queries: the
+ * <code>PartitionKey</code> is built as by the ingestion and, if the hot keys are salted, the salted partitions
+ * of the key are read one after the other. The salted partitions never written are skipped, as told by the store
+ * once the base partition is read through: with Cosmos DB, a cross-partition query on the
+ * <code>partitionKeySalting</code> field, cached for each key as the pages are. An event of a salted partition
+ * that was also written on the base key, as a retried event can be, is returned only once, from the base key: as
+ * the salt is derived from the id, an event is never written on two salted keys. The pages are cached for a short
+ * time.
+ * <p>
+ * The continuation token returned to the callers wraps the index of the partition being read and the
+ * token of the store, so that a page can span the end of a partition and the start of the following one.
+ */
+public class EventQueryService {
+
+    private static final String TOKEN_SEPARATOR = ":";
+
+    private final EventStore store;
+    private final PartitionKeyBuilder partitionKeyBuilder;
+    private final int saltBuckets;
+    private final QueryResultCache<EventPage> cache;
+    private final QueryResultCache<Set<Integer>> saltCache;
+
+    /**
+     * @param saltBuckets the salt buckets of the hot partition keys, 0 if the keys are not salted
+     * @param cache the cache of the pages, <code>null</code> to always query the store
+     * @param saltCache the cache of the salts used by each key, <code>null</code> to always query the store
+     */
+    public EventQueryService(EventStore store, PartitionKeyBuilder partitionKeyBuilder, int saltBuckets, QueryResultCache<EventPage> cache,
+                             QueryResultCache<Set<Integer>> saltCache) {
+        this.store = store;
+        this.partitionKeyBuilder = partitionKeyBuilder;
+        this.saltBuckets = saltBuckets;
+        this.cache = cache;
+        this.saltCache = saltCache;
+    }
+
+    /**
+     * Creates the service reading the passed store, configured by the app settings.
+     */
+    public static EventQueryService fromSettings(EventStore store) {
+        int saltBuckets = AppSettings.getBoolean(Constants.PARTITION_KEY_SALTING_SETTING, false)
+                ? AppSettings.getInt(Constants.PARTITION_KEY_SALT_BUCKETS_SETTING, 4)
+                : 0;
+        int cacheSize = AppSettings.getInt(Constants.QUERY_CACHE_SIZE_SETTING, 1000);
+        long cacheTtlMillis = AppSettings.getLong(Constants.QUERY_CACHE_TTL_SECONDS_SETTING, 30) * 1000;
+        QueryResultCache<EventPage> cache = cacheSize > 0 ? new QueryResultCache<>(cacheSize, cacheTtlMillis, System::nanoTime) : null;
+        QueryResultCache<Set<Integer>> saltCache = cacheSize > 0 && saltBuckets > 0 ? new QueryResultCache<>(cacheSize, cacheTtlMillis, System::nanoTime) : null;
+        return new EventQueryService(store, PartitionKeyBuilder.fromSettings(), saltBuckets, cache, saltCache);
+    }
+
+    /**
+     * Returns the <code>PartitionKey</code> of the events matching the passed query, before any salting.
+     */
+    public String getPartitionKey(EventQuery query) {
+        return partitionKeyBuilder.build(query.getDate().getYear(), query.getDate().getMonthValue(), query.getDate().getDayOfMonth(),
+                query.getCreditorId(), query.getPspId());
+    }
+
+    /**
+     * Returns a page of the events matching the passed query.
+     *
+     * @throws IllegalArgumentException if the continuation token is not valid
+     */
+    public EventPage query(EventQuery query) {
+        String partitionKey = getPartitionKey(query);
+        String cacheKey = partitionKey + '|' + query.getNoticeNumber() + '|' + query.getPageSize() + '|' + query.getContinuationToken();
+        EventPage cached = cache == null ? null : cache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        // the partition 0 is the base key, the partition n the key salted with n - 1
+        int partition = 0;
+        String storeToken = null;
+        if (query.getContinuationToken() != null) {
+            String token = decode(query.getContinuationToken());
+            int separator = token.indexOf(TOKEN_SEPARATOR);
+            try {
+                partition = Integer.parseInt(token.substring(0, separator));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid continuation token.", e);
+            }
+            if (partition < 0 || partition > saltBuckets) {
+                throw new IllegalArgumentException("Invalid continuation token.");
+            }
+            storeToken = separator == token.length() - 1 ? null : token.substring(separator + 1);
+        }
+
+        List<String> documents = new ArrayList<>();
+        Set<Integer> salts = null;
+        while (true) {
+            if (partition > 0 && storeToken == null) {
+                if (salts == null) {
+                    salts = findSalts(partitionKey);
+                }
+                while (partition <= saltBuckets && !salts.contains(partition - 1)) {
+                    partition++;
+                }
+            }
+            if (partition > saltBuckets || documents.size() >= query.getPageSize()) {
+                break;
+            }
+            String storeKey = partition == 0 ? partitionKey : partitionKey + HotPartitionKeySalter.SALT_SEPARATOR + (partition - 1);
+            EventPage page = store.query(storeKey, query.getNoticeNumber(), storeToken, query.getPageSize() - documents.size());
+            if (partition == 0) {
+                documents.addAll(page.getDocuments());
+            } else {
+                addNotOnBaseKey(documents, page.getDocuments(), partitionKey);
+            }
+            storeToken = page.getContinuationToken();
+            if (storeToken == null) {
+                partition++;
+            }
+        }
+        String continuationToken = partition <= saltBuckets ? encode(partition + TOKEN_SEPARATOR + (storeToken == null ? "" : storeToken)) : null;
+        EventPage result = new EventPage(documents, continuationToken);
+        if (cache != null) {
+            cache.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    private Set<Integer> findSalts(String partitionKey) {
+        if (saltBuckets == 0) {
+            return Set.of();
+        }
+        Set<Integer> salts = saltCache == null ? null : saltCache.get(partitionKey);
+        if (salts == null) {
+            salts = store.findSalts(partitionKey, saltBuckets);
+            if (saltCache != null) {
+                saltCache.put(partitionKey, salts);
+            }
+        }
+        return salts;
+    }
+
+    /**
+     * Adds the documents of a salted partition, but the ones whose event was also written on the base key.
+     */
+    private void addNotOnBaseKey(List<String> documents, List<String> saltedDocuments, String partitionKey) {
+        if (saltedDocuments.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(saltedDocuments.size());
+        for (String document : saltedDocuments) {
+            ids.add(readId(document));
+        }
+        Set<String> onBaseKey = store.findIds(partitionKey, ids);
+        for (int index = 0; index < saltedDocuments.size(); index++) {
+            if (!onBaseKey.contains(ids.get(index))) {
+                documents.add(saltedDocuments.get(index));
+            }
+        }
+    }
+
+    private static String readId(String document) {
+        try (JsonParser parser = ObjectMapperUtils.createParser(document)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    parser.nextToken();
+                    if (Constants.ID_EVENT_FIELD.equals(fieldName)) {
+                        return parser.getValueAsString();
+                    }
+                    parser.skipChildren();
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String encode(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String token) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token.", e);
+        }
+    }
+}
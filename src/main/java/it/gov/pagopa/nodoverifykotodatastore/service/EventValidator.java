@@ -0,0 +1,136 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.field.CapturedFields;
+import it.gov.pagopa.nodoverifykotodatastore.field.EventFieldPaths;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldValue;
+import it.gov.pagopa.nodoverifykotodatastore.model.ValidationError;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+/**
+ * Validates the verify KO events, so that an invalid event is rejected as soon as possible with the
+ * {@link ValidationError} describing it:
+ * <ul>
+ *     <li>before the event is parsed, {@link #validateRaw} checks that it is not empty and that it starts as a JSON object;</li>
+ *     <li>while the event is streamed, {@link #validateTimestamp} checks the shape of the <code>faultBean.timestamp</code>
+ *     before it is parsed;</li>
+ *     <li>once the event is streamed and before it is enriched, {@link #validateFields} checks the required fields.</li>
+ * </ul>
+ * All the checks only read characters or captured values, with no allocation.
+ */
+public class EventValidator {
+
+    private static final String TIMESTAMP_ERROR = "ERROR";
+    private static final int TIMESTAMP_BASE_LENGTH = 19;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final byte[] UTF8_BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private EventValidator() {}
+
+    /**
+     * Checks that the passed event is not empty and that its first significant character opens a JSON object.
+     *
+     * @throws InvalidEventException if the event is empty or is not a JSON object
+     */
+    public static void validateRaw(String event) {
+        int length = event == null ? 0 : event.length();
+        for (int index = 0; index < length; index++) {
+            char character = event.charAt(index);
+            if (!isWhitespace(character) && character != BYTE_ORDER_MARK) {
+                requireObjectStart(character);
+                return;
+            }
+        }
+        throw new InvalidEventException(ValidationError.EMPTY_EVENT, "The event is empty");
+    }
+
+    /**
+     * Checks that the passed UTF-8 event is not empty and that its first significant character opens a JSON object.
+     *
+     * @throws InvalidEventException if the event is empty or is not a JSON object
+     */
+    public static void validateRaw(byte[] event) {
+        int length = event == null ? 0 : event.length;
+        for (int index = startsWithByteOrderMark(event) ? UTF8_BYTE_ORDER_MARK.length : 0; index < length; index++) {
+            char character = (char) event[index];
+            if (!isWhitespace(character)) {
+                requireObjectStart(character);
+                return;
+            }
+        }
+        throw new InvalidEventException(ValidationError.EMPTY_EVENT, "The event is empty");
+    }
+
+    /**
+     * Checks that the passed <code>faultBean.timestamp</code> is shaped as <code>yyyy-MM-dd'T'HH:mm:ss</code>, optionally
+     * followed by a fraction and an offset. The digits and their range are checked by the parsing.
+     *
+     * @throws InvalidEventException if the timestamp reports an error or is not in the expected shape
+     */
+    public static void validateTimestamp(String timestamp) {
+        if (timestamp.contains(TIMESTAMP_ERROR)) {
+            throw missingTimestamp();
+        }
+        if (timestamp.length() < TIMESTAMP_BASE_LENGTH || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-' ||
+                timestamp.charAt(10) != 'T' || timestamp.charAt(13) != ':' || timestamp.charAt(16) != ':') {
+            throw invalidTimestamp(timestamp, null);
+        }
+    }
+
+    /**
+     * Checks the fields captured while streaming an event: the <code>id</code>, the <code>faultBean.timestamp</code>
+     * and the objects the partition key is built from.
+     *
+     * @param fields the captured fields of the event
+     * @param hasTimestamp whether a valid <code>faultBean.timestamp</code> was read
+     * @throws InvalidEventException if a required field is missing or invalid
+     */
+    public static void validateFields(CapturedFields fields, boolean hasTimestamp) {
+        FieldValue id = fields.get(EventFieldPaths.ID);
+        if (!(id.getValue() instanceof String) || ((String) id.getValue()).isBlank()) {
+            throw new InvalidEventException(ValidationError.INVALID_ID, "Missing or invalid " + Constants.ID_EVENT_FIELD);
+        }
+        if (!hasTimestamp) {
+            if (fields.getStatus(EventFieldPaths.FAULTBEAN_TIMESTAMP) == FieldValue.Status.PARENT_MISSING) {
+                throw new InvalidEventException(ValidationError.MISSING_FAULT_BEAN, "Missing " + Constants.FAULTBEAN_EVENT_FIELD);
+            }
+            throw missingTimestamp();
+        }
+        requireParent(fields, EventFieldPaths.CREDITOR_ID, ValidationError.MISSING_CREDITOR);
+        requireParent(fields, EventFieldPaths.PSP_ID, ValidationError.MISSING_PSP);
+    }
+
+    static InvalidEventException missingTimestamp() {
+        return new InvalidEventException(ValidationError.MISSING_TIMESTAMP, "Missing " + Constants.FAULTBEAN_TIMESTAMP_EVENT_FIELD);
+    }
+
+    static InvalidEventException invalidTimestamp(String timestamp, Throwable cause) {
+        return new InvalidEventException(ValidationError.INVALID_TIMESTAMP, "Invalid " + Constants.FAULTBEAN_TIMESTAMP_EVENT_FIELD + " [" + timestamp + "]", cause);
+    }
+
+    static InvalidEventException invalidFaultBean() {
+        return new InvalidEventException(ValidationError.INVALID_FAULT_BEAN, "The field [" + Constants.FAULTBEAN_EVENT_FIELD + "] is not an object");
+    }
+
+    private static void requireParent(CapturedFields fields, FieldPath path, ValidationError error) {
+        if (fields.getStatus(path) == FieldValue.Status.PARENT_MISSING) {
+            throw new InvalidEventException(error, "The field [" + path + "] does not exists in the passed event.");
+        }
+    }
+
+    private static void requireObjectStart(char character) {
+        if (character != '{') {
+            throw new InvalidEventException(ValidationError.NOT_AN_OBJECT, "The event is not a JSON object");
+        }
+    }
+
+    private static boolean startsWithByteOrderMark(byte[] event) {
+        return event != null && event.length >= UTF8_BYTE_ORDER_MARK.length && event[0] == UTF8_BYTE_ORDER_MARK[0] &&
+                event[1] == UTF8_BYTE_ORDER_MARK[1] && event[2] == UTF8_BYTE_ORDER_MARK[2];
+    }
+
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || character == '\n' || character == '\r' || character == '\t';
+    }
+}
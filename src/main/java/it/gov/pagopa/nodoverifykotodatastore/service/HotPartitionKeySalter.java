@@ -0,0 +1,243 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Spreads the writes of the hot partition keys over a bounded number of salted keys.
+ * <p>
+ * The writes of each key are counted in a sliding window, made of a fixed number of intervals. A key written more
+ * than <code>hotThreshold</code> times per second over the window becomes hot: its events get a salt in
+ * <code>[0, buckets)</code>, derived from the event id, and are written with the key <code>PartitionKey#salt</code>.
+ * A hot key is salted until its rate drops below half the threshold, so that a key at the threshold does not flap.
+ * Since the salt is derived from the id, and the events of a retried batch are not counted again, a retried event
+ * gets the same key unless other writes move the key across the thresholds in the meantime: readers of a salted day
+ * fan out over the base key and its salted keys and dedupe by id.
+ * <p>
+ * The writes are counted on per-key {@link LongAdder}s, one for each interval, so that the events transformed in
+ * parallel do not contend on a lock: only the rotation at the end of an interval is serialized. At most
+ * <code>maxKeys</code> keys are tracked: beyond that, the new keys are never salted. At the end of every interval,
+ * the hottest keys of the interval are kept for {@link #pollReport()}.
+ */
+public class HotPartitionKeySalter {
+
+    public static final char SALT_SEPARATOR = '#';
+
+    private static final int INTERVALS = 6;
+
+    private final int buckets;
+    private final double hotThreshold;
+    private final int maxKeys;
+    private final int reportSize;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, LongAdder[]> counters = new ConcurrentHashMap<>();
+    private final Set<String> hotKeys = ConcurrentHashMap.newKeySet();
+    private final long origin;
+    private volatile long currentInterval;
+    private List<KeyRate> report;
+
+    public HotPartitionKeySalter(int buckets, double hotThreshold, long windowMillis, int maxKeys, int reportSize, LongSupplier nanoClock) {
+        if (buckets < 2 || hotThreshold <= 0 || windowMillis < INTERVALS || maxKeys < 1) {
+            throw new IllegalArgumentException("The salt buckets must be at least 2, the hot threshold, the window and the tracked keys positive.");
+        }
+        this.buckets = buckets;
+        this.hotThreshold = hotThreshold;
+        this.maxKeys = maxKeys;
+        this.reportSize = reportSize;
+        this.intervalNanos = windowMillis * 1_000_000 / INTERVALS;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * Creates the salter configured by the app settings, or returns <code>null</code> if the salting is disabled by
+     * the {@value Constants#PARTITION_KEY_SALTING_SETTING} app setting, as by default.
+     */
+    public static HotPartitionKeySalter fromSettings() {
+        if (!AppSettings.getBoolean(Constants.PARTITION_KEY_SALTING_SETTING, false)) {
+            return null;
+        }
+        return new HotPartitionKeySalter(
+                AppSettings.getInt(Constants.PARTITION_KEY_SALT_BUCKETS_SETTING, 4),
+                AppSettings.getInt(Constants.PARTITION_KEY_HOT_THRESHOLD_SETTING, 200),
+                AppSettings.getLong(Constants.PARTITION_KEY_HOT_WINDOW_SECONDS_SETTING, 60) * 1000,
+                AppSettings.getInt(Constants.PARTITION_KEY_TRACKED_KEYS_SETTING, 10_000),
+                AppSettings.getInt(Constants.PARTITION_KEY_HOT_REPORT_SIZE_SETTING, 10),
+                System::nanoTime);
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Counts a write of the passed key and returns the salt of the event, or -1 if the key is not hot.
+     */
+    public int salt(String partitionKey, String eventId) {
+        return salt(partitionKey, eventId, true);
+    }
+
+    /**
+     * Returns the salt of the event, or -1 if the key is not hot, counting the write only if <code>counted</code>:
+     * the events of a retried batch are not counted again, so that they do not push their key over the threshold.
+     */
+    public int salt(String partitionKey, String eventId, boolean counted) {
+        if (counted && !count(partitionKey)) {
+            return -1;
+        }
+        return hotKeys.contains(partitionKey) ? Math.floorMod(eventId.hashCode(), buckets) : -1;
+    }
+
+    /**
+     * Returns the hottest keys of the last completed interval, once: further calls return <code>null</code> until
+     * the next interval is completed.
+     */
+    public synchronized List<KeyRate> pollReport() {
+        rotate();
+        List<KeyRate> lastReport = report;
+        report = null;
+        return lastReport;
+    }
+
+    /**
+     * Returns the current write rate of the passed key over the window, in writes per second.
+     */
+    public double getRate(String partitionKey) {
+        rotate();
+        LongAdder[] counter = counters.get(partitionKey);
+        return counter == null ? 0 : sum(counter) / getWindowSeconds();
+    }
+
+    public boolean isHot(String partitionKey) {
+        return hotKeys.contains(partitionKey);
+    }
+
+    /**
+     * Counts a write of the passed key in the current interval and updates its hot state.
+     *
+     * @return <code>false</code> if the key is not tracked, as too many keys are
+     */
+    private boolean count(String partitionKey) {
+        int slot = rotate();
+        LongAdder[] counter = counters.get(partitionKey);
+        if (counter == null) {
+            if (counters.size() >= maxKeys) {
+                return false;
+            }
+            counter = counters.computeIfAbsent(partitionKey, key -> newCounter());
+        }
+        counter[slot].increment();
+
+        double rate = sum(counter) / getWindowSeconds();
+        if (rate > hotThreshold) {
+            if (!hotKeys.contains(partitionKey)) {
+                hotKeys.add(partitionKey);
+            }
+        } else if (rate < hotThreshold / 2 && hotKeys.contains(partitionKey)) {
+            hotKeys.remove(partitionKey);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the window forward to the current time, if a new interval started, and returns the slot of the counters
+     * of the current interval. Only the rotation takes the lock: the writes of the same interval are counted concurrently.
+     */
+    private int rotate() {
+        long interval = (nanoClock.getAsLong() - origin) / intervalNanos;
+        if (interval > currentInterval) {
+            advance(interval);
+        }
+        return slot(interval);
+    }
+
+    /**
+     * Resets the slots of the intervals left behind, dropping the keys no longer written in the window.
+     */
+    private synchronized void advance(long interval) {
+        long previous = currentInterval;
+        if (interval <= previous) {
+            return;
+        }
+        report = buildReport(slot(previous));
+        for (long step = 1; step <= Math.min(interval - previous, INTERVALS); step++) {
+            int expired = slot(previous + step);
+            counters.values().forEach(counter -> counter[expired].reset());
+        }
+        counters.entrySet().removeIf(entry -> {
+            if (sum(entry.getValue()) > 0) {
+                return false;
+            }
+            hotKeys.remove(entry.getKey());
+            return true;
+        });
+        currentInterval = interval;
+    }
+
+    private List<KeyRate> buildReport(int slot) {
+        double intervalSeconds = intervalNanos / 1e9;
+        List<KeyRate> rates = new ArrayList<>();
+        for (Map.Entry<String, LongAdder[]> entry : counters.entrySet()) {
+            long writes = entry.getValue()[slot].sum();
+            if (writes > 0) {
+                rates.add(new KeyRate(entry.getKey(), writes / intervalSeconds, hotKeys.contains(entry.getKey())));
+            }
+        }
+        rates.sort(Comparator.comparingDouble(KeyRate::getRate).reversed());
+        return List.copyOf(rates.subList(0, Math.min(reportSize, rates.size())));
+    }
+
+    private static int slot(long interval) {
+        return (int) Math.floorMod(interval, (long) INTERVALS);
+    }
+
+    private static LongAdder[] newCounter() {
+        LongAdder[] counter = new LongAdder[INTERVALS];
+        for (int index = 0; index < INTERVALS; index++) {
+            counter[index] = new LongAdder();
+        }
+        return counter;
+    }
+
+    private static long sum(LongAdder[] counter) {
+        long sum = 0;
+        for (LongAdder adder : counter) {
+            sum += adder.sum();
+        }
+        return sum;
+    }
+
+    private double getWindowSeconds() {
+        return intervalNanos * INTERVALS / 1e9;
+    }
+
+    /**
+     * The write rate of a partition key in an interval.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class KeyRate {
+
+        private final String partitionKey;
+        private final double rate;
+        private final boolean salted;
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.1f/s%s", partitionKey, rate, salted ? " (salted)" : "");
+        }
+    }
+}
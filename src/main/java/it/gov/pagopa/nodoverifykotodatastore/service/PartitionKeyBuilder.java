@@ -0,0 +1,93 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+/**
+ * Builds the <code>PartitionKey</code> of the events, formatted as <code>yyyyMMdd-idPA-idPsp</code>.
+ * <p>
+ * The key is written in a per-thread buffer and the keys built recently are cached per thread, indexed by
+ * day, creditor and PSP: a batch usually holds a few creditor/PSP pairs repeated many times, so most of the
+ * keys are returned without allocating anything.
+ */
+public class PartitionKeyBuilder {
+
+    public enum Format {
+        /**
+         * Fixed-width date, i.e. <code>20230105-idPA-idPsp</code>.
+         */
+        PADDED,
+        /**
+         * Date without zero padding, as written by the versions up to 0.1.8: i.e. <code>202315-idPA-idPsp</code>.
+         * It is ambiguous (January 15 and November 5 share the same prefix) and it is kept only to keep on
+         * writing the existing data with the same keys.
+         */
+        LEGACY
+    }
+
+    private static final int CACHE_SIZE = 256;
+
+    private final Format format;
+    private final ThreadLocal<KeyCache> caches = ThreadLocal.withInitial(KeyCache::new);
+
+    public PartitionKeyBuilder(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Creates the builder with the format set in the {@value Constants#PARTITION_KEY_FORMAT_SETTING} app setting.
+     */
+    public static PartitionKeyBuilder fromSettings() {
+        return new PartitionKeyBuilder(AppSettings.getEnum(Constants.PARTITION_KEY_FORMAT_SETTING, Format.class, Format.PADDED));
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the partition key for the passed day, creditor and PSP identifiers.
+     */
+    public String build(int year, int month, int day, String creditorId, String pspId) {
+        int date = year * 10_000 + month * 100 + day;
+        KeyCache cache = caches.get();
+        int slot = ((date * 31 + creditorId.hashCode()) * 31 + pspId.hashCode()) & (CACHE_SIZE - 1);
+        if (cache.dates[slot] == date && creditorId.equals(cache.creditorIds[slot]) && pspId.equals(cache.pspIds[slot])) {
+            return cache.keys[slot];
+        }
+
+        StringBuilder buffer = cache.buffer;
+        buffer.setLength(0);
+        if (format == Format.LEGACY) {
+            buffer.append(year).append(month).append(day);
+        } else {
+            appendPadded(buffer, year, 4);
+            appendPadded(buffer, month, 2);
+            appendPadded(buffer, day, 2);
+        }
+        String key = buffer.append('-').append(creditorId).append('-').append(pspId).toString();
+
+        cache.dates[slot] = date;
+        cache.creditorIds[slot] = creditorId;
+        cache.pspIds[slot] = pspId;
+        cache.keys[slot] = key;
+        return key;
+    }
+
+    private static void appendPadded(StringBuilder buffer, int value, int digits) {
+        for (int divisor = digits == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            buffer.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Direct-mapped cache of the last keys built by a thread, with the buffer used to write them.
+     */
+    private static class KeyCache {
+        private final StringBuilder buffer = new StringBuilder(64);
+        private final int[] dates = new int[CACHE_SIZE];
+        private final String[] creditorIds = new String[CACHE_SIZE];
+        private final String[] pspIds = new String[CACHE_SIZE];
+        private final String[] keys = new String[CACHE_SIZE];
+    }
+}
@@ -0,0 +1,85 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the Event Hub property names in the field names of the document, replacing each dash followed by a
+ * letter with the uppercase letter, i.e. <code>prop1-with-dash</code> becomes <code>prop1WithDash</code>.
+ * <p>
+ * The same few property names are received with every event, so the translations are cached in a table shared
+ * by all the threads. When the table is full an arbitrary entry is evicted, so that a producer sending
+ * ever-changing names cannot make it grow without bounds.
+ */
+public class PropertyNameNormalizer {
+
+    private final int maxSize;
+    private final Map<String, String> translations = new ConcurrentHashMap<>();
+
+    public PropertyNameNormalizer(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The size of the property name cache must be positive.");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates the normalizer with the cache size set in the {@value Constants#PROPERTY_NAME_CACHE_SIZE_SETTING} app setting.
+     */
+    public static PropertyNameNormalizer fromSettings() {
+        return new PropertyNameNormalizer(AppSettings.getInt(Constants.PROPERTY_NAME_CACHE_SIZE_SETTING, 1024));
+    }
+
+    public String normalize(String propertyName) {
+        String translation = translations.get(propertyName);
+        if (translation == null) {
+            translation = replaceDashWithUppercase(propertyName);
+            if (translations.size() >= maxSize) {
+                evictOne();
+            }
+            translations.put(propertyName, translation);
+        }
+        return translation;
+    }
+
+    int size() {
+        return translations.size();
+    }
+
+    private void evictOne() {
+        Iterator<String> names = translations.keySet().iterator();
+        if (names.hasNext()) {
+            names.next();
+            names.remove();
+        }
+    }
+
+    /**
+     * Replaces each dash followed by an ASCII letter with the uppercase letter, keeping any other dash.
+     */
+    static String replaceDashWithUppercase(String input) {
+        int dash = input.indexOf('-');
+        if (dash < 0) {
+            return input;
+        }
+        int length = input.length();
+        StringBuilder builder = new StringBuilder(length).append(input, 0, dash);
+        for (int index = dash; index < length; index++) {
+            char current = input.charAt(index);
+            if (current == '-' && index + 1 < length && isAsciiLetter(input.charAt(index + 1))) {
+                builder.append(Character.toUpperCase(input.charAt(++index)));
+            } else {
+                builder.append(current);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isAsciiLetter(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z');
+    }
+}
@@ -0,0 +1,66 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the results of the most recent queries for a short time, so that the hot queries (i.e. the KOs of the
+ * current day for a big creditor) are not run again on every request. An entry is evicted once its time to live
+ * is elapsed or, when the cache is full, in least recently used order.
+ */
+public class QueryResultCache<V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, Entry<V>> entries;
+
+    public QueryResultCache(int maxSize, long ttlMillis, LongSupplier nanoClock) {
+        if (maxSize < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("The size and the time to live of the cache must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > QueryResultCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of the passed query, <code>null</code> if missing or expired.
+     */
+    public synchronized V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiration - nanoClock.getAsLong() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(String key, V value) {
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiration;
+
+        private Entry(V value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
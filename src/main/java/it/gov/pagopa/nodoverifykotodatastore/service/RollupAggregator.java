@@ -0,0 +1,39 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.field.EventFieldPaths;
+import it.gov.pagopa.nodoverifykotodatastore.model.RollupDelta;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the events of a batch in the increments of the KO counters by day, creditor and PSP, so that each rollup
+ * document is updated once per batch. The events must be transformed capturing {@link EventFieldPaths#FAULT_CODE}.
+ */
+public class RollupAggregator {
+
+    private final PartitionKeyBuilder partitionKeyBuilder;
+
+    public RollupAggregator(PartitionKeyBuilder partitionKeyBuilder) {
+        this.partitionKeyBuilder = partitionKeyBuilder;
+    }
+
+    public List<RollupDelta> fold(List<TransformedEvent> events) {
+        Map<String, RollupDelta> deltas = new LinkedHashMap<>();
+        for (TransformedEvent event : events) {
+            // the dateTime is always formatted as yyyy-MM-ddTHH:mm:ss.SSSSSS
+            String dateTime = event.getDateTime();
+            String creditorId = event.getFields().getString(EventFieldPaths.CREDITOR_ID, Constants.NA);
+            String pspId = event.getFields().getString(EventFieldPaths.PSP_ID, Constants.NA);
+            String id = partitionKeyBuilder.build(Integer.parseInt(dateTime.substring(0, 4)), Integer.parseInt(dateTime.substring(5, 7)),
+                    Integer.parseInt(dateTime.substring(8, 10)), creditorId, pspId);
+            deltas.computeIfAbsent(id, key -> new RollupDelta(key, dateTime.substring(0, 10), creditorId, pspId))
+                    .add(event.getFields().getString(EventFieldPaths.FAULT_CODE, Constants.NA), 1);
+        }
+        return new ArrayList<>(deltas.values());
+    }
+}
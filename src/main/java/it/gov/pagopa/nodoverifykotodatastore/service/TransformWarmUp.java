@@ -0,0 +1,54 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.BatchTrace;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primes the JIT compiler on the ingestion path, transforming a sample batch a number of times, so that the first
+ * batches received by a new host instance do not run in the interpreter.
+ * <p>
+ * The sample batch is transformed by a dedicated transformer, that shares the code but not the state of the one
+ * used by the function: the hot key tracking and the metrics are not touched.
+ */
+public class TransformWarmUp {
+
+    private static final String SAMPLE_EVENT = "{\"id\":\"warm-up-%d\",\"version\":\"2\"," +
+            "\"debtorPosition\":{\"modelType\":\"2\",\"noticeNumber\":\"302040000090000000\",\"amount\":\"50.00\"}," +
+            "\"creditor\":{\"idPA\":\"77777777777\",\"ccPost\":\"777777777777\",\"idBrokerPA\":\"77777777777\",\"idStation\":\"77777777777_01\"}," +
+            "\"psp\":{\"idPsp\":\"88888888888\",\"idBrokerPsp\":\"88888888888\",\"idChannel\":\"88888888888_01\"}," +
+            "\"faultBean\":{\"faultCode\":\"PPT_STAZIONE_INT_PA_ERRORE_RESPONSE\",\"description\":\"EC service error\",\"timestamp\":\"2023-12-12T18:34:39.86065\"}}";
+    private static final int BATCH_SIZE = 10;
+
+    private TransformWarmUp() {}
+
+    /**
+     * Transforms the sample batch the passed number of times, as the function would do.
+     *
+     * @return the number of events transformed
+     */
+    @SuppressWarnings("unchecked")
+    public static int run(PartitionKeyBuilder partitionKeyBuilder, boolean timed, int iterations) throws IOException {
+        EventBatchTransformer batchTransformer = new EventBatchTransformer(new VerifyKOEventTransformer(List.of(), partitionKeyBuilder, timed), null, Integer.MAX_VALUE);
+        List<byte[]> events = new ArrayList<>(BATCH_SIZE);
+        Map<String, Object>[] properties = new HashMap[BATCH_SIZE];
+        for (int index = 0; index < BATCH_SIZE; index++) {
+            events.add(String.format(SAMPLE_EVENT, index).getBytes(StandardCharsets.UTF_8));
+            properties[index] = new HashMap<>(Map.of("prop1-with-dash", "1", "version", index));
+        }
+
+        int transformed = 0;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            List<TransformedEvent> transformedEvents = batchTransformer.transform(events, properties);
+            transformed += VerifyKOEventTransformer.toJsonArray(transformedEvents).isEmpty() ? 0 : transformedEvents.size();
+            BatchTrace.ofTransformedEvents("warm-up", -1, transformedEvents, 0, BATCH_SIZE);
+        }
+        return transformed;
+    }
+}
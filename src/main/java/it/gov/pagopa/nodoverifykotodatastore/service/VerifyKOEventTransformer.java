@@ -0,0 +1,474 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.field.CapturedFields;
+import it.gov.pagopa.nodoverifykotodatastore.field.EventFieldPaths;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPathTree;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.Stage;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.StageTimings;
+import it.gov.pagopa.nodoverifykotodatastore.model.FaultTimestamp;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.FaultTimestampCodec;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+import it.gov.pagopa.nodoverifykotodatastore.util.Utf8CountingWriter;
+
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a verify KO event in a single streaming pass: the tokens of the incoming event are copied
+ * straight to the output document while the fields needed for the enrichment are read on the way through.
+ * The Event Hub properties, the normalized <code>faultBean</code> timestamps and the <code>PartitionKey</code>
+ * are spliced into the output, so no intermediate map is built for the event. If a {@link DocumentProjection} is
+ * passed, the fields are renamed or dropped on the way through, counting the bytes saved on each document.
+ */
+public class VerifyKOEventTransformer {
+
+    private final PartitionKeyBuilder partitionKeyBuilder;
+    private final HotPartitionKeySalter partitionKeySalter;
+    private final PropertyNameNormalizer propertyNameNormalizer = PropertyNameNormalizer.fromSettings();
+    private final FieldPathTree fieldPathTree;
+    private final FieldPathTree.Node faultBeanNode;
+    private final FieldPathTree.Node faultBeanTimestampNode;
+    private final DocumentProjection projection;
+    private final Map<FieldPathTree.Node, String> aliases = new IdentityHashMap<>();
+    private final Set<FieldPathTree.Node> droppedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final String dateTimeName;
+    private final boolean dateTimeDropped;
+    private final boolean timed;
+
+    public VerifyKOEventTransformer() {
+        this(List.of(), PartitionKeyBuilder.fromSettings());
+    }
+
+    /**
+     * Creates a transformer that, in addition to the {@link EventFieldPaths#DEFAULTS}, captures the passed paths
+     * and makes them available through {@link TransformedEvent#getFields()}.
+     */
+    public VerifyKOEventTransformer(List<FieldPath> additionalPaths, PartitionKeyBuilder partitionKeyBuilder) {
+        this(additionalPaths, partitionKeyBuilder, false);
+    }
+
+    /**
+     * Creates a transformer that, if <code>timed</code>, measures the time spent in each stage
+     * and makes it available through {@link TransformedEvent#getTimings()}.
+     */
+    public VerifyKOEventTransformer(List<FieldPath> additionalPaths, PartitionKeyBuilder partitionKeyBuilder, boolean timed) {
+        this(additionalPaths, partitionKeyBuilder, null, timed);
+    }
+
+    /**
+     * Creates a transformer that, if a <code>partitionKeySalter</code> is passed, salts the hot partition keys and
+     * records the salting on the document, in the <code>partitionKeySalting</code> field.
+     */
+    public VerifyKOEventTransformer(List<FieldPath> additionalPaths, PartitionKeyBuilder partitionKeyBuilder, HotPartitionKeySalter partitionKeySalter, boolean timed) {
+        this(additionalPaths, partitionKeyBuilder, partitionKeySalter, null, timed);
+    }
+
+    /**
+     * Creates a transformer that, if a <code>projection</code> is passed, filters the properties and renames or drops
+     * the fields as configured, making the saved bytes available through {@link TransformedEvent#getRemovedBytes()}.
+     */
+    public VerifyKOEventTransformer(List<FieldPath> additionalPaths, PartitionKeyBuilder partitionKeyBuilder, HotPartitionKeySalter partitionKeySalter,
+                                    DocumentProjection projection, boolean timed) {
+        this.partitionKeyBuilder = partitionKeyBuilder;
+        this.partitionKeySalter = partitionKeySalter;
+        this.projection = projection;
+        this.timed = timed;
+        List<FieldPath> paths = new ArrayList<>(EventFieldPaths.DEFAULTS);
+        paths.addAll(additionalPaths);
+        if (projection != null) {
+            paths.addAll(projection.getPaths());
+        }
+        this.fieldPathTree = FieldPathTree.of(paths);
+        this.faultBeanTimestampNode = fieldPathTree.getNode(EventFieldPaths.FAULTBEAN_TIMESTAMP);
+        this.faultBeanNode = faultBeanTimestampNode.getParent();
+        if (projection != null) {
+            projection.getAliases().forEach((path, alias) -> {
+                if (!path.equals(DocumentProjection.DATE_TIME_PATH)) {
+                    aliases.put(fieldPathTree.getNode(path), alias);
+                }
+            });
+            projection.getDroppedFields().forEach(path -> {
+                if (!path.equals(DocumentProjection.DATE_TIME_PATH)) {
+                    droppedNodes.add(fieldPathTree.getNode(path));
+                }
+            });
+            this.dateTimeName = projection.getAliases().getOrDefault(DocumentProjection.DATE_TIME_PATH, Constants.DATE_TIME_EVENT_FIELD);
+            this.dateTimeDropped = projection.getDroppedFields().contains(DocumentProjection.DATE_TIME_PATH);
+        } else {
+            this.dateTimeName = Constants.DATE_TIME_EVENT_FIELD;
+            this.dateTimeDropped = false;
+        }
+    }
+
+    /**
+     * Returns the salter of the hot partition keys, <code>null</code> if the keys are not salted.
+     */
+    public HotPartitionKeySalter getPartitionKeySalter() {
+        return partitionKeySalter;
+    }
+
+    /**
+     * Returns the projection of the documents, <code>null</code> if the documents are not projected.
+     */
+    public DocumentProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Transforms a single event, enriching it with the passed Event Hub properties.
+     *
+     * @param event the raw event, as received from Event Hub
+     * @param properties the Event Hub properties related to the event
+     * @return the transformed event
+     * @throws IOException if the event is not valid JSON
+     * @throws InvalidEventException if the event is rejected by the validation, i.e. if it is not a JSON object
+     * or if the <code>id</code>, the <code>faultBean.timestamp</code> or the fields needed for the partition key are missing
+     */
+    public TransformedEvent transform(String event, Map<String, Object> properties) throws IOException {
+        return transform(event, properties, false);
+    }
+
+    /**
+     * Transforms a single event, not counting its write for the salting of the hot partition keys if <code>retried</code>.
+     *
+     * @see #transform(String, Map)
+     */
+    public TransformedEvent transform(String event, Map<String, Object> properties, boolean retried) throws IOException {
+        long start = timed ? System.nanoTime() : 0;
+        EventValidator.validateRaw(event);
+        try (JsonParser parser = ObjectMapperUtils.createParser(event)) {
+            return transform(parser, properties, retried, start);
+        }
+    }
+
+    /**
+     * Transforms a single event received as UTF-8 bytes, parsing them with no intermediate String.
+     *
+     * @see #transform(String, Map)
+     */
+    public TransformedEvent transform(byte[] event, Map<String, Object> properties) throws IOException {
+        return transform(event, properties, false);
+    }
+
+    /**
+     * Transforms a single event received as UTF-8 bytes, not counting its write for the salting of the hot partition
+     * keys if <code>retried</code>.
+     *
+     * @see #transform(String, Map)
+     */
+    public TransformedEvent transform(byte[] event, Map<String, Object> properties, boolean retried) throws IOException {
+        long start = timed ? System.nanoTime() : 0;
+        EventValidator.validateRaw(event);
+        try (JsonParser parser = ObjectMapperUtils.createParser(event)) {
+            return transform(parser, properties, retried, start);
+        }
+    }
+
+    private TransformedEvent transform(JsonParser parser, Map<String, Object> properties, boolean retried, long start) throws IOException {
+        TransformState state = new TransformState(fieldPathTree.newCapture(), normalizePropertyNames(properties), timed ? new StageTimings() : null);
+
+        SegmentedStringWriter writer = ObjectMapperUtils.createStringWriter();
+        try (JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "The passed event is not a JSON object.");
+            }
+            generator.writeStartObject();
+            copyFields(parser, generator, fieldPathTree.getRoot(), state);
+            long copied = timed ? System.nanoTime() : 0;
+
+            EventValidator.validateFields(state.fields, state.dateTime != null);
+            long keyStart = timed ? System.nanoTime() : 0;
+            String baseKey = generatePartitionKey(state);
+            int salt = partitionKeySalter == null ? -1 : partitionKeySalter.salt(baseKey, state.fields.getString(EventFieldPaths.ID, ""), !retried);
+            state.partitionKey = salt < 0 ? baseKey : baseKey + HotPartitionKeySalter.SALT_SEPARATOR + salt;
+            if (timed) {
+                long keyEnd = System.nanoTime();
+                state.timings.add(Stage.PARSE, copied - start - state.timings.get(Stage.TIMESTAMP));
+                state.timings.add(Stage.KEY, keyEnd - keyStart);
+                state.timings.add(Stage.ENRICH, keyStart - copied);
+            }
+
+            long enrichStart = timed ? System.nanoTime() : 0;
+            writeProperties(generator, properties, state);
+            generator.writeStringField(Constants.PARTITION_KEY_EVENT_FIELD, state.partitionKey);
+            if (salt >= 0) {
+                writeSalting(generator, baseKey, salt);
+            }
+            generator.writeEndObject();
+            if (state.droppedGenerator != null) {
+                state.droppedGenerator.flush();
+                state.removedBytes += state.getDroppedFieldBytes();
+                state.droppedGenerator.close();
+            }
+            if (timed) {
+                state.timings.add(Stage.ENRICH, System.nanoTime() - enrichStart);
+            }
+        }
+
+        return TransformedEvent.builder()
+                .id(state.fields.getString(EventFieldPaths.ID, null))
+                .partitionKey(state.partitionKey)
+                .timestamp(state.timestamp)
+                .dateTime(state.dateTime)
+                .document(writer.getAndClear())
+                .fields(state.fields)
+                .timings(state.timings)
+                .removedBytes(state.removedBytes)
+                .build();
+    }
+
+    /**
+     * Joins the documents of the passed events in a single JSON array, as expected by the Cosmos DB output binding.
+     */
+    public static String toJsonArray(List<TransformedEvent> events) {
+        int length = 2;
+        for (TransformedEvent event : events) {
+            length += event.getDocument().length() + 1;
+        }
+        StringBuilder builder = new StringBuilder(length).append('[');
+        for (int index = 0; index < events.size(); index++) {
+            if (index > 0) {
+                builder.append(',');
+            }
+            builder.append(events.get(index).getDocument());
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Copies the fields of the current object, descending only in the objects that lead to a captured or projected path.
+     * The start of the object is expected to be already written. The dropped fields are still read, but written
+     * to a generator that only counts their bytes.
+     */
+    private void copyFields(JsonParser parser, JsonGenerator generator, FieldPathTree.Node node, TransformState state) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            FieldPathTree.Node child = node.getChild(fieldName);
+
+            if (node == fieldPathTree.getRoot() && isOverridden(fieldName, state.propertyNames)) {
+                parser.skipChildren();
+            } else if (child == faultBeanNode && token != JsonToken.START_OBJECT && token != JsonToken.VALUE_NULL) {
+                throw EventValidator.invalidFaultBean();
+            } else if (node == faultBeanNode && child != faultBeanTimestampNode && Constants.DATE_TIME_EVENT_FIELD.equals(fieldName)) {
+                parser.skipChildren();
+            } else if (child == null) {
+                generator.writeFieldName(fieldName);
+                generator.copyCurrentStructure(parser);
+            } else {
+                JsonGenerator target = droppedNodes.contains(child) ? state.getDroppedGenerator() : generator;
+                String targetName = project(child, fieldName, target, state);
+                if (child == faultBeanTimestampNode) {
+                    rewriteTimestamp(parser, target, targetName, token, state);
+                } else if (token == JsonToken.START_OBJECT && !child.isLeaf()) {
+                    state.fields.markObject(child);
+                    target.writeFieldName(targetName);
+                    target.writeStartObject();
+                    copyFields(parser, target, child, state);
+                    if (child == faultBeanNode) {
+                        appendDateTime(target, state);
+                    }
+                    target.writeEndObject();
+                } else {
+                    state.fields.capture(child, parser, token);
+                    target.writeFieldName(targetName);
+                    target.copyCurrentStructure(parser);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the name the passed field is written with, counting the bytes saved by its alias, if any.
+     */
+    private String project(FieldPathTree.Node node, String fieldName, JsonGenerator target, TransformState state) {
+        String alias = aliases.get(node);
+        if (alias == null) {
+            return fieldName;
+        }
+        if (target != state.droppedGenerator) {
+            state.removedBytes += Utf8CountingWriter.utf8Length(fieldName) - Utf8CountingWriter.utf8Length(alias);
+        }
+        return alias;
+    }
+
+    /**
+     * Replaces the <code>faultBean.timestamp</code> with the epoch seconds, keeping the normalized value for the <code>dateTime</code>.
+     */
+    private void rewriteTimestamp(JsonParser parser, JsonGenerator generator, String fieldName, JsonToken token, TransformState state) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            throw EventValidator.invalidTimestamp(parser.getText(), null);
+        }
+        String faultBeanTimestamp = parser.getText();
+        EventValidator.validateTimestamp(faultBeanTimestamp);
+        // sometimes faultBeanTimestamp has less than 6 digits regarding microseconds, the codec normalizes them
+        long start = timed ? System.nanoTime() : 0;
+        FaultTimestamp timestamp;
+        try {
+            timestamp = FaultTimestampCodec.parse(faultBeanTimestamp);
+        } catch (DateTimeParseException e) {
+            throw EventValidator.invalidTimestamp(faultBeanTimestamp, e);
+        }
+        if (timed) {
+            state.timings.add(Stage.TIMESTAMP, System.nanoTime() - start);
+        }
+        state.faultTimestamp = timestamp;
+        state.timestamp = timestamp.getEpochSecond();
+        state.dateTime = timestamp.getDateTime();
+        generator.writeNumberField(fieldName, state.timestamp);
+    }
+
+    private void appendDateTime(JsonGenerator generator, TransformState state) throws IOException {
+        if (state.dateTime == null) {
+            throw EventValidator.missingTimestamp();
+        }
+        if (dateTimeDropped) {
+            state.getDroppedGenerator().writeStringField(Constants.DATE_TIME_EVENT_FIELD, state.dateTime);
+        } else {
+            if (generator != state.droppedGenerator) {
+                state.removedBytes += Utf8CountingWriter.utf8Length(Constants.DATE_TIME_EVENT_FIELD) - Utf8CountingWriter.utf8Length(dateTimeName);
+            }
+            generator.writeStringField(dateTimeName, state.dateTime);
+        }
+    }
+
+    private String generatePartitionKey(TransformState state) {
+        FaultTimestamp dateTime = state.faultTimestamp;
+        return partitionKeyBuilder.build(dateTime.getYear(), dateTime.getMonth(), dateTime.getDayOfMonth(),
+                state.fields.getString(EventFieldPaths.CREDITOR_ID, Constants.NA),
+                state.fields.getString(EventFieldPaths.PSP_ID, Constants.NA));
+    }
+
+    private void writeSalting(JsonGenerator generator, String baseKey, int salt) throws IOException {
+        generator.writeObjectFieldStart(Constants.PARTITION_KEY_SALTING_EVENT_FIELD);
+        generator.writeStringField("baseKey", baseKey);
+        generator.writeNumberField("salt", salt);
+        generator.writeNumberField("buckets", partitionKeySalter.getBuckets());
+        generator.writeEndObject();
+    }
+
+    private void writeProperties(JsonGenerator generator, Map<String, Object> properties, TransformState state) throws IOException {
+        int index = 0;
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            String propertyName = state.propertyNames[index++];
+            if (propertyName == null) {
+                continue;
+            }
+            if (projection == null) {
+                generator.writeFieldName(propertyName);
+                generator.writeObject(property.getValue());
+            } else if (!projection.isPropertyIncluded(property.getKey(), propertyName)) {
+                JsonGenerator droppedGenerator = state.getDroppedGenerator();
+                droppedGenerator.writeFieldName(propertyName);
+                droppedGenerator.writeObject(property.getValue());
+            } else {
+                String alias = projection.getPropertyAlias(propertyName);
+                if (alias != null) {
+                    state.removedBytes += Utf8CountingWriter.utf8Length(propertyName) - Utf8CountingWriter.utf8Length(alias);
+                    propertyName = alias;
+                }
+                generator.writeFieldName(propertyName);
+                generator.writeObject(property.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the property names in the iteration order of the passed map. A name shadowed by a following
+     * property with the same normalized name is returned as <code>null</code>, so that the last one wins, as is
+     * the name of a field computed by the transformation, as the <code>PartitionKey</code>, that overrides it.
+     */
+    private String[] normalizePropertyNames(Map<String, Object> properties) {
+        String[] propertyNames = new String[properties.size()];
+        int index = 0;
+        for (String property : properties.keySet()) {
+            String propertyName = propertyNameNormalizer.normalize(property);
+            for (int previous = 0; previous < index; previous++) {
+                if (propertyName.equals(propertyNames[previous])) {
+                    propertyNames[previous] = null;
+                }
+            }
+            propertyNames[index++] = isComputed(propertyName) ? null : propertyName;
+        }
+        return propertyNames;
+    }
+
+    private static boolean isComputed(String fieldName) {
+        return Constants.PARTITION_KEY_EVENT_FIELD.equals(fieldName) || Constants.PARTITION_KEY_SALTING_EVENT_FIELD.equals(fieldName);
+    }
+
+    private boolean isOverridden(String fieldName, String[] propertyNames) {
+        if (isComputed(fieldName)) {
+            return true;
+        }
+        for (String propertyName : propertyNames) {
+            if (fieldName.equals(propertyName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The state of the transformation of a single event.
+     */
+    private static class TransformState {
+        private final CapturedFields fields;
+        private final String[] propertyNames;
+        private final StageTimings timings;
+        private FaultTimestamp faultTimestamp;
+        private long timestamp;
+        private String dateTime;
+        private String partitionKey;
+        private long removedBytes;
+        private Utf8CountingWriter droppedWriter;
+        private JsonGenerator droppedGenerator;
+
+        private TransformState(CapturedFields fields, String[] propertyNames, StageTimings timings) {
+            this.fields = fields;
+            this.propertyNames = propertyNames;
+            this.timings = timings;
+        }
+
+        /**
+         * Returns the generator the dropped fields are written to, in a single object.
+         */
+        private JsonGenerator getDroppedGenerator() throws IOException {
+            if (droppedGenerator == null) {
+                droppedWriter = new Utf8CountingWriter();
+                droppedGenerator = ObjectMapperUtils.createGenerator(droppedWriter);
+                droppedGenerator.writeStartObject();
+            }
+            return droppedGenerator;
+        }
+
+        /**
+         * Returns the bytes the dropped fields took in the document: the bytes written on the dropped generator,
+         * less its opening brace and the separators between its fields, plus the separator of each field in the
+         * document. The generator is flushed and its object not yet closed.
+         */
+        private long getDroppedFieldBytes() {
+            int fields = droppedGenerator.getOutputContext().getEntryCount();
+            return droppedWriter.getBytes() - 1 - Math.max(0, fields - 1) + fields;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntSupplier;
+
+/**
+ * Coalesces the events persisted by the concurrent invocations of this host instance, i.e. the ones processing
+ * different Event Hub partitions, in a single write on the underlying sink.
+ * <p>
+ * The events are buffered until the buffer holds <code>maxBatchSize</code> events or the first of them has waited
+ * <code>maxDelayMillis</code>: the invocation that fills the buffer, or whose wait expires first, writes the
+ * whole buffer. No invocation returns before the write holding its events has completed, so an Event Hub
+ * checkpoint never covers events that are not persisted yet.
+ */
+public class AggregatingEventSink implements EventSink {
+
+    private final EventSink delegate;
+    private final IntSupplier maxBatchSize;
+    private final long maxDelayNanos;
+
+    private Batch pending;
+
+    public AggregatingEventSink(EventSink delegate, int maxBatchSize, long maxDelayMillis) {
+        this(delegate, () -> maxBatchSize, maxDelayMillis);
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The size of the aggregated batches must be positive.");
+        }
+    }
+
+    /**
+     * @param maxBatchSize supplies the size of the aggregated batches, read whenever events are buffered
+     */
+    public AggregatingEventSink(EventSink delegate, IntSupplier maxBatchSize, long maxDelayMillis) {
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("The delay of the aggregated batches must not be negative.");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    }
+
+    @Override
+    public SinkResult persist(List<TransformedEvent> events) {
+        if (events.isEmpty()) {
+            return new SinkResult(List.of(), 0, 0, 0);
+        }
+        Batch batch;
+        boolean full;
+        synchronized (this) {
+            if (pending == null) {
+                pending = new Batch(System.nanoTime() + maxDelayNanos);
+            }
+            batch = pending;
+            batch.events.addAll(events);
+            full = batch.events.size() >= maxBatchSize.getAsInt();
+            if (full) {
+                pending = null;
+            }
+        }
+
+        if (full) {
+            flush(batch);
+        } else {
+            awaitOrFlush(batch);
+        }
+        return batch.getResult(events);
+    }
+
+    /**
+     * Waits for the batch to be written by another invocation, writing it if it is still pending once its delay is elapsed.
+     */
+    private void awaitOrFlush(Batch batch) {
+        long remaining = batch.deadline - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                batch.result.get(remaining, TimeUnit.NANOSECONDS);
+                return;
+            } catch (ExecutionException e) {
+                return;
+            } catch (TimeoutException e) {
+                // the delay is elapsed: the batch is written by this invocation, if no other one has claimed it
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the aggregated events to be persisted.", e);
+            }
+        }
+
+        boolean claimed;
+        synchronized (this) {
+            claimed = pending == batch;
+            if (claimed) {
+                pending = null;
+            }
+        }
+        if (claimed) {
+            flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        try {
+            batch.result.complete(delegate.persist(batch.events));
+        } catch (RuntimeException e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    private static String identity(String partitionKey, String id) {
+        return partitionKey + "|" + id;
+    }
+
+    /**
+     * The events aggregated in a single write.
+     */
+    private static class Batch {
+        private final long deadline;
+        private final List<TransformedEvent> events = new ArrayList<>();
+        private final CompletableFuture<SinkResult> result = new CompletableFuture<>();
+
+        private Batch(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Waits for the write of the batch and returns the outcome of the passed events. The request charge is the one of
+         * their writes, while the attempts and the throttled writes are the ones of the whole batch.
+         */
+        private SinkResult getResult(List<TransformedEvent> invocationEvents) {
+            SinkResult batchResult;
+            try {
+                batchResult = result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            if (invocationEvents.size() == events.size()) {
+                return batchResult;
+            }
+
+            Set<String> identities = new HashSet<>();
+            for (TransformedEvent event : invocationEvents) {
+                identities.add(identity(event.getPartitionKey(), event.getId()));
+            }
+            List<ItemResult> items = new ArrayList<>(invocationEvents.size());
+            double requestCharge = 0;
+            for (ItemResult item : batchResult.getItems()) {
+                if (identities.contains(identity(item.getPartitionKey(), item.getId()))) {
+                    items.add(item);
+                    requestCharge += item.getRequestCharge();
+                }
+            }
+            return new SinkResult(items, requestCharge, batchResult.getAttempts(), batchResult.getThrottledWrites());
+        }
+    }
+}
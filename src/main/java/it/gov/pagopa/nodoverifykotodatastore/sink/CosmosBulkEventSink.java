@@ -0,0 +1,123 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.WriteMode;
+import it.gov.pagopa.nodoverifykotodatastore.tuning.AdaptiveController;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the events through the Cosmos DB bulk executor, grouped by <code>PartitionKey</code> so that the writes
+ * on the same physical partition end up in the same micro-batches. The throttled and transient writes are
+ * retried by the sink itself, waiting the longest <code>retry-after</code> returned by the service or an
+ * exponential backoff, so that the function can report the request charge and the outcome of each write.
+ */
+public class CosmosBulkEventSink implements EventSink {
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private final BulkExecutor executor;
+    private final int maxAttempts;
+    private final Sleeper sleeper;
+
+    public CosmosBulkEventSink(BulkExecutor executor, int maxAttempts, Sleeper sleeper) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The max attempts of the bulk writes must be positive.");
+        }
+        this.executor = executor;
+        this.maxAttempts = maxAttempts;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Returns the sink shared by the function instances, writing on the events container.
+     * The Cosmos DB client is created on the first call.
+     */
+    public static CosmosBulkEventSink getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public SinkResult persist(List<TransformedEvent> events) {
+        List<TransformedEvent> pending = new ArrayList<>(events);
+        pending.sort(Comparator.comparing(TransformedEvent::getPartitionKey));
+
+        List<ItemResult> items = new ArrayList<>(events.size());
+        double requestCharge = 0;
+        int throttledWrites = 0;
+        int attempt = 0;
+        while (!pending.isEmpty()) {
+            attempt++;
+            List<ItemResult> results = executor.execute(pending);
+            List<TransformedEvent> retries = new ArrayList<>();
+            long retryAfterMillis = 0;
+            for (int index = 0; index < pending.size(); index++) {
+                ItemResult result = results.get(index);
+                requestCharge += result.getRequestCharge();
+                if (result.isThrottled()) {
+                    throttledWrites++;
+                }
+                if (result.isTransient() && attempt < maxAttempts) {
+                    retries.add(pending.get(index));
+                    retryAfterMillis = Math.max(retryAfterMillis, result.getRetryAfterMillis());
+                } else {
+                    items.add(result);
+                }
+            }
+            pending = retries;
+            if (!pending.isEmpty()) {
+                sleep(Math.max(retryAfterMillis, backoff(attempt)));
+            }
+        }
+        return new SinkResult(items, requestCharge, attempt, throttledWrites);
+    }
+
+    static long backoff(int attempt) {
+        return Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+    }
+
+    private void sleep(long millis) {
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry the throttled writes.", e);
+        }
+    }
+
+    /**
+     * Executes a single round of bulk writes.
+     */
+    @FunctionalInterface
+    public interface BulkExecutor {
+
+        /**
+         * Writes the passed events, returning the outcome of each one in the same order.
+         */
+        List<ItemResult> execute(List<TransformedEvent> events);
+    }
+
+    @FunctionalInterface
+    public interface Sleeper {
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private static class Holder {
+        private static final CosmosBulkEventSink INSTANCE = new CosmosBulkEventSink(
+                new CosmosBulkExecutor(
+                        Constants.EVENTS_DATABASE_NAME,
+                        Constants.EVENTS_CONTAINER_NAME,
+                        AppSettings.getBoolean(Constants.IDEMPOTENT_WRITES_SETTING, false)
+                                ? WriteMode.UPSERT
+                                : AppSettings.getEnum(Constants.COSMOS_BULK_WRITE_MODE_SETTING, WriteMode.class, WriteMode.UPSERT),
+                        AdaptiveController.getInstance()::getConcurrency),
+                AppSettings.getInt(Constants.COSMOS_BULK_MAX_ATTEMPTS_SETTING, 5),
+                Thread::sleep);
+    }
+}
@@ -0,0 +1,114 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkExecutionOptions;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.PartitionKey;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.WriteMode;
+import it.gov.pagopa.nodoverifykotodatastore.util.CosmosClientProvider;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the bulk writes on a Cosmos DB container, using the index of each event as operation context
+ * so that the responses, returned out of order, can be matched with the events.
+ */
+class CosmosBulkExecutor implements CosmosBulkEventSink.BulkExecutor {
+
+    private static final int STATUS_CONFLICT = 409;
+
+    private final CosmosAsyncContainer container;
+    private final WriteMode writeMode;
+    private final IntSupplier maxConcurrency;
+
+    /**
+     * @param maxConcurrency supplies the micro-batches executed concurrently, read on every round of writes
+     */
+    CosmosBulkExecutor(String databaseName, String containerName, WriteMode writeMode, IntSupplier maxConcurrency) {
+        this.container = CosmosClientProvider.getClient().getDatabase(databaseName).getContainer(containerName);
+        this.writeMode = writeMode;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public List<ItemResult> execute(List<TransformedEvent> events) {
+        List<CosmosItemOperation> operations = new ArrayList<>(events.size());
+        for (int index = 0; index < events.size(); index++) {
+            operations.add(toOperation(events.get(index), index));
+        }
+
+        CosmosBulkExecutionOptions options = new CosmosBulkExecutionOptions().setMaxMicroBatchConcurrency(maxConcurrency.getAsInt());
+        ItemResult[] results = new ItemResult[events.size()];
+        container.<Integer>executeBulkOperations(Flux.fromIterable(operations), options)
+                .doOnNext(response -> {
+                    int index = response.getOperation().getContext();
+                    results[index] = toItemResult(events.get(index), response);
+                })
+                .blockLast();
+
+        for (int index = 0; index < results.length; index++) {
+            if (results[index] == null) {
+                results[index] = baseResult(events.get(index))
+                        .statusCode(ItemResult.STATUS_NO_RESPONSE)
+                        .error("No response returned by the bulk executor")
+                        .build();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Wraps the serialized document in a raw node, so that the bulk executor writes it as it is with no parsing,
+     * on the first attempt as on the retries.
+     */
+    private CosmosItemOperation toOperation(TransformedEvent event, int index) {
+        JsonNode item = new POJONode(new RawValue(event.getDocument()));
+        PartitionKey partitionKey = new PartitionKey(event.getPartitionKey());
+        return writeMode == WriteMode.CREATE
+                ? CosmosBulkOperations.getCreateItemOperation(item, partitionKey, index)
+                : CosmosBulkOperations.getUpsertItemOperation(item, partitionKey, index);
+    }
+
+    private ItemResult toItemResult(TransformedEvent event, CosmosBulkOperationResponse<Integer> response) {
+        ItemResult.ItemResultBuilder result = baseResult(event);
+        CosmosBulkItemResponse itemResponse = response.getResponse();
+        if (itemResponse != null) {
+            result.statusCode(itemResponse.getStatusCode())
+                    .requestCharge(itemResponse.getRequestCharge())
+                    .retryAfterMillis(toMillis(itemResponse.getRetryAfterDuration()))
+                    .alreadyExisting(writeMode == WriteMode.CREATE && itemResponse.getStatusCode() == STATUS_CONFLICT);
+        } else if (response.getException() instanceof CosmosException) {
+            CosmosException exception = (CosmosException) response.getException();
+            result.statusCode(exception.getStatusCode())
+                    .requestCharge(exception.getRequestCharge())
+                    .retryAfterMillis(toMillis(exception.getRetryAfterDuration()))
+                    .alreadyExisting(writeMode == WriteMode.CREATE && exception.getStatusCode() == STATUS_CONFLICT)
+                    .error(exception.getMessage());
+        } else {
+            result.statusCode(ItemResult.STATUS_NO_RESPONSE)
+                    .error(String.valueOf(response.getException()));
+        }
+        return result.build();
+    }
+
+    private static ItemResult.ItemResultBuilder baseResult(TransformedEvent event) {
+        return ItemResult.builder().id(event.getId()).partitionKey(event.getPartitionKey());
+    }
+
+    private static long toMillis(Duration duration) {
+        return duration == null ? 0 : duration.toMillis();
+    }
+}
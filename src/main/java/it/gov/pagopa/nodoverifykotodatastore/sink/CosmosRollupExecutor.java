@@ -0,0 +1,139 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkExecutionOptions;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.PartitionKey;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.gov.pagopa.nodoverifykotodatastore.model.RollupDelta;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.CosmosClientProvider;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the rollup writes on a Cosmos DB container through the bulk executor: the patches increment the
+ * <code>count</code> and the <code>faultCodes</code> counters, the creations write the whole document.
+ */
+class CosmosRollupExecutor implements RollupSink.RollupExecutor {
+
+    static final String DAY_FIELD = "day";
+    static final String CREDITOR_ID_FIELD = "idPA";
+    static final String PSP_ID_FIELD = "idPsp";
+    static final String COUNT_FIELD = "count";
+    static final String FAULT_CODES_FIELD = "faultCodes";
+
+    private final CosmosAsyncContainer container;
+    private final IntSupplier maxConcurrency;
+
+    CosmosRollupExecutor(String databaseName, String containerName, IntSupplier maxConcurrency) {
+        this.container = CosmosClientProvider.getClient().getDatabase(databaseName).getContainer(containerName);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public List<ItemResult> execute(List<RollupSink.Operation> operations) {
+        List<CosmosItemOperation> itemOperations = new ArrayList<>(operations.size());
+        for (int index = 0; index < operations.size(); index++) {
+            itemOperations.add(toItemOperation(operations.get(index), index));
+        }
+
+        CosmosBulkExecutionOptions options = new CosmosBulkExecutionOptions().setMaxMicroBatchConcurrency(maxConcurrency.getAsInt());
+        ItemResult[] results = new ItemResult[operations.size()];
+        container.<Integer>executeBulkOperations(Flux.fromIterable(itemOperations), options)
+                .doOnNext(response -> {
+                    int index = response.getOperation().getContext();
+                    results[index] = toItemResult(operations.get(index).getDelta(), response);
+                })
+                .blockLast();
+
+        for (int index = 0; index < results.length; index++) {
+            if (results[index] == null) {
+                results[index] = baseResult(operations.get(index).getDelta())
+                        .statusCode(ItemResult.STATUS_NO_RESPONSE)
+                        .error("No response returned by the bulk executor")
+                        .build();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    static ObjectNode toDocument(RollupDelta delta) {
+        ObjectNode document = JsonNodeFactory.instance.objectNode()
+                .put(Constants.ID_EVENT_FIELD, delta.getId())
+                .put(Constants.PARTITION_KEY_EVENT_FIELD, delta.getId())
+                .put(DAY_FIELD, delta.getDay())
+                .put(CREDITOR_ID_FIELD, delta.getCreditorId())
+                .put(PSP_ID_FIELD, delta.getPspId())
+                .put(COUNT_FIELD, delta.getCount());
+        ObjectNode faultCodes = document.putObject(FAULT_CODES_FIELD);
+        delta.getFaultCodes().forEach(faultCodes::put);
+        return document;
+    }
+
+    static CosmosPatchOperations toPatch(RollupDelta delta) {
+        CosmosPatchOperations patch = CosmosPatchOperations.create();
+        if (delta.getCount() > 0) {
+            patch.increment("/" + COUNT_FIELD, delta.getCount());
+        }
+        for (Map.Entry<String, Long> faultCode : delta.getFaultCodes().entrySet()) {
+            patch.increment("/" + FAULT_CODES_FIELD + "/" + escape(faultCode.getKey()), faultCode.getValue());
+        }
+        return patch;
+    }
+
+    /**
+     * Escapes a JSON Pointer segment, as defined by RFC 6901.
+     */
+    static String escape(String segment) {
+        return segment.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static CosmosItemOperation toItemOperation(RollupSink.Operation operation, int index) {
+        RollupDelta delta = operation.getDelta();
+        PartitionKey partitionKey = new PartitionKey(delta.getId());
+        return operation.isCreate()
+                ? CosmosBulkOperations.getCreateItemOperation(toDocument(delta), partitionKey, index)
+                : CosmosBulkOperations.getPatchItemOperation(delta.getId(), partitionKey, toPatch(delta), index);
+    }
+
+    private static ItemResult toItemResult(RollupDelta delta, CosmosBulkOperationResponse<Integer> response) {
+        ItemResult.ItemResultBuilder result = baseResult(delta);
+        CosmosBulkItemResponse itemResponse = response.getResponse();
+        if (itemResponse != null) {
+            result.statusCode(itemResponse.getStatusCode())
+                    .requestCharge(itemResponse.getRequestCharge())
+                    .retryAfterMillis(toMillis(itemResponse.getRetryAfterDuration()));
+        } else if (response.getException() instanceof CosmosException) {
+            CosmosException exception = (CosmosException) response.getException();
+            result.statusCode(exception.getStatusCode())
+                    .requestCharge(exception.getRequestCharge())
+                    .retryAfterMillis(toMillis(exception.getRetryAfterDuration()))
+                    .error(exception.getMessage());
+        } else {
+            result.statusCode(ItemResult.STATUS_NO_RESPONSE)
+                    .error(String.valueOf(response.getException()));
+        }
+        return result.build();
+    }
+
+    private static ItemResult.ItemResultBuilder baseResult(RollupDelta delta) {
+        return ItemResult.builder().id(delta.getId()).partitionKey(delta.getId());
+    }
+
+    private static long toMillis(Duration duration) {
+        return duration == null ? 0 : duration.toMillis();
+    }
+}
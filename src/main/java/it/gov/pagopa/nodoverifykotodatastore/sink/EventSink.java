@@ -0,0 +1,17 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+
+import java.util.List;
+
+/**
+ * The storage where the transformed events are persisted.
+ */
+public interface EventSink {
+
+    /**
+     * Persists the passed events, returning the outcome of each one.
+     * An implementation may throw if the whole batch cannot be handed over to the storage.
+     */
+    SinkResult persist(List<TransformedEvent> events);
+}
@@ -0,0 +1,88 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes the writes idempotent on the document identity, the event <code>id</code> plus the <code>PartitionKey</code>.
+ * The events of a batch with the same identity are written once, keeping the last one, and the events persisted
+ * by a previous invocation on this host instance, i.e. a retried or replayed batch, are not written again.
+ * Only the writes confirmed by the underlying sink are remembered, so a delegated write is never skipped.
+ */
+public class IdempotentEventSink implements EventSink {
+
+    private final EventSink delegate;
+    private final RecentlyPersistedCache cache;
+
+    public IdempotentEventSink(EventSink delegate, RecentlyPersistedCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the sink shared by the function instances, writing through the {@link CosmosBulkEventSink}.
+     */
+    public static IdempotentEventSink getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public SinkResult persist(List<TransformedEvent> events) {
+        List<ItemResult> skipped = new ArrayList<>();
+        Map<String, TransformedEvent> toWrite = new LinkedHashMap<>();
+        List<TransformedEvent> withoutId = new ArrayList<>();
+        for (TransformedEvent event : events) {
+            if (event.getId() == null) {
+                withoutId.add(event);
+                continue;
+            }
+            String key = identity(event.getPartitionKey(), event.getId());
+            if (cache.contains(key)) {
+                skipped.add(ItemResult.builder()
+                        .id(event.getId())
+                        .partitionKey(event.getPartitionKey())
+                        .statusCode(ItemResult.STATUS_SKIPPED)
+                        .alreadyExisting(true)
+                        .build());
+            } else {
+                toWrite.remove(key);
+                toWrite.put(key, event);
+            }
+        }
+
+        List<TransformedEvent> pending = new ArrayList<>(toWrite.values());
+        pending.addAll(withoutId);
+        if (pending.isEmpty()) {
+            return new SinkResult(skipped, 0, 0, 0);
+        }
+
+        SinkResult result = delegate.persist(pending);
+        for (ItemResult item : result.getItems()) {
+            if (item.getId() != null && item.isSuccess() && item.getStatusCode() != ItemResult.STATUS_DELEGATED) {
+                cache.add(identity(item.getPartitionKey(), item.getId()));
+            }
+        }
+        List<ItemResult> items = new ArrayList<>(result.getItems());
+        items.addAll(skipped);
+        return new SinkResult(items, result.getRequestCharge(), result.getAttempts(), result.getThrottledWrites());
+    }
+
+    private static String identity(String partitionKey, String id) {
+        return partitionKey + "|" + id;
+    }
+
+    private static class Holder {
+        private static final IdempotentEventSink INSTANCE = new IdempotentEventSink(
+                CosmosBulkEventSink.getInstance(),
+                new RecentlyPersistedCache(
+                        AppSettings.getInt(Constants.IDEMPOTENCY_CACHE_SIZE_SETTING, 10_000),
+                        AppSettings.getLong(Constants.IDEMPOTENCY_CACHE_TTL_SECONDS_SETTING, 900) * 1000,
+                        System::nanoTime));
+    }
+}
@@ -0,0 +1,84 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in of the events container, keeping the documents in memory with upsert semantics.
+ * The request charge is a rough estimate of the one of a Cosmos DB write, proportional to the document size.
+ */
+public class InMemoryEventSink implements EventSink {
+
+    private static final double REQUEST_CHARGE_PER_KB = 5.5;
+    private static final char KEY_SEPARATOR = '|';
+
+    private final Map<String, String> documents = new ConcurrentHashMap<>();
+
+    @Override
+    public SinkResult persist(List<TransformedEvent> events) {
+        List<ItemResult> items = new ArrayList<>(events.size());
+        double requestCharge = 0;
+        for (TransformedEvent event : events) {
+            String previous = documents.put(key(event.getPartitionKey(), event.getId()), event.getDocument());
+            double itemCharge = Math.ceil(event.getDocument().length() / 1024.0) * REQUEST_CHARGE_PER_KB;
+            requestCharge += itemCharge;
+            items.add(ItemResult.builder()
+                    .id(event.getId())
+                    .partitionKey(event.getPartitionKey())
+                    .statusCode(previous == null ? 201 : 200)
+                    .requestCharge(itemCharge)
+                    .build());
+        }
+        return new SinkResult(items, requestCharge, 1, 0);
+    }
+
+    /**
+     * Returns the document with the passed partition key and id, or <code>null</code> if it was never written.
+     */
+    public String getDocument(String partitionKey, String id) {
+        return documents.get(key(partitionKey, id));
+    }
+
+    /**
+     * Returns the documents with the passed partition key, in order of id.
+     */
+    public List<String> getDocuments(String partitionKey) {
+        String prefix = key(partitionKey, "");
+        Map<String, String> sorted = new TreeMap<>();
+        documents.forEach((key, document) -> {
+            if (key.startsWith(prefix)) {
+                sorted.put(key, document);
+            }
+        });
+        return new ArrayList<>(sorted.values());
+    }
+
+    /**
+     * Returns the partition keys of the documents written so far.
+     */
+    public Set<String> getPartitionKeys() {
+        Set<String> partitionKeys = ConcurrentHashMap.newKeySet();
+        for (String key : documents.keySet()) {
+            partitionKeys.add(key.substring(0, key.indexOf(KEY_SEPARATOR)));
+        }
+        return partitionKeys;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public void clear() {
+        documents.clear();
+    }
+
+    private static String key(String partitionKey, String id) {
+        return partitionKey + KEY_SEPARATOR + id;
+    }
+}
@@ -0,0 +1,60 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.gov.pagopa.nodoverifykotodatastore.model.RollupDelta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in of the rollup container, keeping the documents in memory with the semantics of the Cosmos DB
+ * patches and creations: a patch on a missing document and a creation of an existing one fail.
+ */
+public class InMemoryRollupExecutor implements RollupSink.RollupExecutor {
+
+    private static final double REQUEST_CHARGE = 10;
+
+    private final Map<String, ObjectNode> documents = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized List<ItemResult> execute(List<RollupSink.Operation> operations) {
+        List<ItemResult> items = new ArrayList<>(operations.size());
+        for (RollupSink.Operation operation : operations) {
+            RollupDelta delta = operation.getDelta();
+            ObjectNode document = documents.get(delta.getId());
+            int statusCode;
+            if (operation.isCreate()) {
+                statusCode = document != null ? 409 : 201;
+                documents.putIfAbsent(delta.getId(), CosmosRollupExecutor.toDocument(delta));
+            } else if (document == null) {
+                statusCode = 404;
+            } else {
+                statusCode = 200;
+                document.put(CosmosRollupExecutor.COUNT_FIELD, document.path(CosmosRollupExecutor.COUNT_FIELD).asLong() + delta.getCount());
+                ObjectNode faultCodes = (ObjectNode) document.get(CosmosRollupExecutor.FAULT_CODES_FIELD);
+                delta.getFaultCodes().forEach((faultCode, increment) -> faultCodes.put(faultCode, faultCodes.path(faultCode).asLong() + increment));
+            }
+            items.add(ItemResult.builder()
+                    .id(delta.getId())
+                    .partitionKey(delta.getId())
+                    .statusCode(statusCode)
+                    .requestCharge(REQUEST_CHARGE)
+                    .build());
+        }
+        return items;
+    }
+
+    /**
+     * Returns the rollup document with the passed id, or <code>null</code> if it was never written.
+     */
+    public synchronized ObjectNode getDocument(String id) {
+        ObjectNode document = documents.get(id);
+        return document == null ? null : document.deepCopy();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+}
@@ -0,0 +1,63 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The outcome of the write of a single event.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ItemResult {
+
+    /**
+     * Status of an event handed over to a storage that does not report the single outcomes, i.e. an output binding.
+     */
+    public static final int STATUS_DELEGATED = 0;
+
+    /**
+     * Status of an event not written because already persisted.
+     */
+    public static final int STATUS_SKIPPED = 1;
+
+    /**
+     * Status of an event whose write failed without a response from the storage.
+     */
+    public static final int STATUS_NO_RESPONSE = -1;
+
+    private static final int STATUS_CREATED = 201;
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private String id;
+    private String partitionKey;
+    private int statusCode;
+    private double requestCharge;
+    private long retryAfterMillis;
+    private boolean alreadyExisting;
+    private String error;
+
+    public boolean isSuccess() {
+        return statusCode == STATUS_DELEGATED || (statusCode >= 200 && statusCode < 300) || alreadyExisting;
+    }
+
+    /**
+     * Tells whether the write created the document, that did not exist before, in any write mode.
+     */
+    public boolean isCreated() {
+        return statusCode == STATUS_CREATED;
+    }
+
+    public boolean isThrottled() {
+        return statusCode == STATUS_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Tells whether the write can be attempted again: throttled requests, timeouts and unavailable service.
+     */
+    public boolean isTransient() {
+        return statusCode == STATUS_TOO_MANY_REQUESTS || statusCode == 408 || statusCode == 449 || statusCode == 503;
+    }
+}
@@ -0,0 +1,30 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import com.microsoft.azure.functions.OutputBinding;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.service.VerifyKOEventTransformer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Hands the events over to the Cosmos DB output binding of the function, that writes them once the
+ * invocation completes. The single outcomes are not known, so the events are reported as delegated.
+ */
+public class OutputBindingEventSink implements EventSink {
+
+    private final OutputBinding<String> documentdb;
+
+    public OutputBindingEventSink(OutputBinding<String> documentdb) {
+        this.documentdb = documentdb;
+    }
+
+    @Override
+    public SinkResult persist(List<TransformedEvent> events) {
+        documentdb.setValue(VerifyKOEventTransformer.toJsonArray(events));
+        List<ItemResult> items = events.stream()
+                .map(event -> ItemResult.builder().id(event.getId()).partitionKey(event.getPartitionKey()).statusCode(ItemResult.STATUS_DELEGATED).build())
+                .collect(Collectors.toList());
+        return new SinkResult(items, 0, 1, 0);
+    }
+}
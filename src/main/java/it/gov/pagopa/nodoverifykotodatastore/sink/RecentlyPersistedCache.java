@@ -0,0 +1,58 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the identities of the documents recently persisted by this host instance.
+ * An entry is evicted once its time to live is elapsed or, when the cache is full, in insertion order.
+ */
+public class RecentlyPersistedCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, Long> expirations = new LinkedHashMap<>();
+
+    public RecentlyPersistedCache(int maxSize, long ttlMillis, LongSupplier nanoClock) {
+        if (maxSize < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("The size and the time to live of the cache must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.nanoClock = nanoClock;
+    }
+
+    public synchronized boolean contains(String key) {
+        Long expiration = expirations.get(key);
+        if (expiration == null) {
+            return false;
+        }
+        if (expiration - nanoClock.getAsLong() <= 0) {
+            expirations.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void add(String key) {
+        long now = nanoClock.getAsLong();
+        expirations.remove(key);
+        expirations.put(key, now + ttlNanos);
+
+        Iterator<Map.Entry<String, Long>> eldest = expirations.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (expirations.size() <= maxSize && entry.getValue() - now > 0) {
+                break;
+            }
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return expirations.size();
+    }
+}
@@ -0,0 +1,147 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.RollupDelta;
+import it.gov.pagopa.nodoverifykotodatastore.tuning.AdaptiveController;
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies the increments of the KO counters to the rollup documents as delta upserts: each delta is first
+ * written as a patch incrementing the counters of the existing document and, if the document does not exist yet,
+ * as the creation of a document holding the delta itself. A creation conflicting with a concurrent one is
+ * written again as a patch. The throttled writes are retried as by the {@link CosmosBulkEventSink}, but not the
+ * timed out or unavailable ones, as their increments may have been applied: they are reported as failed, so that a
+ * counter may miss a batch rather than count it twice.
+ */
+public class RollupSink {
+
+    /**
+     * The operations a single Cosmos DB patch can hold.
+     */
+    static final int MAX_PATCH_OPERATIONS = 10;
+
+    private static final int STATUS_NOT_FOUND = 404;
+    private static final int STATUS_CONFLICT = 409;
+    private static final int STATUS_RETRY_WITH = 449;
+
+    private final RollupExecutor executor;
+    private final int maxAttempts;
+    private final CosmosBulkEventSink.Sleeper sleeper;
+
+    public RollupSink(RollupExecutor executor, int maxAttempts, CosmosBulkEventSink.Sleeper sleeper) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The max attempts of the rollup writes must be positive.");
+        }
+        this.executor = executor;
+        this.maxAttempts = maxAttempts;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Returns the sink shared by the function instances, writing on the rollup container.
+     * The Cosmos DB client is created on the first call.
+     */
+    public static RollupSink getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public SinkResult apply(List<RollupDelta> deltas) {
+        List<Operation> pending = new ArrayList<>();
+        for (RollupDelta delta : deltas) {
+            for (RollupDelta part : delta.split(MAX_PATCH_OPERATIONS)) {
+                pending.add(new Operation(part, false));
+            }
+        }
+        pending.sort(Comparator.comparing(operation -> operation.getDelta().getId()));
+
+        List<ItemResult> items = new ArrayList<>(pending.size());
+        double requestCharge = 0;
+        int throttledWrites = 0;
+        int attempt = 0;
+        while (!pending.isEmpty()) {
+            attempt++;
+            List<ItemResult> results = executor.execute(pending);
+            List<Operation> retries = new ArrayList<>();
+            long retryAfterMillis = -1;
+            for (int index = 0; index < pending.size(); index++) {
+                Operation operation = pending.get(index);
+                ItemResult result = results.get(index);
+                requestCharge += result.getRequestCharge();
+                if (result.isThrottled()) {
+                    throttledWrites++;
+                }
+                if (attempt == maxAttempts) {
+                    items.add(result);
+                } else if (!operation.isCreate() && result.getStatusCode() == STATUS_NOT_FOUND) {
+                    retries.add(new Operation(operation.getDelta(), true));
+                } else if (operation.isCreate() && result.getStatusCode() == STATUS_CONFLICT) {
+                    retries.add(new Operation(operation.getDelta(), false));
+                } else if (result.isThrottled() || result.getStatusCode() == STATUS_RETRY_WITH) {
+                    retries.add(operation);
+                    retryAfterMillis = Math.max(retryAfterMillis, result.getRetryAfterMillis());
+                } else {
+                    items.add(result);
+                }
+            }
+            pending = retries;
+            if (retryAfterMillis >= 0) {
+                sleep(Math.max(retryAfterMillis, CosmosBulkEventSink.backoff(attempt)));
+            }
+        }
+        return new SinkResult(items, requestCharge, attempt, throttledWrites);
+    }
+
+    private void sleep(long millis) {
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry the throttled rollup writes.", e);
+        }
+    }
+
+    /**
+     * The write of a delta on its rollup document, either as a patch or as a creation.
+     */
+    public static class Operation {
+
+        private final RollupDelta delta;
+        private final boolean create;
+
+        public Operation(RollupDelta delta, boolean create) {
+            this.delta = delta;
+            this.create = create;
+        }
+
+        public RollupDelta getDelta() {
+            return delta;
+        }
+
+        public boolean isCreate() {
+            return create;
+        }
+    }
+
+    /**
+     * Executes a single round of rollup writes.
+     */
+    @FunctionalInterface
+    public interface RollupExecutor {
+
+        /**
+         * Writes the passed operations, returning the outcome of each one in the same order.
+         */
+        List<ItemResult> execute(List<Operation> operations);
+    }
+
+    private static class Holder {
+        private static final RollupSink INSTANCE = new RollupSink(
+                new CosmosRollupExecutor(Constants.EVENTS_DATABASE_NAME, Constants.ROLLUP_CONTAINER_NAME, AdaptiveController.getInstance()::getConcurrency),
+                AppSettings.getInt(Constants.COSMOS_BULK_MAX_ATTEMPTS_SETTING, 5),
+                Thread::sleep);
+    }
+}
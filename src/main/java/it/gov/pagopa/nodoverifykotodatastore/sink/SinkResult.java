@@ -0,0 +1,47 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The outcome of the persistence of a batch of events.
+ */
+@Getter
+@AllArgsConstructor
+public class SinkResult {
+
+    /**
+     * The final outcome of each event.
+     */
+    private final List<ItemResult> items;
+
+    /**
+     * The request units charged for the batch, retries included.
+     */
+    private final double requestCharge;
+
+    /**
+     * The write attempts made for the batch.
+     */
+    private final int attempts;
+
+    /**
+     * The writes throttled by the storage, retries included.
+     */
+    private final int throttledWrites;
+
+    public List<ItemResult> getFailedItems() {
+        return items.stream().filter(item -> !item.isSuccess()).collect(Collectors.toList());
+    }
+
+    public long getSkippedCount() {
+        return items.stream().filter(item -> item.getStatusCode() == ItemResult.STATUS_SKIPPED).count();
+    }
+
+    public boolean isSuccess() {
+        return items.stream().allMatch(ItemResult::isSuccess);
+    }
+}
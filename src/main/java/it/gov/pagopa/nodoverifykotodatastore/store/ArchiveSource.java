@@ -0,0 +1,29 @@
+package it.gov.pagopa.nodoverifykotodatastore.store;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveDocument;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchivePage;
+
+import java.util.List;
+
+/**
+ * Reads the persisted events older than a cutoff to archive them, and deletes them once archived.
+ */
+public interface ArchiveSource {
+
+    /**
+     * Returns a page of the events persisted before the cutoff, in order of <code>PartitionKey</code>.
+     * The token stays valid after the events read so far are deleted.
+     *
+     * @param cutoffEpochSeconds the events last written before this instant are returned
+     * @param continuationToken the token returned with the previous page, <code>null</code> for the first page
+     * @param pageSize the maximum number of events of the page
+     */
+    ArchivePage read(long cutoffEpochSeconds, String continuationToken, int pageSize);
+
+    /**
+     * Deletes the passed events, ignoring the ones already deleted.
+     *
+     * @return the number of events deleted
+     */
+    long delete(List<ArchiveDocument> documents);
+}
@@ -0,0 +1,95 @@
+package it.gov.pagopa.nodoverifykotodatastore.store;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.gov.pagopa.nodoverifykotodatastore.exception.PersistenceException;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveDocument;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchivePage;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.CosmosClientProvider;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the aged documents of the events container with a cross-partition query ordered by <code>PartitionKey</code>,
+ * filtering on the <code>_ts</code> system property (the time of the last write), and deletes them with bulk operations.
+ * The SDK returns each page already parsed into trees, so every document is serialized once here, without the system
+ * properties, and then written to the archive as it is.
+ */
+public class CosmosArchiveSource implements ArchiveSource {
+
+    private static final String SELECT_AGED = "SELECT * FROM c WHERE c._ts < @cutoff ORDER BY c." + Constants.PARTITION_KEY_EVENT_FIELD;
+    private static final int STATUS_NOT_FOUND = 404;
+
+    private final CosmosAsyncContainer container;
+
+    public CosmosArchiveSource(String databaseName, String containerName) {
+        this.container = CosmosClientProvider.getClient().getDatabase(databaseName).getContainer(containerName);
+    }
+
+    @Override
+    public ArchivePage read(long cutoffEpochSeconds, String continuationToken, int pageSize) {
+        SqlQuerySpec query = new SqlQuerySpec(SELECT_AGED, new SqlParameter("@cutoff", cutoffEpochSeconds));
+        FeedResponse<JsonNode> response = container.queryItems(query, new CosmosQueryRequestOptions(), JsonNode.class)
+                .byPage(continuationToken, pageSize)
+                .blockFirst();
+        if (response == null) {
+            return new ArchivePage(List.of(), null);
+        }
+        List<ArchiveDocument> documents = new ArrayList<>(response.getResults().size());
+        for (JsonNode document : response.getResults()) {
+            if (document instanceof ObjectNode) {
+                ((ObjectNode) document).remove(CosmosEventStore.SYSTEM_PROPERTIES);
+            }
+            documents.add(new ArchiveDocument(
+                    document.path(Constants.ID_EVENT_FIELD).asText(),
+                    document.path(Constants.PARTITION_KEY_EVENT_FIELD).asText(),
+                    document.toString()));
+        }
+        return new ArchivePage(documents, response.getContinuationToken());
+    }
+
+    @Override
+    public long delete(List<ArchiveDocument> documents) {
+        List<CosmosItemOperation> operations = new ArrayList<>(documents.size());
+        for (ArchiveDocument document : documents) {
+            operations.add(CosmosBulkOperations.getDeleteItemOperation(document.getId(), new PartitionKey(document.getPartitionKey())));
+        }
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        container.executeBulkOperations(Flux.fromIterable(operations))
+                .doOnNext(response -> {
+                    int statusCode = getStatusCode(response);
+                    if (statusCode >= 200 && statusCode < 300) {
+                        deleted.incrementAndGet();
+                    } else if (statusCode != STATUS_NOT_FOUND) {
+                        failed.incrementAndGet();
+                    }
+                })
+                .blockLast();
+        if (failed.get() > 0) {
+            throw new PersistenceException("Error deleting " + failed.get() + " archived events.");
+        }
+        return deleted.get();
+    }
+
+    private static int getStatusCode(CosmosBulkOperationResponse<Object> response) {
+        if (response.getResponse() != null) {
+            return response.getResponse().getStatusCode();
+        }
+        return response.getException() instanceof CosmosException ? ((CosmosException) response.getException()).getStatusCode() : -1;
+    }
+}
@@ -0,0 +1,96 @@
+package it.gov.pagopa.nodoverifykotodatastore.store;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventPage;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+import it.gov.pagopa.nodoverifykotodatastore.util.CosmosClientProvider;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the events container with single-partition queries, removing the Cosmos DB system properties
+ * from the returned documents. The SDK returns each page already parsed into trees, so every document is
+ * serialized once here, to be copied raw into the response; only the in-memory store hands over the stored strings.
+ */
+public class CosmosEventStore implements EventStore {
+
+    private static final String SELECT_ALL = "SELECT * FROM c";
+    private static final String SELECT_BY_NOTICE_NUMBER = "SELECT * FROM c WHERE c." + Constants.NOTICE_NUMBER_EVENT_FIELD + " = @noticeNumber";
+    private static final String SELECT_IDS = "SELECT VALUE c.id FROM c WHERE ARRAY_CONTAINS(@ids, c.id)";
+    private static final String SELECT_SALTS = "SELECT DISTINCT VALUE c." + Constants.PARTITION_KEY_SALTING_EVENT_FIELD + ".salt FROM c WHERE c."
+            + Constants.PARTITION_KEY_SALTING_EVENT_FIELD + ".baseKey = @baseKey";
+    static final List<String> SYSTEM_PROPERTIES = List.of("_rid", "_self", "_etag", "_attachments", "_ts");
+
+    private final CosmosAsyncContainer container;
+
+    public CosmosEventStore(String databaseName, String containerName) {
+        this.container = CosmosClientProvider.getClient().getDatabase(databaseName).getContainer(containerName);
+    }
+
+    /**
+     * Returns the store shared by the function instances, reading the events container.
+     * The Cosmos DB client is created on the first call.
+     */
+    public static CosmosEventStore getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public EventPage query(String partitionKey, String noticeNumber, String continuationToken, int pageSize) {
+        SqlQuerySpec query = noticeNumber == null
+                ? new SqlQuerySpec(SELECT_ALL)
+                : new SqlQuerySpec(SELECT_BY_NOTICE_NUMBER, new SqlParameter("@noticeNumber", noticeNumber));
+        CosmosQueryRequestOptions options = new CosmosQueryRequestOptions().setPartitionKey(new PartitionKey(partitionKey));
+        FeedResponse<JsonNode> response = container.queryItems(query, options, JsonNode.class)
+                .byPage(continuationToken, pageSize)
+                .blockFirst();
+        if (response == null) {
+            return new EventPage(List.of(), null);
+        }
+        List<String> documents = new ArrayList<>(response.getResults().size());
+        for (JsonNode document : response.getResults()) {
+            if (document instanceof ObjectNode) {
+                ((ObjectNode) document).remove(SYSTEM_PROPERTIES);
+            }
+            documents.add(document.toString());
+        }
+        return new EventPage(documents, response.getContinuationToken());
+    }
+
+    @Override
+    public Set<String> findIds(String partitionKey, List<String> ids) {
+        SqlQuerySpec query = new SqlQuerySpec(SELECT_IDS, new SqlParameter("@ids", ids));
+        CosmosQueryRequestOptions options = new CosmosQueryRequestOptions().setPartitionKey(new PartitionKey(partitionKey));
+        List<String> found = container.queryItems(query, options, String.class)
+                .collectList()
+                .block();
+        return found == null ? Set.of() : new HashSet<>(found);
+    }
+
+    /**
+     * Finds the salts used for the passed partition key from the <code>partitionKeySalting</code> field of the salted
+     * documents, with a single cross-partition query in place of a query on each salted partition.
+     */
+    @Override
+    public Set<Integer> findSalts(String partitionKey, int buckets) {
+        SqlQuerySpec query = new SqlQuerySpec(SELECT_SALTS, new SqlParameter("@baseKey", partitionKey));
+        List<Integer> salts = container.queryItems(query, new CosmosQueryRequestOptions(), Integer.class)
+                .collectList()
+                .block();
+        return salts == null ? Set.of() : new HashSet<>(salts);
+    }
+
+    private static class Holder {
+        private static final CosmosEventStore INSTANCE = new CosmosEventStore(Constants.EVENTS_DATABASE_NAME, Constants.EVENTS_CONTAINER_NAME);
+    }
+}
@@ -0,0 +1,38 @@
+package it.gov.pagopa.nodoverifykotodatastore.store;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.EventPage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the persisted events, one partition at a time.
+ */
+public interface EventStore {
+
+    /**
+     * Returns a page of the events with the passed partition key.
+     *
+     * @param noticeNumber the <code>debtorPosition.noticeNumber</code> of the events, <code>null</code> for all the events
+     * @param continuationToken the token returned with the previous page, <code>null</code> for the first page
+     * @param pageSize the maximum number of events of the page
+     */
+    EventPage query(String partitionKey, String noticeNumber, String continuationToken, int pageSize);
+
+    /**
+     * Returns which of the passed ids are of events with the passed partition key.
+     */
+    Set<String> findIds(String partitionKey, List<String> ids);
+
+    /**
+     * Returns the salts of the passed partition key that hold any event, so that the readers skip the salted
+     * partitions never written. By default all the salts, as a store that cannot tell them is read in full.
+     *
+     * @param buckets the salt buckets of the hot partition keys
+     */
+    default Set<Integer> findSalts(String partitionKey, int buckets) {
+        return IntStream.range(0, buckets).boxed().collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,75 @@
+package it.gov.pagopa.nodoverifykotodatastore.store;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveDocument;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchivePage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Stand-in of the events container for the archive export, holding the documents with the time of their last write
+ * in order of <code>PartitionKey</code> and <code>id</code>. The continuation token is the key of the last document
+ * returned, so that it stays valid when the documents read are deleted.
+ */
+public class InMemoryArchiveSource implements ArchiveSource {
+
+    private static final char KEY_SEPARATOR = '\n';
+
+    private final NavigableMap<String, Entry> documents = new TreeMap<>();
+
+    public synchronized void add(ArchiveDocument document, long writtenEpochSeconds) {
+        documents.put(toKey(document), new Entry(document, writtenEpochSeconds));
+    }
+
+    public synchronized List<ArchiveDocument> getDocuments() {
+        List<ArchiveDocument> result = new ArrayList<>(documents.size());
+        documents.values().forEach(entry -> result.add(entry.document));
+        return result;
+    }
+
+    @Override
+    public synchronized ArchivePage read(long cutoffEpochSeconds, String continuationToken, int pageSize) {
+        Map<String, Entry> following = continuationToken == null ? documents : documents.tailMap(continuationToken, false);
+        List<ArchiveDocument> page = new ArrayList<>(pageSize);
+        String lastKey = null;
+        for (Map.Entry<String, Entry> entry : following.entrySet()) {
+            if (entry.getValue().writtenEpochSeconds >= cutoffEpochSeconds) {
+                continue;
+            }
+            if (page.size() == pageSize) {
+                return new ArchivePage(page, lastKey);
+            }
+            page.add(entry.getValue().document);
+            lastKey = entry.getKey();
+        }
+        return new ArchivePage(page, null);
+    }
+
+    @Override
+    public synchronized long delete(List<ArchiveDocument> deleted) {
+        long count = 0;
+        for (ArchiveDocument document : deleted) {
+            if (documents.remove(toKey(document)) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String toKey(ArchiveDocument document) {
+        return document.getPartitionKey() + KEY_SEPARATOR + document.getId();
+    }
+
+    private static class Entry {
+        private final ArchiveDocument document;
+        private final long writtenEpochSeconds;
+
+        private Entry(ArchiveDocument document, long writtenEpochSeconds) {
+            this.document = document;
+            this.writtenEpochSeconds = writtenEpochSeconds;
+        }
+    }
+}
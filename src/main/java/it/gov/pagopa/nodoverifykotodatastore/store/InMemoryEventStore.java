@@ -0,0 +1,89 @@
+package it.gov.pagopa.nodoverifykotodatastore.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventPage;
+import it.gov.pagopa.nodoverifykotodatastore.service.HotPartitionKeySalter;
+import it.gov.pagopa.nodoverifykotodatastore.sink.InMemoryEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stand-in of the events container for the queries, reading the documents written on an {@link InMemoryEventSink}
+ * in order of <code>id</code>. The continuation token is the offset of the following page.
+ */
+public class InMemoryEventStore implements EventStore {
+
+    private final InMemoryEventSink sink;
+
+    public InMemoryEventStore(InMemoryEventSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Returns the store shared by the function instances with the <code>IN_MEMORY</code> persistence engine.
+     */
+    public static InMemoryEventStore getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public InMemoryEventSink getSink() {
+        return sink;
+    }
+
+    @Override
+    public EventPage query(String partitionKey, String noticeNumber, String continuationToken, int pageSize) {
+        List<String> documents = sink.getDocuments(partitionKey);
+        if (noticeNumber != null) {
+            List<String> matching = new ArrayList<>();
+            for (String document : documents) {
+                if (noticeNumber.equals(readNoticeNumber(document))) {
+                    matching.add(document);
+                }
+            }
+            documents = matching;
+        }
+        int offset = continuationToken == null ? 0 : Integer.parseInt(continuationToken);
+        int end = Math.min(documents.size(), offset + pageSize);
+        return new EventPage(new ArrayList<>(documents.subList(Math.min(offset, end), end)), end < documents.size() ? String.valueOf(end) : null);
+    }
+
+    @Override
+    public Set<String> findIds(String partitionKey, List<String> ids) {
+        Set<String> found = new HashSet<>();
+        for (String id : ids) {
+            if (id != null && sink.getDocument(partitionKey, id) != null) {
+                found.add(id);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Set<Integer> findSalts(String partitionKey, int buckets) {
+        String prefix = partitionKey + HotPartitionKeySalter.SALT_SEPARATOR;
+        Set<Integer> salts = new HashSet<>();
+        for (String storedKey : sink.getPartitionKeys()) {
+            if (storedKey.startsWith(prefix)) {
+                salts.add(Integer.parseInt(storedKey.substring(prefix.length())));
+            }
+        }
+        return salts;
+    }
+
+    private static String readNoticeNumber(String document) {
+        try {
+            return ObjectMapperUtils.readTree(document).path("debtorPosition").path("noticeNumber").asText(null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Holder {
+        private static final InMemoryEventStore INSTANCE = new InMemoryEventStore(new InMemoryEventSink());
+    }
+}
@@ -0,0 +1,132 @@
+package it.gov.pagopa.nodoverifykotodatastore.tuning;
+
+import it.gov.pagopa.nodoverifykotodatastore.util.AppSettings;
+import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
+
+/**
+ * Tunes the persistence of this host instance from the outcome of the processed batches, to keep the end-to-end
+ * latency of the events within a target. Processing time and backlog lag are smoothed over the last batches;
+ * then, after every batch:
+ * <ul>
+ *     <li>if some writes were throttled, the concurrency of the bulk writes is halved;</li>
+ *     <li>else if the batches take longer than the target, the flush size is halved, so that each write completes sooner;</li>
+ *     <li>else if the events wait in Event Hub longer than the target, the concurrency is increased by one and the
+ *     flush size doubled, to drain the backlog;</li>
+ *     <li>else, after some consecutive batches with no throttled writes, the concurrency is increased by one until it
+ *     gets back to the value it had when last throttled, so that a burst of throttling does not keep it low when the
+ *     lag is unknown or within the target.</li>
+ * </ul>
+ * The controller cannot change the trigger configuration, so it only recommends the <code>host.json</code> values
+ * matching the flush size it converged to.
+ */
+public class AdaptiveController {
+
+    private static final double SMOOTHING = 0.3;
+    private static final int MAX_EVENT_BATCH_SIZE = 1000;
+    private static final int PREFETCH_FACTOR = 2;
+    private static final int RECOVERY_BATCHES = 10;
+
+    private final boolean enabled;
+    private final long targetLatencyMillis;
+    private final int maxConcurrency;
+    private final int maxFlushSize;
+
+    private volatile int concurrency;
+    private volatile int flushSize;
+    private double latencyMillis = -1;
+    private double lagMillis = -1;
+    private double requestUnitsPerSecond;
+    private int throttledConcurrency;
+    private int unthrottledBatches;
+
+    public AdaptiveController(boolean enabled, long targetLatencyMillis, int initialConcurrency, int maxConcurrency, int initialFlushSize, int maxFlushSize) {
+        if (targetLatencyMillis < 1 || initialConcurrency < 1 || initialFlushSize < 1) {
+            throw new IllegalArgumentException("The target latency, the concurrency and the flush size must be positive.");
+        }
+        this.enabled = enabled;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.maxConcurrency = Math.max(initialConcurrency, maxConcurrency);
+        this.maxFlushSize = Math.max(initialFlushSize, maxFlushSize);
+        this.concurrency = initialConcurrency;
+        this.flushSize = initialFlushSize;
+    }
+
+    /**
+     * Returns the controller shared by the function instances. Disabled by the app settings, it keeps the configured
+     * bulk concurrency and aggregation size.
+     */
+    public static AdaptiveController getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    /**
+     * Updates the tuning with the outcome of a batch.
+     *
+     * @return whether the concurrency or the flush size changed
+     */
+    public synchronized boolean observe(BatchObservation observation) {
+        latencyMillis = smooth(latencyMillis, observation.getProcessingMillis());
+        if (observation.getLagMillis() >= 0) {
+            lagMillis = smooth(lagMillis, observation.getLagMillis());
+        }
+        if (observation.getProcessingMillis() > 0) {
+            requestUnitsPerSecond = smooth(requestUnitsPerSecond, observation.getRequestCharge() * 1000 / observation.getProcessingMillis());
+        }
+
+        int previousConcurrency = concurrency;
+        int previousFlushSize = flushSize;
+        if (observation.getThrottledWrites() > 0) {
+            throttledConcurrency = concurrency;
+            unthrottledBatches = 0;
+            concurrency = Math.max(1, concurrency / 2);
+        } else if (latencyMillis > targetLatencyMillis) {
+            unthrottledBatches++;
+            flushSize = Math.max(1, flushSize / 2);
+        } else if (lagMillis > targetLatencyMillis) {
+            unthrottledBatches++;
+            concurrency = Math.min(maxConcurrency, concurrency + 1);
+            flushSize = Math.min(maxFlushSize, flushSize * 2);
+        } else if (++unthrottledBatches >= RECOVERY_BATCHES && concurrency < throttledConcurrency) {
+            unthrottledBatches = 0;
+            concurrency++;
+        }
+        return concurrency != previousConcurrency || flushSize != previousFlushSize;
+    }
+
+    public synchronized Recommendation getRecommendation() {
+        int maxEventBatchSize = Math.min(MAX_EVENT_BATCH_SIZE, flushSize);
+        return Recommendation.builder()
+                .concurrency(concurrency)
+                .flushSize(flushSize)
+                .maxEventBatchSize(maxEventBatchSize)
+                .prefetchCount(maxEventBatchSize * PREFETCH_FACTOR)
+                .requestUnitsPerSecond(requestUnitsPerSecond)
+                .build();
+    }
+
+    private static double smooth(double average, double sample) {
+        return average < 0 ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    private static class Holder {
+        private static final AdaptiveController INSTANCE = new AdaptiveController(
+                AppSettings.getBoolean(Constants.ADAPTIVE_TUNING_SETTING, false),
+                AppSettings.getLong(Constants.ADAPTIVE_TARGET_LATENCY_MILLIS_SETTING, 2000),
+                AppSettings.getInt(Constants.COSMOS_BULK_MAX_CONCURRENCY_SETTING, 1),
+                AppSettings.getInt(Constants.ADAPTIVE_MAX_CONCURRENCY_SETTING, 8),
+                Math.max(1, AppSettings.getInt(Constants.AGGREGATION_MAX_BATCH_SIZE_SETTING, 0)),
+                AppSettings.getInt(Constants.ADAPTIVE_MAX_FLUSH_SIZE_SETTING, 1000));
+    }
+}
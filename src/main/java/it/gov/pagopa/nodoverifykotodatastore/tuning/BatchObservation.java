@@ -0,0 +1,30 @@
+package it.gov.pagopa.nodoverifykotodatastore.tuning;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * What was observed while processing a batch.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BatchObservation {
+
+    private int batchSize;
+
+    /**
+     * The time spent by the invocation, from the trigger to the completed write.
+     */
+    private long processingMillis;
+
+    private int throttledWrites;
+    private double requestCharge;
+
+    /**
+     * The time the oldest event of the batch waited in Event Hub, negative if unknown.
+     */
+    private long lagMillis;
+}
@@ -0,0 +1,28 @@
+package it.gov.pagopa.nodoverifykotodatastore.tuning;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The Event Hub trigger values of <code>host.json</code> suggested by the {@link AdaptiveController}, together with
+ * the values it is applying to the function itself.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Recommendation {
+
+    private int concurrency;
+    private int flushSize;
+    private int maxEventBatchSize;
+    private int prefetchCount;
+    private double requestUnitsPerSecond;
+
+    @Override
+    public String toString() {
+        return String.format("{concurrency: %d, flushSize: %d, host.json maxEventBatchSize: %d, host.json prefetchCount: %d, observed RU/s: %.1f}",
+                concurrency, flushSize, maxEventBatchSize, prefetchCount, requestUnitsPerSecond);
+    }
+}
@@ -0,0 +1,45 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Reads the Function App settings, exposed to the function as environment variables.
+ */
+public class AppSettings {
+
+    private AppSettings() {}
+
+    public static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        return get(name, defaultValue, Integer::parseInt);
+    }
+
+    public static long getLong(String name, long defaultValue) {
+        return get(name, defaultValue, Long::parseLong);
+    }
+
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        return get(name, defaultValue, Boolean::parseBoolean);
+    }
+
+    public static <E extends Enum<E>> E getEnum(String name, Class<E> type, E defaultValue) {
+        return get(name, defaultValue, value -> Enum.valueOf(type, value.toUpperCase(Locale.ROOT)));
+    }
+
+    private static <T> T get(String name, T defaultValue, Function<String, T> parser) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value [" + value + "] for the app setting [" + name + "].", e);
+        }
+    }
+}
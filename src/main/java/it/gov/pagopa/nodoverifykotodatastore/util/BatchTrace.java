@@ -0,0 +1,79 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the compact, size-capped JSON record logged for a batch: the counts of the batch and only the first
+ * ids of its events, so that the record does not grow with the batch. It is meant to be built lazily,
+ * through a log message supplier, so that nothing is computed when the log level is disabled.
+ */
+public class BatchTrace {
+
+    private BatchTrace() {}
+
+    public static String ofTransformedEvents(String invocationId, int retryIndex, List<TransformedEvent> events, int failedEvents, int maxIds) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = ObjectMapperUtils.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField("invocationId", invocationId);
+            generator.writeNumberField("retryIndex", retryIndex);
+            generator.writeNumberField("events", events.size() + failedEvents);
+            generator.writeNumberField("persisted", events.size());
+            generator.writeNumberField("failed", failedEvents);
+
+            Set<String> partitionKeys = new HashSet<>();
+            long minTimestamp = Long.MAX_VALUE;
+            long maxTimestamp = Long.MIN_VALUE;
+            for (TransformedEvent event : events) {
+                partitionKeys.add(event.getPartitionKey());
+                minTimestamp = Math.min(minTimestamp, event.getTimestamp());
+                maxTimestamp = Math.max(maxTimestamp, event.getTimestamp());
+            }
+            generator.writeNumberField("partitionKeys", partitionKeys.size());
+            if (!events.isEmpty()) {
+                generator.writeNumberField("minEventTimestamp", minTimestamp);
+                generator.writeNumberField("maxEventTimestamp", maxTimestamp);
+            }
+
+            int ids = Math.min(maxIds, events.size());
+            generator.writeArrayFieldStart("ids");
+            for (int index = 0; index < ids; index++) {
+                generator.writeString(events.get(index).getId());
+            }
+            generator.writeEndArray();
+            generator.writeBooleanField("truncated", ids < events.size());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Summarizes the causes of the first failed events as <code>index: cause</code>.
+     */
+    public static String ofFailedEvents(List<FailedEvent> failedEvents, int maxEvents) {
+        StringBuilder builder = new StringBuilder("[");
+        int events = Math.min(maxEvents, failedEvents.size());
+        for (int index = 0; index < events; index++) {
+            if (index > 0) {
+                builder.append(", ");
+            }
+            FailedEvent failedEvent = failedEvents.get(index);
+            builder.append(failedEvent.getIndex()).append(": ").append(failedEvent.getCause());
+        }
+        if (events < failedEvents.size()) {
+            builder.append(", ... ").append(failedEvents.size() - events).append(" more");
+        }
+        return builder.append(']').toString();
+    }
+}
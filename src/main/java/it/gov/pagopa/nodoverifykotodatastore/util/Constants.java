@@ -1,14 +1,12 @@
 package it.gov.pagopa.nodoverifykotodatastore.util;
 
-import java.util.regex.Pattern;
-
 public class Constants {
 
     private Constants() {}
 
     public static final String POM_PROPERTIES_PATH = "/META-INF/maven/it.gov.pagopa/nodoverifykotodatastore/pom.properties";
-    public static final Pattern REPLACE_DASH_PATTERN = Pattern.compile("-([a-zA-Z])");
     public static final String NA = "NA";
+    public static final String ID_EVENT_FIELD = "id";
     public static final String PARTITION_KEY_EVENT_FIELD = "PartitionKey";
     public static final String FAULTBEAN_EVENT_FIELD = "faultBean";
     public static final String TIMESTAMP_EVENT_FIELD = "timestamp";
@@ -16,4 +14,59 @@ public class Constants {
     public static final String FAULTBEAN_TIMESTAMP_EVENT_FIELD = "faultBean.timestamp";
     public static final String CREDITOR_ID_EVENT_FIELD = "creditor.idPA";
     public static final String PSP_ID_EVENT_FIELD = "psp.idPsp";
+    public static final String FAULT_CODE_EVENT_FIELD = "faultBean.faultCode";
+    public static final String NOTICE_NUMBER_EVENT_FIELD = "debtorPosition.noticeNumber";
+    public static final String EVENTS_DATABASE_NAME = "nodo_verifyko";
+    public static final String EVENTS_CONTAINER_NAME = "events";
+    public static final String ROLLUP_CONTAINER_NAME = "events-rollup";
+    public static final String PARTITION_KEY_SALTING_EVENT_FIELD = "partitionKeySalting";
+    public static final String FOLDING_EVENT_FIELD = "folding";
+
+    public static final String PARTITION_KEY_FORMAT_SETTING = "PARTITION_KEY_FORMAT";
+    public static final String PARTITION_KEY_SALTING_SETTING = "PARTITION_KEY_SALTING";
+    public static final String PARTITION_KEY_SALT_BUCKETS_SETTING = "PARTITION_KEY_SALT_BUCKETS";
+    public static final String PARTITION_KEY_HOT_THRESHOLD_SETTING = "PARTITION_KEY_HOT_THRESHOLD";
+    public static final String PARTITION_KEY_HOT_WINDOW_SECONDS_SETTING = "PARTITION_KEY_HOT_WINDOW_SECONDS";
+    public static final String PARTITION_KEY_TRACKED_KEYS_SETTING = "PARTITION_KEY_TRACKED_KEYS";
+    public static final String PARTITION_KEY_HOT_REPORT_SIZE_SETTING = "PARTITION_KEY_HOT_REPORT_SIZE";
+    public static final String TRANSFORM_PARALLELISM_SETTING = "TRANSFORM_PARALLELISM";
+    public static final String TRANSFORM_PARALLEL_THRESHOLD_SETTING = "TRANSFORM_PARALLEL_THRESHOLD";
+    public static final String FAILURE_MODE_SETTING = "FAILURE_MODE";
+    public static final String PERSISTENCE_ENGINE_SETTING = "PERSISTENCE_ENGINE";
+    public static final String COSMOS_CONN_STRING_SETTING = "COSMOS_CONN_STRING";
+    public static final String COSMOS_BULK_WRITE_MODE_SETTING = "COSMOS_BULK_WRITE_MODE";
+    public static final String COSMOS_BULK_MAX_ATTEMPTS_SETTING = "COSMOS_BULK_MAX_ATTEMPTS";
+    public static final String COSMOS_BULK_MAX_CONCURRENCY_SETTING = "COSMOS_BULK_MAX_CONCURRENCY";
+    public static final String IDEMPOTENT_WRITES_SETTING = "IDEMPOTENT_WRITES";
+    public static final String IDEMPOTENCY_CACHE_SIZE_SETTING = "IDEMPOTENCY_CACHE_SIZE";
+    public static final String IDEMPOTENCY_CACHE_TTL_SECONDS_SETTING = "IDEMPOTENCY_CACHE_TTL_SECONDS";
+    public static final String METRICS_ENABLED_SETTING = "METRICS_ENABLED";
+    public static final String TRACE_MAX_IDS_SETTING = "TRACE_MAX_IDS";
+    public static final String PROPERTY_NAME_CACHE_SIZE_SETTING = "PROPERTY_NAME_CACHE_SIZE";
+    public static final String AGGREGATION_MAX_BATCH_SIZE_SETTING = "AGGREGATION_MAX_BATCH_SIZE";
+    public static final String AGGREGATION_MAX_DELAY_MILLIS_SETTING = "AGGREGATION_MAX_DELAY_MILLIS";
+    public static final String ADAPTIVE_TUNING_SETTING = "ADAPTIVE_TUNING";
+    public static final String ADAPTIVE_TARGET_LATENCY_MILLIS_SETTING = "ADAPTIVE_TARGET_LATENCY_MILLIS";
+    public static final String ADAPTIVE_MAX_CONCURRENCY_SETTING = "ADAPTIVE_MAX_CONCURRENCY";
+    public static final String ADAPTIVE_MAX_FLUSH_SIZE_SETTING = "ADAPTIVE_MAX_FLUSH_SIZE";
+    public static final String WARM_UP_ITERATIONS_SETTING = "WARM_UP_ITERATIONS";
+    public static final String PROJECTION_PROPERTY_ALLOW_LIST_SETTING = "PROJECTION_PROPERTY_ALLOW_LIST";
+    public static final String PROJECTION_PROPERTY_DENY_LIST_SETTING = "PROJECTION_PROPERTY_DENY_LIST";
+    public static final String PROJECTION_FIELD_ALIASES_SETTING = "PROJECTION_FIELD_ALIASES";
+    public static final String PROJECTION_DROP_FIELDS_SETTING = "PROJECTION_DROP_FIELDS";
+    public static final String ROLLUPS_SETTING = "ROLLUPS";
+    public static final String QUERY_PAGE_SIZE_SETTING = "QUERY_PAGE_SIZE";
+    public static final String QUERY_CACHE_SIZE_SETTING = "QUERY_CACHE_SIZE";
+    public static final String QUERY_CACHE_TTL_SECONDS_SETTING = "QUERY_CACHE_TTL_SECONDS";
+    public static final String FOLDING_SIGNATURE_SETTING = "FOLDING_SIGNATURE";
+    public static final String FOLDING_WINDOW_SECONDS_SETTING = "FOLDING_WINDOW_SECONDS";
+    public static final String FOLDING_MAX_WINDOWS_SETTING = "FOLDING_MAX_WINDOWS";
+    public static final String FOLDING_SAMPLE_IDS_SETTING = "FOLDING_SAMPLE_IDS";
+    public static final String ARCHIVE_EXPORT_SETTING = "ARCHIVE_EXPORT";
+    public static final String ARCHIVE_DIRECTORY_SETTING = "ARCHIVE_DIRECTORY";
+    public static final String ARCHIVE_MAX_AGE_DAYS_SETTING = "ARCHIVE_MAX_AGE_DAYS";
+    public static final String ARCHIVE_PAGE_SIZE_SETTING = "ARCHIVE_PAGE_SIZE";
+    public static final String ARCHIVE_MAX_FILE_BYTES_SETTING = "ARCHIVE_MAX_FILE_BYTES";
+    public static final String ARCHIVE_DELETE_SETTING = "ARCHIVE_DELETE";
+    public static final String ARCHIVE_MAX_RUN_SECONDS_SETTING = "ARCHIVE_MAX_RUN_SECONDS";
 }
@@ -0,0 +1,58 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.ThrottlingRetryOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the Cosmos DB client shared by all the invocations of the Function App, created on first use from the
+ * <code>COSMOS_CONN_STRING</code> app setting. The client does not retry the throttled requests, as the callers
+ * handle the backoff themselves.
+ */
+public class CosmosClientProvider {
+
+    private static final String ACCOUNT_ENDPOINT = "AccountEndpoint";
+    private static final String ACCOUNT_KEY = "AccountKey";
+
+    private CosmosClientProvider() {}
+
+    public static CosmosAsyncClient getClient() {
+        return Holder.CLIENT;
+    }
+
+    static Map<String, String> parseConnectionString(String connectionString) {
+        Map<String, String> parts = new HashMap<>();
+        for (String part : connectionString.split(";")) {
+            int separator = part.indexOf('=');
+            if (separator > 0) {
+                parts.put(part.substring(0, separator).trim(), part.substring(separator + 1).trim());
+            }
+        }
+        if (!parts.containsKey(ACCOUNT_ENDPOINT) || !parts.containsKey(ACCOUNT_KEY)) {
+            throw new IllegalArgumentException("The app setting [" + Constants.COSMOS_CONN_STRING_SETTING + "] must define " + ACCOUNT_ENDPOINT + " and " + ACCOUNT_KEY + ".");
+        }
+        return parts;
+    }
+
+    private static CosmosAsyncClient create() {
+        String connectionString = AppSettings.getString(Constants.COSMOS_CONN_STRING_SETTING, null);
+        if (connectionString == null) {
+            throw new IllegalStateException("Missing app setting [" + Constants.COSMOS_CONN_STRING_SETTING + "].");
+        }
+        Map<String, String> parts = parseConnectionString(connectionString);
+        return new CosmosClientBuilder()
+                .endpoint(parts.get(ACCOUNT_ENDPOINT))
+                .key(parts.get(ACCOUNT_KEY))
+                .contentResponseOnWriteEnabled(false)
+                .throttlingRetryOptions(new ThrottlingRetryOptions().setMaxRetryAttemptsOnThrottledRequests(0))
+                .directMode()
+                .buildAsyncClient();
+    }
+
+    private static class Holder {
+        private static final CosmosAsyncClient CLIENT = create();
+    }
+}
@@ -0,0 +1,234 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.FaultTimestamp;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the <code>faultBean.timestamp</code> of the verify KO events.
+ * <p>
+ * The fast path reads the characters of <code>yyyy-MM-dd'T'HH:mm:ss[.f{0,9}][Z|+HH:mm|-HH:mm]</code> directly,
+ * without regex, formatting or formatter lookups; fractions longer than 6 digits are truncated to microseconds
+ * and offsets are converted to UTC. Any other shape, and any value out of range, goes through the legacy path,
+ * that pads the fraction to 6 digits and parses it with {@link LocalDateTime#parse}: for all the timestamps
+ * accepted by the legacy path, the fast path returns the very same epoch seconds and <code>dateTime</code>.
+ */
+public class FaultTimestampCodec {
+
+    private static final DateTimeFormatter LEGACY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+    private static final int BASE_LENGTH = 19;
+    private static final int CANONICAL_LENGTH = 26;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private FaultTimestampCodec() {}
+
+    /**
+     * Parses the passed timestamp.
+     *
+     * @throws DateTimeParseException if the timestamp cannot be parsed by either path
+     */
+    public static FaultTimestamp parse(String value) {
+        FaultTimestamp timestamp = parseFast(value);
+        return timestamp != null ? timestamp : parseLegacy(value);
+    }
+
+    /**
+     * Parses the passed timestamp as the ingestion function always did.
+     *
+     * @throws DateTimeParseException if the timestamp cannot be parsed
+     */
+    public static FaultTimestamp parseLegacy(String value) {
+        String dateTime;
+        int dotIndex = value.indexOf('.');
+        if (dotIndex != -1) {
+            int fractionLength = value.length() - dotIndex - 1;
+            dateTime = fractionLength < 6 ? value + "0".repeat(6 - fractionLength) : value;
+        } else {
+            dateTime = value + ".000000";
+        }
+        LocalDateTime localDateTime = LocalDateTime.parse(dateTime, LEGACY_FORMATTER);
+        return new FaultTimestamp(localDateTime.toEpochSecond(ZoneOffset.UTC), localDateTime.getNano() / 1_000, dateTime,
+                localDateTime.getYear(), localDateTime.getMonthValue(), localDateTime.getDayOfMonth());
+    }
+
+    /**
+     * Parses the passed timestamp reading its characters, returning <code>null</code> if the timestamp is not in the expected shape.
+     */
+    static FaultTimestamp parseFast(String value) {
+        int length = value.length();
+        if (length < BASE_LENGTH || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T' ||
+                value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        int year = readDigits(value, 0, 4);
+        int month = readDigits(value, 5, 2);
+        int day = readDigits(value, 8, 2);
+        int hour = readDigits(value, 11, 2);
+        int minute = readDigits(value, 14, 2);
+        int second = readDigits(value, 17, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) ||
+                hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        // fraction, of any length between 0 and 9 digits
+        int position = BASE_LENGTH;
+        int fractionDigits = -1;
+        int micros = 0;
+        if (position < length && value.charAt(position) == '.') {
+            fractionDigits = 0;
+            position++;
+            while (position < length && isDigit(value.charAt(position))) {
+                if (fractionDigits < 6) {
+                    micros = micros * 10 + (value.charAt(position) - '0');
+                }
+                fractionDigits++;
+                position++;
+            }
+            if (fractionDigits > 9) {
+                return null;
+            }
+            micros *= POWERS_OF_TEN[6 - Math.min(fractionDigits, 6)];
+        }
+
+        // optional offset
+        int offsetSeconds = 0;
+        boolean hasOffset = position < length;
+        if (hasOffset) {
+            char sign = value.charAt(position);
+            if (sign == 'Z' && position + 1 == length) {
+                offsetSeconds = 0;
+            } else if ((sign == '+' || sign == '-') && position + 6 == length && value.charAt(position + 3) == ':') {
+                int offsetHours = readDigits(value, position + 1, 2);
+                int offsetMinutes = readDigits(value, position + 4, 2);
+                if (offsetHours < 0 || offsetMinutes < 0 || offsetMinutes > 59 || offsetHours * 60 + offsetMinutes > 18 * 60) {
+                    return null;
+                }
+                offsetSeconds = (sign == '-' ? -1 : 1) * (offsetHours * 3600 + offsetMinutes * 60);
+            } else {
+                return null;
+            }
+        }
+
+        long epochSecond = daysFromCivil(year, month, day) * 86_400L + hour * 3600 + minute * 60 + second - offsetSeconds;
+        if (!hasOffset) {
+            return new FaultTimestamp(epochSecond, micros, canonicalLocal(value, fractionDigits), year, month, day);
+        }
+        return fromEpoch(epochSecond, micros);
+    }
+
+    /**
+     * Returns the canonical string of a timestamp without offset, reusing the passed one when it is already canonical.
+     */
+    private static String canonicalLocal(String value, int fractionDigits) {
+        if (fractionDigits == 6) {
+            return value;
+        }
+        if (fractionDigits > 6) {
+            return value.substring(0, CANONICAL_LENGTH);
+        }
+        char[] chars = new char[CANONICAL_LENGTH];
+        value.getChars(0, value.length(), chars, 0);
+        int position = value.length();
+        if (fractionDigits < 0) {
+            chars[position++] = '.';
+        }
+        while (position < CANONICAL_LENGTH) {
+            chars[position++] = '0';
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Builds the UTC timestamp of the passed instant, returning <code>null</code> if its year cannot be written in 4 digits.
+     */
+    private static FaultTimestamp fromEpoch(long epochSecond, int micros) {
+        long epochDay = Math.floorDiv(epochSecond, 86_400L);
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+
+        // civil from days, see http://howardhinnant.github.io/date_algorithms.html
+        long shiftedDay = epochDay + 719_468L;
+        long era = Math.floorDiv(shiftedDay, 146_097L);
+        long dayOfEra = shiftedDay - era * 146_097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        if (year < 1 || year > 9999) {
+            return null;
+        }
+
+        char[] chars = new char[CANONICAL_LENGTH];
+        writeDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        writeDigits(chars, 5, month, 2);
+        chars[7] = '-';
+        writeDigits(chars, 8, day, 2);
+        chars[10] = 'T';
+        writeDigits(chars, 11, secondOfDay / 3600, 2);
+        chars[13] = ':';
+        writeDigits(chars, 14, secondOfDay / 60 % 60, 2);
+        chars[16] = ':';
+        writeDigits(chars, 17, secondOfDay % 60, 2);
+        chars[19] = '.';
+        writeDigits(chars, 20, micros, 6);
+        return new FaultTimestamp(epochSecond, micros, new String(chars), year, month, day);
+    }
+
+    /**
+     * Days from the epoch of the passed date, see http://howardhinnant.github.io/date_algorithms.html
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long shiftedYear = month <= 2 ? year - 1L : year;
+        long era = Math.floorDiv(shiftedYear, 400L);
+        long yearOfEra = shiftedYear - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Reads a non-negative number of the passed digits, returning -1 if a character is not a digit.
+     */
+    private static int readDigits(String value, int offset, int digits) {
+        int result = 0;
+        for (int index = offset; index < offset + digits; index++) {
+            char character = value.charAt(index);
+            if (!isDigit(character)) {
+                return -1;
+            }
+            result = result * 10 + (character - '0');
+        }
+        return result;
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int digits) {
+        for (int index = offset + digits - 1; index >= offset; index--) {
+            chars[index] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+}
@@ -1,26 +1,25 @@
 package it.gov.pagopa.nodoverifykotodatastore.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
-public class ObjectMapperUtils {
+import java.io.IOException;
+import java.io.Writer;
 
-    private static final ModelMapper modelMapper;
-    private static final ObjectMapper objectMapper;
+/**
+ * Shares the Jackson mappers of the application.
+ * <p>
+ * The modules are registered explicitly, with no scan of the classpath: the shared mapper only needs the
+ * <code>java.time</code> types, that may be found among the Event Hub properties.
+ */
+public class ObjectMapperUtils {
 
-    /**
-     * Model mapper property setting are specified in the following block.
-     * Default property matching strategy is set to Strict see {@link MatchingStrategies}
-     * Custom mappings are added using {@link ModelMapper#addMappings(PropertyMap)}
-     */
-    static {
-        modelMapper = new ModelMapper();
-        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
-        objectMapper = new ObjectMapper();
-        objectMapper.findAndRegisterModules();
-    }
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     /**
      * Hide from public usage.
@@ -31,4 +30,37 @@ public class ObjectMapperUtils {
     public static <D> D readValue(String string,Class<D> clazz) throws JsonProcessingException {
         return objectMapper.readValue(string,clazz);
     }
+
+    public static JsonNode readTree(String string) throws JsonProcessingException {
+        return objectMapper.readTree(string);
+    }
+
+    /**
+     * Creates a streaming parser on the passed JSON content.
+     */
+    public static JsonParser createParser(String content) throws IOException {
+        return objectMapper.getFactory().createParser(content);
+    }
+
+    /**
+     * Creates a streaming parser on the passed UTF-8 encoded JSON content, with no intermediate decoding to a String.
+     */
+    public static JsonParser createParser(byte[] content) throws IOException {
+        return objectMapper.getFactory().createParser(content);
+    }
+
+    /**
+     * Creates a streaming generator bound to the shared mapper, so that
+     * {@link JsonGenerator#writeObject(Object)} can serialize any value.
+     */
+    public static JsonGenerator createGenerator(Writer writer) throws IOException {
+        return objectMapper.getFactory().createGenerator(writer);
+    }
+
+    /**
+     * Creates a writer backed by the recycled buffers of the shared factory.
+     */
+    public static SegmentedStringWriter createStringWriter() {
+        return new SegmentedStringWriter(objectMapper.getFactory()._getBufferRecycler());
+    }
 }
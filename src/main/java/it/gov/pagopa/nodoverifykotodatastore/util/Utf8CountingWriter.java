@@ -0,0 +1,65 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import java.io.Writer;
+
+/**
+ * Discards the written characters, counting the bytes they take once encoded in UTF-8.
+ */
+public class Utf8CountingWriter extends Writer {
+
+    private long bytes;
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        for (int index = offset; index < offset + length; index++) {
+            bytes += utf8Length(buffer[index]);
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) {
+        for (int index = offset; index < offset + length; index++) {
+            bytes += utf8Length(string.charAt(index));
+        }
+    }
+
+    @Override
+    public void write(int character) {
+        bytes += utf8Length((char) character);
+    }
+
+    @Override
+    public void flush() {
+        // nothing to flush
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+
+    /**
+     * Returns the bytes the passed text takes once encoded in UTF-8, with no encoding.
+     */
+    public static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int index = 0; index < text.length(); index++) {
+            length += utf8Length(text.charAt(index));
+        }
+        return length;
+    }
+
+    private static int utf8Length(char character) {
+        if (character < 0x80) {
+            return 1;
+        } else if (character < 0x800 || Character.isSurrogate(character)) {
+            // each half of a surrogate pair counts for 2 of the 4 bytes of the pair
+            return 2;
+        }
+        return 3;
+    }
+}
@@ -0,0 +1,71 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.nodoverifykotodatastore.exception.AppException;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveResult;
+import it.gov.pagopa.nodoverifykotodatastore.service.ArchiveExporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveExportTest {
+
+    @Spy
+    ArchiveExport function;
+
+    @Mock
+    ExecutionContext context;
+
+    @Test
+    void runOk() throws IOException {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        ArchiveExporter exporter = mock(ArchiveExporter.class);
+        doReturn(exporter).when(function).getExporter();
+        when(exporter.run()).thenReturn(new ArchiveResult(10, 1, 10, true));
+
+        // execute logic
+        function.run("timer", context);
+
+        // test assertion
+        verify(exporter).run();
+    }
+
+    @Test
+    void runOk_disabled() {
+        // mocking objects
+        doReturn(null).when(function).getExporter();
+
+        // execute logic
+        function.run("timer", context);
+
+        // test assertion
+        verifyNoInteractions(context);
+    }
+
+    @Test
+    void runKo_exportFailure() throws IOException {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        ArchiveExporter exporter = mock(ArchiveExporter.class);
+        doReturn(exporter).when(function).getExporter();
+        when(exporter.run()).thenThrow(new IOException("disk full"));
+
+        // execute logic
+        assertThrows(AppException.class, () -> function.run("timer", context));
+
+        // test assertion
+        verify(exporter).run();
+    }
+}
@@ -0,0 +1,97 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.service.EventQueryService;
+import it.gov.pagopa.nodoverifykotodatastore.service.PartitionKeyBuilder;
+import it.gov.pagopa.nodoverifykotodatastore.sink.InMemoryEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.store.InMemoryEventStore;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class EventsTest {
+
+    @Mock
+    ExecutionContext context;
+
+    @Spy
+    Events eventsFunction;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runHttpTriggerOK() {
+        // mocking objects
+        when(context.getLogger()).thenReturn(Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger"));
+        InMemoryEventSink sink = new InMemoryEventSink();
+        sink.persist(List.of(TransformedEvent.builder().id("uuid-001").partitionKey("20231212-77777777777-88888888888").document("{\"id\":\"uuid-001\"}").build()));
+        doReturn(new EventQueryService(new InMemoryEventStore(sink), new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED), 0, null, null))
+                .when(eventsFunction).getQueryService();
+
+        // generating input
+        HttpRequestMessage<Optional<String>> request = mock(HttpRequestMessage.class);
+        doReturn(Map.of("date", "2023-12-12", "creditor", "77777777777", "psp", "88888888888")).when(request).getQueryParameters();
+        ArgumentCaptor<Object> body = mockResponse(request);
+
+        // execute logic
+        HttpResponseMessage response = eventsFunction.run(request, context);
+
+        // test assertion
+        assertEquals(HttpStatus.OK, response.getStatus());
+        Map<String, Object> page = new ObjectMapper().readValue((String) body.getValue(), Map.class);
+        assertEquals("20231212-77777777777-88888888888", page.get("partitionKey"));
+        assertEquals(1, page.get("count"));
+        assertEquals(List.of(Map.of("id", "uuid-001")), page.get("events"));
+        assertNull(page.get("continuationToken"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void runHttpTriggerKO_invalidParameters() {
+        // generating input
+        HttpRequestMessage<Optional<String>> request = mock(HttpRequestMessage.class);
+        doReturn(Map.of("date", "12/12/2023", "creditor", "77777777777", "psp", "88888888888")).when(request).getQueryParameters();
+        ArgumentCaptor<Object> body = mockResponse(request);
+
+        // execute logic
+        eventsFunction.run(request, context);
+
+        // test assertion
+        verify(request).createResponseBuilder(HttpStatus.BAD_REQUEST);
+        assertTrue(((String) body.getValue()).contains("[date]"));
+        assertThrows(IllegalArgumentException.class, () -> Events.toQuery(Map.of("date", "2023-12-12", "creditor", "77777777777")));
+        assertThrows(IllegalArgumentException.class, () -> Events.toQuery(Map.of("date", "2023-12-12", "creditor", "7", "psp", "8", "pageSize", "0")));
+    }
+
+    private static ArgumentCaptor<Object> mockResponse(HttpRequestMessage<Optional<String>> request) {
+        HttpResponseMessage.Builder builder = mock(HttpResponseMessage.Builder.class);
+        HttpResponseMessage responseMock = mock(HttpResponseMessage.class);
+        ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+        lenient().doReturn(HttpStatus.OK).when(responseMock).getStatus();
+        doReturn(builder).when(builder).body(body.capture());
+        doReturn(responseMock).when(builder).build();
+        doReturn(builder).when(request).createResponseBuilder(any(HttpStatus.class));
+        doReturn(builder).when(builder).header(anyString(), anyString());
+        return body;
+    }
+}
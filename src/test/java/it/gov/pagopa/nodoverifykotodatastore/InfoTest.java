@@ -88,4 +88,17 @@ class InfoTest {
         assertNotNull(response.getEnvironment());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getInfo_cachesAppInfo() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        String path = "/META-INF/maven/it.gov.pagopa/nodoverifykotodatastore/pom.properties";
+
+        // execute logic
+        AppInfo first = infoFunction.getInfo(logger, path);
+        AppInfo second = new Info().getInfo(logger, path);
+
+        // test assertion
+        assertSame(first, second);
+    }
+}
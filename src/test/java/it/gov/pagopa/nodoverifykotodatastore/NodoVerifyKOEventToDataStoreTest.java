@@ -12,9 +12,22 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.microsoft.azure.functions.ExecutionContext;
 import com.microsoft.azure.functions.OutputBinding;
 import it.gov.pagopa.nodoverifykotodatastore.exception.AppException;
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.InMemoryMetricsRegistry;
+import it.gov.pagopa.nodoverifykotodatastore.metrics.IngestionMetrics;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailureMode;
+import it.gov.pagopa.nodoverifykotodatastore.service.EventFolder;
+import it.gov.pagopa.nodoverifykotodatastore.sink.EventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.InMemoryEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.InMemoryRollupExecutor;
+import it.gov.pagopa.nodoverifykotodatastore.sink.ItemResult;
+import it.gov.pagopa.nodoverifykotodatastore.sink.RollupSink;
+import it.gov.pagopa.nodoverifykotodatastore.sink.SinkResult;
 import it.gov.pagopa.nodoverifykotodatastore.util.Constants;
 import it.gov.pagopa.nodoverifykotodatastore.util.LogHandler;
 import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
@@ -35,6 +48,9 @@ class NodoVerifyKOEventToDataStoreTest {
     @Mock
     ExecutionContext context;
 
+    @Mock
+    OutputBinding<String> deadLetterDocument;
+
 
     @SuppressWarnings("unchecked")
     @Test
@@ -43,7 +59,7 @@ class NodoVerifyKOEventToDataStoreTest {
         // mocking objects
         Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
         when(context.getLogger()).thenReturn(logger);
-        OutputBinding<List<Object>> document = (OutputBinding<List<Object>>) mock(OutputBinding.class);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
 
         // generating input
         String eventInStringForm = TestUtil.readStringFromFile("events/event_ok_1.json");
@@ -60,11 +76,11 @@ class NodoVerifyKOEventToDataStoreTest {
         List<Object> expectedEventsToPersist = List.of(expectedEvent);
 
         // execute logic
-        function.processNodoVerifyKOEvent(events, properties, document, context);
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
 
-        ArgumentCaptor<List<Object>> captor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(document).setValue(captor.capture());
-        List<Object> actualEventsToPersist = captor.getValue();
+        List<Object> actualEventsToPersist = new ObjectMapper().readValue(captor.getValue(), List.class);
         assertEquals(convertWithStream(expectedEventsToPersist), convertWithStream(actualEventsToPersist));
     }
 
@@ -75,7 +91,7 @@ class NodoVerifyKOEventToDataStoreTest {
         // mocking objects
         Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
         when(context.getLogger()).thenReturn(logger);
-        OutputBinding<List<Object>> document = (OutputBinding<List<Object>>) mock(OutputBinding.class);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
 
         // generating input
         String eventInStringForm1 = TestUtil.readStringFromFile("events/event_ok_1.json");
@@ -109,12 +125,12 @@ class NodoVerifyKOEventToDataStoreTest {
         List<Object> expectedEventsToPersist = List.of(expectedEvent1, expectedEvent2);
 
         // execute logic
-        function.processNodoVerifyKOEvent(events, properties, document, context);
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
 
         // test assertion
-        ArgumentCaptor<List<Object>> captor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(document).setValue(captor.capture());
-        List<Object> actualEventsToPersist = captor.getValue();
+        List<Object> actualEventsToPersist = new ObjectMapper().readValue(captor.getValue(), List.class);
         assertEquals(convertWithStream(expectedEventsToPersist), convertWithStream(actualEventsToPersist));
     }
 
@@ -127,7 +143,7 @@ class NodoVerifyKOEventToDataStoreTest {
         LogHandler logHandler = new LogHandler();
         logger.addHandler(logHandler);
         when(context.getLogger()).thenReturn(logger);
-        OutputBinding<List<Object>> document = (OutputBinding<List<Object>>) mock(OutputBinding.class);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
 
         // generating input
         String eventInStringForm = TestUtil.readStringFromFile("events/event_ok_1.json");
@@ -142,7 +158,7 @@ class NodoVerifyKOEventToDataStoreTest {
         properties[1].put("prop1-with-dash", "2");
 
         // execute logic
-        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(events, properties, document, context));
+        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context));
 
         // test assertion
         assertTrue(logHandler.getLogs().contains("Error processing events, lengths do not match: [events: 1 - properties: 2]"));
@@ -157,7 +173,7 @@ class NodoVerifyKOEventToDataStoreTest {
         LogHandler logHandler = new LogHandler();
         logger.addHandler(logHandler);
         when(context.getLogger()).thenReturn(logger);
-        OutputBinding<List<Object>> document = (OutputBinding<List<Object>>) mock(OutputBinding.class);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
 
         // generating input
         String eventInStringForm = TestUtil.readStringFromFile("events/event_ko_1.json");
@@ -169,10 +185,10 @@ class NodoVerifyKOEventToDataStoreTest {
         properties[0].put("prop1-with-dash", "1");
 
         // execute logic
-        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(events, properties, document, context));
+        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context));
 
         // test assertion
-        assertTrue(logHandler.getLogs().contains("java.lang.IllegalStateException"));
+        assertTrue(logHandler.getLogs().contains("[ALERT][VerifyKOToDS] AppException - Invalid event [MISSING_FAULT_BEAN] on nodo-verify-ko-events msg ingestion"));
     }
 
     @SuppressWarnings("unchecked")
@@ -184,8 +200,8 @@ class NodoVerifyKOEventToDataStoreTest {
         LogHandler logHandler = new LogHandler();
         logger.addHandler(logHandler);
         when(context.getLogger()).thenReturn(logger);
-        OutputBinding<List<Object>> document = (OutputBinding<List<Object>>) mock(OutputBinding.class);
-        doThrow(NullPointerException.class).when(document).setValue(anyList());
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        doThrow(NullPointerException.class).when(document).setValue(anyString());
 
         // generating input
         String eventInStringForm = TestUtil.readStringFromFile("events/event_ok_1.json");
@@ -197,7 +213,7 @@ class NodoVerifyKOEventToDataStoreTest {
         properties[0].put("prop1-with-dash", "1");
 
         // execute logic
-        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(events, properties, document, context));
+        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context));
 
         // test assertion
         assertTrue(logHandler.getLogs().contains("[ALERT][VerifyKOToDS] AppException - Generic exception on cosmos nodo-verify-ko-events msg ingestion"));
@@ -212,7 +228,7 @@ class NodoVerifyKOEventToDataStoreTest {
         LogHandler logHandler = new LogHandler();
         logger.addHandler(logHandler);
         when(context.getLogger()).thenReturn(logger);
-        OutputBinding<List<Object>> document = (OutputBinding<List<Object>>) mock(OutputBinding.class);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
 
         // generating input
         String eventInStringForm = TestUtil.readStringFromFile("events/event_ko_2.json");
@@ -224,10 +240,250 @@ class NodoVerifyKOEventToDataStoreTest {
         properties[0].put("prop1-with-dash", "1");
 
         // execute logic
-        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(events, properties, document, context));
+        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context));
+
+        // test assertion
+        assertTrue(logHandler.getLogs().contains("[ALERT][VerifyKOToDS] AppException - Invalid event [MISSING_PSP] on nodo-verify-ko-events msg ingestion"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_deadLetterInvalidEvents() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        when(context.getInvocationId()).thenReturn("invocation-1");
+        doReturn(FailureMode.DEAD_LETTER).when(function).getFailureMode();
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+
+        // generating input
+        String validEvent = TestUtil.readStringFromFile("events/event_ok_1.json");
+        String invalidEvent = TestUtil.readStringFromFile("events/event_ko_1.json");
+        List<String> events = List.of(invalidEvent, validEvent);
+        Map<String, Object>[] properties = new HashMap[2];
+        properties[0] = new HashMap<>();
+        properties[0].put("prop1-with-dash", "1");
+        properties[1] = new HashMap<>();
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+
+        // test assertion
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(document).setValue(captor.capture());
+        List<Map<String, Object>> persistedEvents = new ObjectMapper().readValue(captor.getValue(), List.class);
+        assertEquals(1, persistedEvents.size());
+        assertEquals("uuid-001", persistedEvents.get(0).get("id"));
+
+        verify(deadLetterDocument).setValue(captor.capture());
+        List<Map<String, Object>> deadLetterDocuments = new ObjectMapper().readValue(captor.getValue(), List.class);
+        assertEquals(1, deadLetterDocuments.size());
+        Map<String, Object> deadLetterDocument = deadLetterDocuments.get(0);
+        assertEquals("invocation-1", deadLetterDocument.get("invocationId"));
+        assertEquals(0, deadLetterDocument.get("eventIndex"));
+        assertEquals(InvalidEventException.class.getName(), deadLetterDocument.get("errorType"));
+        assertEquals("MISSING_FAULT_BEAN", deadLetterDocument.get("errorCode"));
+        assertEquals("Missing faultBean", deadLetterDocument.get("errorCause"));
+        assertEquals(invalidEvent, deadLetterDocument.get("event"));
+        assertEquals(Map.of("prop1-with-dash", "1"), deadLetterDocument.get("properties"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_withEventSink() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        InMemoryEventSink eventSink = new InMemoryEventSink();
+        doReturn(eventSink).when(function).getEventSink(document);
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"));
+        Map<String, Object>[] properties = new HashMap[1];
+        properties[0] = new HashMap<>();
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+
+        // test assertion
+        verify(document, never()).setValue(anyString());
+        Map<String, Object> persistedEvent = new ObjectMapper().readValue(eventSink.getDocument("20231212-77777777777-88888888888", "uuid-001"), Map.class);
+        assertEquals("20231212-77777777777-88888888888", persistedEvent.get("PartitionKey"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_updatesRollups() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        InMemoryRollupExecutor rollupExecutor = new InMemoryRollupExecutor();
+        doReturn(new InMemoryEventSink()).when(function).getEventSink(document);
+        doReturn(true).when(function).isRollupEnabled();
+        doReturn(new RollupSink(rollupExecutor, 5, millis -> {})).when(function).getRollupSink();
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"), TestUtil.readStringFromFile("events/event_ok_2.json"));
+        Map<String, Object>[] properties = new HashMap[2];
+        properties[0] = new HashMap<>();
+        properties[1] = new HashMap<>();
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+
+        // test assertion
+        assertEquals(1, rollupExecutor.size());
+        ObjectNode rollup = rollupExecutor.getDocument("20231212-77777777777-88888888888");
+        assertEquals(2, rollup.get("count").asLong());
+        assertEquals(2, rollup.get("faultCodes").get("PPT_STAZIONE_INT_PA_ERRORE_RESPONSE").asLong());
+        assertEquals("77777777777", rollup.get("idPA").asText());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_doesNotUpdateRollupsOfReplacedEvents() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        InMemoryRollupExecutor rollupExecutor = new InMemoryRollupExecutor();
+        doReturn(new InMemoryEventSink()).when(function).getEventSink(document);
+        doReturn(true).when(function).isRollupEnabled();
+        doReturn(new RollupSink(rollupExecutor, 5, millis -> {})).when(function).getRollupSink();
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"), TestUtil.readStringFromFile("events/event_ok_2.json"));
+        Map<String, Object>[] properties = new HashMap[2];
+        properties[0] = new HashMap<>();
+        properties[1] = new HashMap<>();
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+
+        // test assertion
+        assertEquals(2, rollupExecutor.getDocument("20231212-77777777777-88888888888").get("count").asLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_doesNotUpdateRollupsOfDelegatedEvents() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        doReturn(true).when(function).isRollupEnabled();
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"), TestUtil.readStringFromFile("events/event_ok_2.json"));
+        Map<String, Object>[] properties = new HashMap[2];
+        properties[0] = new HashMap<>();
+        properties[1] = new HashMap<>();
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+
+        // test assertion
+        verify(document).setValue(anyString());
+        verify(function, never()).getRollupSink();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_foldsEvents() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        InMemoryEventSink eventSink = new InMemoryEventSink();
+        doReturn(eventSink).when(function).getEventSink(document);
+        doReturn(new EventFolder(List.of(FieldPath.of("creditor.idPA"), FieldPath.of("faultBean.faultCode")), 300, 100, 10))
+                .when(function).getEventFolder();
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"), TestUtil.readStringFromFile("events/event_ok_2.json"));
+        Map<String, Object>[] properties = new HashMap[2];
+        properties[0] = new HashMap<>();
+        properties[1] = new HashMap<>();
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context);
+
+        // test assertion
+        assertEquals(1, eventSink.size());
+        Map<String, Object> folded = new ObjectMapper().readValue(eventSink.getDocuments("20231212-77777777777-88888888888").get(0), Map.class);
+        assertEquals(2, ((Map<String, Object>) folded.get("folding")).get("count"));
+        assertEquals(List.of("uuid-001", "uuid-002"), ((Map<String, Object>) folded.get("folding")).get("ids"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runKo_failedWrites() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        LogHandler logHandler = new LogHandler();
+        logger.addHandler(logHandler);
+        when(context.getLogger()).thenReturn(logger);
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+        doReturn((EventSink) eventsToPersist -> new SinkResult(List.of(ItemResult.builder()
+                .id("uuid-001").partitionKey("20231212-77777777777-88888888888").statusCode(429).requestCharge(1.0).build()), 1.0, 5, 5))
+                .when(function).getEventSink(document);
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"));
+        Map<String, Object>[] properties = new HashMap[1];
+        properties[0] = new HashMap<>();
+
+        // execute logic
+        assertThrows(AppException.class, () -> function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, null, document, deadLetterDocument, context));
+
+        // test assertion
+        assertTrue(logHandler.getLogs().contains("Throttled writes [5]"));
+        assertTrue(logHandler.getLogs().contains("Failed to persist [1] of [1] events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void runOk_recordsMetrics() {
+        // mocking objects
+        Logger logger = Logger.getLogger("NodoVerifyKOEventToDataStore-test-logger");
+        when(context.getLogger()).thenReturn(logger);
+        when(context.getInvocationId()).thenReturn("invocation-1");
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        doReturn(new IngestionMetrics(registry, true)).when(function).getMetrics();
+        doReturn(FailureMode.DEAD_LETTER).when(function).getFailureMode();
+        OutputBinding<String> document = (OutputBinding<String>) mock(OutputBinding.class);
+
+        // generating input
+        List<String> events = List.of(TestUtil.readStringFromFile("events/event_ok_1.json"), TestUtil.readStringFromFile("events/event_ko_1.json"));
+        Map<String, Object>[] properties = new HashMap[2];
+        properties[0] = new HashMap<>();
+        properties[1] = new HashMap<>();
+        Map<String, Object>[] systemProperties = new HashMap[2];
+        systemProperties[0] = new HashMap<>(Map.of("EnqueuedTimeUtc", "2023-12-12T18:34:40Z"));
+        systemProperties[1] = new HashMap<>(Map.of("EnqueuedTimeUtc", "2023-12-12T18:34:40Z"));
+
+        // execute logic
+        function.processNodoVerifyKOEvent(TestUtil.toBinary(events), properties, systemProperties, document, deadLetterDocument, context);
 
         // test assertion
-        assertTrue(logHandler.getLogs().contains("[ALERT][VerifyKOToDS] AppException - Illegal argument exception on cosmos nodo-verify-ko-events msg ingestion"));
+        assertEquals(2, registry.getSum(IngestionMetrics.BATCH_SIZE));
+        assertEquals(2, registry.getCount(IngestionMetrics.EVENT_LAG));
+        assertEquals(1, registry.getCount(IngestionMetrics.FAILURES, "cause", "missing_timestamp"));
+        assertEquals(1, registry.getCount(IngestionMetrics.VALIDATION_ERRORS, "error", "missing_fault_bean"));
+        assertEquals(1, registry.getCount(IngestionMetrics.STAGE_DURATION, "stage", "persist"));
+        assertTrue(registry.getSum(IngestionMetrics.STAGE_DURATION, "stage", "parse") > 0);
+        assertEquals(0, registry.getCount(IngestionMetrics.RETRY_INDEX));
     }
 
     public String convertWithStream(List<Object> listOfMaps) {
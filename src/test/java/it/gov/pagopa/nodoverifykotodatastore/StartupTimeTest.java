@@ -0,0 +1,128 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.OutputBinding;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the cold start of the ingestion function in a new JVM, as it happens on a new host instance: the time
+ * from the start of the JVM to the end of the first invocation, split in the initialization of the function class
+ * and the first invocation.
+ * <p>
+ * The timings are logged. They depend on the machine, so they are checked against a limit only when one is passed,
+ * i.e. with <code>mvn test -Dstartup.maxMillis=15000</code>.
+ */
+class StartupTimeTest {
+
+    private static final Logger logger = Logger.getLogger("StartupTimeTest");
+
+    private static final String MAX_STARTUP_MILLIS_PROPERTY = "startup.maxMillis";
+
+    @Test
+    @SneakyThrows
+    void coldStart_isMeasured() {
+        // generating input
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder processBuilder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), StartupTimeTest.class.getName())
+                .redirectErrorStream(true);
+
+        // execute logic
+        Process process = processBuilder.start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        boolean exited = process.waitFor(60, TimeUnit.SECONDS);
+
+        // test assertion
+        assertTrue(exited);
+        assertEquals(0, process.exitValue(), output);
+        Map<String, Long> timings = parseTimings(output);
+        logger.info(() -> "Cold start: " + timings);
+        assertTrue(timings.get("init") >= 0);
+        assertTrue(timings.get("first") >= 0);
+        String maxStartupMillis = System.getProperty(MAX_STARTUP_MILLIS_PROPERTY);
+        if (maxStartupMillis != null) {
+            assertTrue(timings.get("total") < Long.parseLong(maxStartupMillis), output);
+        }
+    }
+
+    /**
+     * Runs in the new JVM: initializes the function and processes a batch of a single event.
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws IOException {
+        List<byte[]> events = TestUtil.toBinary(List.of(TestUtil.readStringFromFile("events/event_ok_1.json")));
+        Map<String, Object>[] properties = new HashMap[]{new HashMap<>(Map.of("prop1-with-dash", "1"))};
+
+        long start = System.nanoTime();
+        NodoVerifyKOEventToDataStore function = new NodoVerifyKOEventToDataStore();
+        long initialized = System.nanoTime();
+        function.processNodoVerifyKOEvent(events, properties, null, new DiscardingOutputBinding(), new DiscardingOutputBinding(), new StartupExecutionContext());
+        long processed = System.nanoTime();
+
+        long jvmUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.println("init=" + TimeUnit.NANOSECONDS.toMillis(initialized - start));
+        System.out.println("first=" + TimeUnit.NANOSECONDS.toMillis(processed - initialized));
+        System.out.println("total=" + jvmUptime);
+    }
+
+    private static Map<String, Long> parseTimings(String output) {
+        Map<String, Long> timings = new HashMap<>();
+        for (String line : output.split("\\R")) {
+            int separator = line.indexOf('=');
+            if (separator > 0 && line.substring(separator + 1).matches("\\d+")) {
+                timings.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            }
+        }
+        return timings;
+    }
+
+    private static class DiscardingOutputBinding implements OutputBinding<String> {
+
+        private final List<String> values = new ArrayList<>();
+
+        @Override
+        public String getValue() {
+            return values.isEmpty() ? null : values.get(values.size() - 1);
+        }
+
+        @Override
+        public void setValue(String value) {
+            values.add(value);
+        }
+    }
+
+    private static class StartupExecutionContext implements ExecutionContext {
+
+        private final String invocationId = UUID.randomUUID().toString();
+
+        @Override
+        public Logger getLogger() {
+            return logger;
+        }
+
+        @Override
+        public String getInvocationId() {
+            return invocationId;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "EventHubNodoVerifyKOEventToDSProcessor";
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package it.gov.pagopa.nodoverifykotodatastore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.logging.Logger;
+
+import it.gov.pagopa.nodoverifykotodatastore.util.LogHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.microsoft.azure.functions.ExecutionContext;
+
+@ExtendWith(MockitoExtension.class)
+class WarmupTest {
+
+    @Mock
+    ExecutionContext context;
+
+    @Spy
+    Warmup warmupFunction;
+
+    @Test
+    void runWarmupTriggerOK() {
+        // mocking objects
+        Logger logger = Logger.getLogger("Warmup-test-logger");
+        LogHandler logHandler = new LogHandler();
+        logger.addHandler(logHandler);
+        when(context.getLogger()).thenReturn(logger);
+
+        // execute logic
+        warmupFunction.run(new Object(), context);
+
+        // test assertion
+        assertTrue(logHandler.getLogs().contains("Warm-up completed: Events [1000]"), logHandler.getLogs());
+    }
+}
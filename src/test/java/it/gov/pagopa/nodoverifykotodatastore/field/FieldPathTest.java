@@ -0,0 +1,55 @@
+package it.gov.pagopa.nodoverifykotodatastore.field;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+
+import it.gov.pagopa.nodoverifykotodatastore.service.PartitionKeyBuilder;
+import it.gov.pagopa.nodoverifykotodatastore.service.VerifyKOEventTransformer;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class FieldPathTest {
+
+    private static final FieldPath CREDITOR_ID = FieldPath.of("creditor.idPA");
+    private static final FieldPath CREDITOR_STATION = FieldPath.of("creditor.idStation");
+    private static final FieldPath PSP_ID = FieldPath.of("psp.idPsp");
+    private static final FieldPath AMOUNT = FieldPath.of("debtorPosition.amount");
+    private static final FieldPath CCPOST = FieldPath.of("creditor.ccPost");
+    private static final FieldPath PAYMENT_TOKEN = FieldPath.of("payment.paymentToken");
+
+    @Test
+    void of_compilesSegments() {
+        FieldPath path = FieldPath.of("faultBean.timestamp");
+
+        assertEquals(2, path.getDepth());
+        assertEquals("faultBean", path.getSegment(0));
+        assertEquals("timestamp", path.getLastSegment());
+        assertEquals(FieldPath.of("faultBean.timestamp"), path);
+        assertThrows(IllegalArgumentException.class, () -> FieldPath.of(""));
+        assertThrows(IllegalArgumentException.class, () -> FieldPath.of("faultBean..timestamp"));
+    }
+
+    @Test
+    @SneakyThrows
+    void capture_distinguishesMissingAndNull() {
+        // generating input
+        String event = "{\"id\":\"uuid-001\",\"creditor\":{\"idPA\":\"77777777777\",\"idStation\":null},\"psp\":{}," +
+                "\"debtorPosition\":{\"amount\":50},\"faultBean\":{\"timestamp\":\"2023-12-12T18:34:39\"}}";
+        VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(List.of(CREDITOR_STATION, AMOUNT, CCPOST, PAYMENT_TOKEN), new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED));
+
+        // execute logic
+        CapturedFields fields = transformer.transform(event, new HashMap<>()).getFields();
+
+        // test assertion
+        assertEquals("77777777777", fields.getString(CREDITOR_ID, "NA"));
+        assertEquals(FieldValue.Status.NULL, fields.getStatus(CREDITOR_STATION));
+        assertEquals("NA", fields.getString(CREDITOR_STATION, "NA"));
+        assertEquals(FieldValue.Status.MISSING, fields.getStatus(CCPOST));
+        assertEquals(FieldValue.Status.PARENT_MISSING, fields.getStatus(PAYMENT_TOKEN));
+        assertEquals(50L, fields.getLong(AMOUNT, -1L));
+        assertEquals(50, fields.get(AMOUNT).getValue());
+        assertThrows(IllegalArgumentException.class, () -> fields.get(FieldPath.of("faultBean.faultCode")));
+    }
+}
@@ -0,0 +1,92 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.exception.PersistenceException;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.ValidationError;
+import org.junit.jupiter.api.Test;
+
+class IngestionMetricsTest {
+
+    InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+
+    IngestionMetrics metrics = new IngestionMetrics(registry, true);
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void recordEventLag_readsEnqueuedTime() {
+        // generating input
+        Map<String, Object>[] systemProperties = new HashMap[3];
+        systemProperties[0] = new HashMap<>(Map.of("EnqueuedTimeUtc", "2023-12-12T18:34:39.5Z"));
+        systemProperties[1] = new HashMap<>();
+        systemProperties[2] = new HashMap<>(Map.of("EnqueuedTimeUtc", "2023-12-12T18:34:38"));
+        Map<String, Object>[] properties = new HashMap[3];
+        properties[0] = new HashMap<>();
+        properties[1] = new HashMap<>(Map.of("x-opt-enqueued-time", 1702406079000L));
+        properties[2] = new HashMap<>();
+
+        // execute logic
+        metrics.recordEventLag(systemProperties, properties, Instant.parse("2023-12-12T18:34:40Z"));
+
+        // test assertion
+        assertEquals(3, registry.getCount(IngestionMetrics.EVENT_LAG));
+        assertEquals((500 + 1000 + 2000) * 1_000_000.0, registry.getSum(IngestionMetrics.EVENT_LAG));
+        assertEquals(2000 * 1_000_000.0, registry.getMax(IngestionMetrics.EVENT_LAG));
+    }
+
+    @Test
+    void recordTransformStages_sumsEventTimings() {
+        // generating input
+        StageTimings timings = new StageTimings();
+        timings.add(Stage.PARSE, 100);
+        timings.add(Stage.KEY, 10);
+        List<TransformedEvent> events = List.of(
+                TransformedEvent.builder().timings(timings).build(),
+                TransformedEvent.builder().timings(timings).build(),
+                TransformedEvent.builder().build());
+
+        // execute logic
+        metrics.recordTransformStages(events);
+
+        // test assertion
+        assertEquals(200, registry.getSum(IngestionMetrics.STAGE_DURATION, "stage", "parse"));
+        assertEquals(20, registry.getSum(IngestionMetrics.STAGE_DURATION, "stage", "key"));
+        assertEquals(1, registry.getCount(IngestionMetrics.STAGE_DURATION, "stage", "timestamp"));
+    }
+
+    @Test
+    void recordFailure_countsByCause() {
+        // execute logic
+        metrics.recordFailure(FailureCause.of(new IllegalStateException()));
+        metrics.recordFailure(FailureCause.MISSING_TIMESTAMP);
+        metrics.recordFailure(FailureCause.of(new NullPointerException()));
+        metrics.recordFailure(FailureCause.of(new PersistenceException("Failed to persist")));
+
+        // test assertion
+        assertEquals(1, registry.getCount(IngestionMetrics.FAILURES, "cause", "missing_timestamp"));
+        assertEquals(2, registry.getCount(IngestionMetrics.FAILURES, "cause", "generic"));
+        assertEquals(1, registry.getCount(IngestionMetrics.FAILURES, "cause", "persistence"));
+    }
+
+    @Test
+    void recordFailure_countsValidationErrors() {
+        // execute logic
+        metrics.recordFailure(new InvalidEventException(ValidationError.INVALID_TIMESTAMP, "Invalid faultBean.timestamp"));
+        metrics.recordFailure(new InvalidEventException(ValidationError.MISSING_FAULT_BEAN, "Missing faultBean"));
+        metrics.recordFailure(new IllegalArgumentException());
+
+        // test assertion
+        assertEquals(1, registry.getCount(IngestionMetrics.FAILURES, "cause", "invalid_event"));
+        assertEquals(1, registry.getCount(IngestionMetrics.FAILURES, "cause", "generic"));
+        assertEquals(1, registry.getCount(IngestionMetrics.FAILURES, "cause", "missing_timestamp"));
+        assertEquals(1, registry.getCount(IngestionMetrics.VALIDATION_ERRORS, "error", "invalid_timestamp"));
+        assertEquals(1, registry.getCount(IngestionMetrics.VALIDATION_ERRORS, "error", "missing_fault_bean"));
+    }
+}
@@ -0,0 +1,31 @@
+package it.gov.pagopa.nodoverifykotodatastore.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class MicrometerMetricsRegistryTest {
+
+    @Test
+    void record_reusesMetersByNameAndTags() {
+        // mocking objects
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MicrometerMetricsRegistry registry = new MicrometerMetricsRegistry(meterRegistry);
+
+        // execute logic
+        registry.increment("failures", "cause", "invalid_event");
+        registry.increment("failures", "cause", "invalid_event");
+        registry.increment("failures", "cause", "persistence");
+        registry.recordNanos("stage.duration", 100, "stage", "parse");
+        registry.recordNanos("stage.duration", 300, "stage", "parse");
+        registry.record("batch.size", 10);
+
+        // test assertion
+        assertEquals(2, meterRegistry.get("failures").tag("cause", "invalid_event").counter().count());
+        assertEquals(1, meterRegistry.get("failures").tag("cause", "persistence").counter().count());
+        assertEquals(2, meterRegistry.get("stage.duration").tag("stage", "parse").timer().count());
+        assertEquals(10, meterRegistry.get("batch.size").summary().totalAmount());
+        assertEquals(4, meterRegistry.getMeters().size());
+    }
+}
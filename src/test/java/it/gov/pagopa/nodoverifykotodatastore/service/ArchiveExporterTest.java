@@ -0,0 +1,173 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import it.gov.pagopa.nodoverifykotodatastore.archive.LocalFileArchiveSink;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveDocument;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchivePage;
+import it.gov.pagopa.nodoverifykotodatastore.model.ArchiveResult;
+import it.gov.pagopa.nodoverifykotodatastore.store.InMemoryArchiveSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveExporterTest {
+
+    private static final long NOW_MILLIS = 1_700_000_000_000L;
+    private static final long NOW_SECONDS = NOW_MILLIS / 1000;
+    private static final long MAX_AGE_SECONDS = 3600;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void run_exportsAgedEventsInPartitionKeyOrder() throws IOException {
+        // mocking objects
+        InMemoryArchiveSource source = new InMemoryArchiveSource();
+        LocalFileArchiveSink sink = new LocalFileArchiveSink(directory);
+        ArchiveExporter exporter = new ArchiveExporter(source, sink, MAX_AGE_SECONDS, 2, Long.MAX_VALUE, false, Long.MAX_VALUE, () -> NOW_MILLIS);
+
+        // generating input
+        source.add(document("3", "20231212-77777777777-88888888888"), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+        source.add(document("1", "20231211-77777777777-88888888888"), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+        source.add(document("2", "20231211-77777777777-99999999999"), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+        source.add(document("4", "20231213-77777777777-88888888888"), NOW_SECONDS - 10);
+
+        // execute logic
+        ArchiveResult result = exporter.run();
+
+        // test assertion
+        assertEquals(3, result.getDocuments());
+        assertEquals(1, result.getFiles());
+        assertEquals(0, result.getDeleted());
+        assertTrue(result.isCompleted());
+        assertEquals(List.of("1", "2", "3"), readIds(archiveFiles()));
+        assertEquals(4, source.getDocuments().size());
+        assertNull(sink.readCheckpoint());
+    }
+
+    @Test
+    void run_rollsFilesAndDeletesArchivedEvents() throws IOException {
+        // mocking objects
+        InMemoryArchiveSource source = new InMemoryArchiveSource();
+        LocalFileArchiveSink sink = new LocalFileArchiveSink(directory);
+        ArchiveExporter exporter = new ArchiveExporter(source, sink, MAX_AGE_SECONDS, 1, 1, true, Long.MAX_VALUE, () -> NOW_MILLIS);
+
+        // generating input
+        for (int i = 0; i < 3; i++) {
+            source.add(document(String.valueOf(i), "20231211-77777777777-8888888888" + i), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+        }
+        source.add(document("young", "20231213-77777777777-88888888888"), NOW_SECONDS);
+
+        // execute logic
+        ArchiveResult result = exporter.run();
+
+        // test assertion
+        assertEquals(3, result.getDocuments());
+        assertEquals(3, result.getFiles());
+        assertEquals(3, result.getDeleted());
+        assertEquals(3, archiveFiles().size());
+        assertEquals(List.of("0", "1", "2"), readIds(archiveFiles()));
+        assertEquals(List.of("young"), source.getDocuments().stream().map(ArchiveDocument::getId).collect(Collectors.toList()));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".part")));
+        }
+    }
+
+    @Test
+    void run_resumesFromCheckpointWhenTimeBudgetIsSpent() throws IOException {
+        // mocking objects
+        InMemoryArchiveSource source = new InMemoryArchiveSource();
+        LocalFileArchiveSink sink = new LocalFileArchiveSink(directory);
+        AtomicLong clock = new AtomicLong(NOW_MILLIS);
+        ArchiveExporter exporter = new ArchiveExporter(source, sink, MAX_AGE_SECONDS, 2, Long.MAX_VALUE, true, 1000, () -> clock.getAndAdd(1000));
+
+        // generating input
+        for (int i = 0; i < 5; i++) {
+            source.add(document(String.valueOf(i), "20231211-77777777777-8888888888" + i), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+        }
+
+        // execute logic
+        ArchiveResult first = exporter.run();
+        String checkpoint = sink.readCheckpoint();
+        ArchiveResult second = exporter.run();
+        ArchiveResult third = exporter.run();
+
+        // test assertion
+        assertEquals(2, first.getDocuments());
+        assertFalse(first.isCompleted());
+        assertNotNull(checkpoint);
+        assertEquals(2, second.getDocuments());
+        assertFalse(second.isCompleted());
+        assertEquals(1, third.getDocuments());
+        assertTrue(third.isCompleted());
+        assertNull(sink.readCheckpoint());
+        assertEquals(List.of("0", "1", "2", "3", "4"), readIds(archiveFiles()));
+        assertTrue(source.getDocuments().isEmpty());
+    }
+
+    @Test
+    void run_discardsFileOnFailure() throws IOException {
+        // mocking objects
+        InMemoryArchiveSource source = new InMemoryArchiveSource() {
+            @Override
+            public ArchivePage read(long cutoffEpochSeconds, String continuationToken, int pageSize) {
+                if (continuationToken != null) {
+                    throw new IllegalStateException("unavailable");
+                }
+                return super.read(cutoffEpochSeconds, continuationToken, pageSize);
+            }
+        };
+        LocalFileArchiveSink sink = new LocalFileArchiveSink(directory);
+        ArchiveExporter exporter = new ArchiveExporter(source, sink, MAX_AGE_SECONDS, 1, Long.MAX_VALUE, true, Long.MAX_VALUE, () -> NOW_MILLIS);
+
+        // generating input
+        source.add(document("1", "20231211-77777777777-88888888888"), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+        source.add(document("2", "20231211-77777777777-99999999999"), NOW_SECONDS - 2 * MAX_AGE_SECONDS);
+
+        // execute logic
+        assertThrows(IllegalStateException.class, exporter::run);
+
+        // test assertion
+        assertNull(sink.readCheckpoint());
+        assertEquals(2, source.getDocuments().size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static ArchiveDocument document(String id, String partitionKey) {
+        return new ArchiveDocument(id, partitionKey, "{\"id\":\"" + id + "\",\"PartitionKey\":\"" + partitionKey + "\"}");
+    }
+
+    private List<Path> archiveFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".ndjson.gz")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> readIds(List<Path> files) throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ids.add(line.substring("{\"id\":\"".length(), line.indexOf('"', "{\"id\":\"".length())));
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,33 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.ObjectMapperUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLetterDocumentBuilderTest {
+
+    @Test
+    void toJsonArray_replayOnAnotherDayWritesSameDocument() throws IOException {
+        // generating input
+        List<FailedEvent> failedEvents = List.of(new FailedEvent(0, "{\"id\":\"uuid-001\"}", Map.of(), new IllegalStateException("Missing faultBean")));
+        Instant now = Instant.parse("2023-12-12T23:59:59Z");
+
+        // execute logic
+        JsonNode first = ObjectMapperUtils.readTree(DeadLetterDocumentBuilder.toJsonArray(failedEvents, "invocation-1", now)).get(0);
+        JsonNode replayed = ObjectMapperUtils.readTree(DeadLetterDocumentBuilder.toJsonArray(failedEvents, "invocation-2", now.plus(3, ChronoUnit.DAYS))).get(0);
+
+        // test assertion
+        assertEquals(first.get("id"), replayed.get("id"));
+        assertEquals(first.get("PartitionKey"), replayed.get("PartitionKey"));
+        assertEquals(first.get("id").asText(), first.get("PartitionKey").asText());
+    }
+}
@@ -0,0 +1,184 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class DocumentProjectionTest {
+
+    private static final PartitionKeyBuilder PARTITION_KEY_BUILDER = new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED);
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void transform_projectsDocument() {
+        // mocking objects
+        DocumentProjection projection = new DocumentProjection(Set.of(), Set.of("debug-info"),
+                Map.of(FieldPath.of("psp"), "p", FieldPath.of("faultBean.description"), "fd",
+                        FieldPath.of("faultBean.timestamp"), "ts", FieldPath.of("serviceIdentifier"), "si"),
+                Set.of(FieldPath.of("faultBean.dateTime"), FieldPath.of("creditor.ccPost")));
+        VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER, null, projection, false);
+        VerifyKOEventTransformer fullTransformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER);
+
+        // generating input
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json");
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("serviceIdentifier", "NDP003PROD");
+        properties.put("debug-info", "verbose trace");
+
+        // execute logic
+        TransformedEvent transformedEvent = transformer.transform(event, properties);
+        TransformedEvent fullEvent = fullTransformer.transform(event, properties);
+
+        // test assertion
+        Map<String, Object> document = new ObjectMapper().readValue(transformedEvent.getDocument(), Map.class);
+        Map<String, Object> faultBean = (Map<String, Object>) document.get("faultBean");
+        assertEquals("88888888888", ((Map<String, Object>) document.get("p")).get("idPsp"));
+        assertEquals(1702406079, faultBean.get("ts"));
+        assertEquals("EC service error at 2023-01-01T12:00:00", faultBean.get("fd"));
+        assertFalse(faultBean.containsKey("dateTime"));
+        assertFalse(((Map<String, Object>) document.get("creditor")).containsKey("ccPost"));
+        assertEquals("NDP003PROD", document.get("si"));
+        assertFalse(document.containsKey("debug-info"));
+        assertFalse(document.containsKey("psp"));
+        assertEquals(fullEvent.getPartitionKey(), transformedEvent.getPartitionKey());
+        assertEquals(fullEvent.getDateTime(), transformedEvent.getDateTime());
+        assertEquals(0, fullEvent.getRemovedBytes());
+        assertEquals(utf8Length(fullEvent.getDocument()) - utf8Length(transformedEvent.getDocument()), transformedEvent.getRemovedBytes());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void transform_readsDroppedFields() {
+        // mocking objects
+        DocumentProjection projection = new DocumentProjection(Set.of("serviceIdentifier"), Set.of(), Map.of(), Set.of(FieldPath.of("faultBean")));
+        VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER, null, projection, false);
+        VerifyKOEventTransformer fullTransformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER);
+
+        // generating input
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json");
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("serviceIdentifier", "NDP003PROD");
+        properties.put("timestamp", 1702406079000L);
+
+        // execute logic
+        TransformedEvent transformedEvent = transformer.transform(event, properties);
+        TransformedEvent fullEvent = fullTransformer.transform(event, properties);
+
+        // test assertion
+        Map<String, Object> document = new ObjectMapper().readValue(transformedEvent.getDocument(), Map.class);
+        assertFalse(document.containsKey("faultBean"));
+        assertFalse(document.containsKey("timestamp"));
+        assertEquals("NDP003PROD", document.get("serviceIdentifier"));
+        assertEquals("20231212-77777777777-88888888888", transformedEvent.getPartitionKey());
+        assertEquals(1702406079, transformedEvent.getTimestamp());
+        assertEquals(utf8Length(fullEvent.getDocument()) - utf8Length(transformedEvent.getDocument()), transformedEvent.getRemovedBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void transform_countsRemovedBytesOfEachDroppedField() {
+        // mocking objects
+        VerifyKOEventTransformer fullTransformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER);
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json");
+        Map<String, Object> properties = Map.of("serviceIdentifier", "NDP003PROD");
+        TransformedEvent fullEvent = fullTransformer.transform(event, properties);
+        List<Set<FieldPath>> droppedFields = List.of(
+                Set.of(FieldPath.of("creditor.ccPost")),
+                Set.of(FieldPath.of("creditor.ccPost"), FieldPath.of("faultBean.dateTime")),
+                Set.of(FieldPath.of("creditor.ccPost"), FieldPath.of("faultBean.dateTime"), FieldPath.of("faultBean.description")));
+
+        for (Set<FieldPath> dropped : droppedFields) {
+            // execute logic
+            VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER, null,
+                    new DocumentProjection(Set.of(), Set.of("serviceIdentifier"), Map.of(), dropped), false);
+            TransformedEvent transformedEvent = transformer.transform(event, properties);
+
+            // test assertion
+            assertEquals(utf8Length(fullEvent.getDocument()) - utf8Length(transformedEvent.getDocument()), transformedEvent.getRemovedBytes(), dropped.toString());
+        }
+    }
+
+    @Test
+    void constructor_rejectsProtectedFields() {
+        // generating input
+        Map<FieldPath, String> aliases = Map.of(FieldPath.of("id"), "i");
+        Set<FieldPath> droppedFields = Set.of(FieldPath.of("PartitionKey"));
+
+        // execute logic and test assertion
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), aliases, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), Map.of(), droppedFields));
+    }
+
+    @Test
+    void constructor_rejectsQueriedFields() {
+        // generating input
+        Map<FieldPath, String> parentAlias = Map.of(FieldPath.of("debtorPosition"), "dp");
+        Map<FieldPath, String> alias = Map.of(FieldPath.of("debtorPosition.noticeNumber"), "nn");
+        Set<FieldPath> droppedFields = Set.of(FieldPath.of("debtorPosition.noticeNumber"));
+
+        // execute logic and test assertion
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), parentAlias, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), alias, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), Map.of(), droppedFields));
+        assertDoesNotThrow(() -> new DocumentProjection(Set.of(), Set.of(), Map.of(FieldPath.of("debtorPosition.iuv"), "iuv"), Set.of()));
+    }
+
+    @Test
+    void constructor_rejectsCollidingAliases() {
+        // generating input
+        Map<FieldPath, String> protectedAlias = Map.of(FieldPath.of("psp"), "id");
+        Map<FieldPath, String> partitionKeyAlias = Map.of(FieldPath.of("creditor"), "PartitionKey");
+        Map<FieldPath, String> sharedAlias = Map.of(FieldPath.of("psp"), "p", FieldPath.of("serviceIdentifier"), "p");
+        Map<FieldPath, String> knownSiblingAlias = Map.of(FieldPath.of("faultBean.description"), "faultCode");
+        Map<FieldPath, String> configuredSiblingAlias = Map.of(FieldPath.of("creditor.ccPost"), "cc");
+        Set<FieldPath> configuredSibling = Set.of(FieldPath.of("creditor.cc"));
+
+        // execute logic and test assertion
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), protectedAlias, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), partitionKeyAlias, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), sharedAlias, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), knownSiblingAlias, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentProjection(Set.of(), Set.of(), configuredSiblingAlias, configuredSibling));
+        assertDoesNotThrow(() -> new DocumentProjection(Set.of(), Set.of(), Map.of(FieldPath.of("psp.idPsp"), "id", FieldPath.of("creditor.idPA"), "id"), Set.of()));
+    }
+
+    @Test
+    @SneakyThrows
+    void report_comparesBatchSizes() {
+        // mocking objects
+        DocumentProjection projection = new DocumentProjection(Set.of(), Set.of(), Map.of(), Set.of(FieldPath.of("faultBean.dateTime")));
+        VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(List.of(), PARTITION_KEY_BUILDER, null, projection, false);
+
+        // generating input
+        TransformedEvent first = transformer.transform(TestUtil.readStringFromFile("events/event_ok_1.json"), Map.of());
+        TransformedEvent second = transformer.transform(TestUtil.readStringFromFile("events/event_ok_2.json"), Map.of());
+
+        // execute logic
+        DocumentProjection.SizeReport report = DocumentProjection.report(List.of(first, second));
+
+        // test assertion
+        long bytesAfter = utf8Length(first.getDocument()) + utf8Length(second.getDocument());
+        assertEquals(2, report.getDocuments());
+        assertEquals(bytesAfter, report.getBytesAfter());
+        assertEquals(bytesAfter + first.getRemovedBytes() + second.getRemovedBytes(), report.getBytesBefore());
+        // ,"dateTime":"2023-12-12T18:34:39.860654"
+        assertEquals(40, first.getRemovedBytes());
+    }
+
+    private static long utf8Length(String document) {
+        return document.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,76 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class EventBatchTransformerTest {
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    EventBatchTransformer batchTransformer = new EventBatchTransformer(
+            new VerifyKOEventTransformer(List.of(), new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED)), pool, 10);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @SneakyThrows
+    void transform_keepsBatchOrder() {
+        // generating input
+        String eventInStringForm = TestUtil.readStringFromFile("events/event_ok_1.json");
+        List<String> events = new ArrayList<>();
+        for (int index = 0; index < 500; index++) {
+            events.add(eventInStringForm.replace("uuid-001", "uuid-" + index));
+        }
+
+        // execute logic
+        List<TransformedEvent> transformedEvents = batchTransformer.transform(events, generateProperties(events.size()));
+
+        // test assertion
+        assertEquals(events.size(), transformedEvents.size());
+        for (int index = 0; index < events.size(); index++) {
+            assertEquals("uuid-" + index, transformedEvents.get(index).getId());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void transform_failsWithFirstInvalidEvent() {
+        // generating input
+        String validEvent = TestUtil.readStringFromFile("events/event_ok_1.json");
+        List<String> events = new ArrayList<>();
+        for (int index = 0; index < 200; index++) {
+            events.add(validEvent);
+        }
+        events.set(37, TestUtil.readStringFromFile("events/event_ko_2.json"));
+        events.set(150, TestUtil.readStringFromFile("events/event_ko_1.json"));
+        Map<String, Object>[] properties = generateProperties(events.size());
+
+        // execute logic and test assertion
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> batchTransformer.transform(events, properties));
+        assertEquals("The field [psp.idPsp] does not exists in the passed event.", exception.getMessage());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object>[] generateProperties(int size) {
+        Map<String, Object>[] properties = new HashMap[size];
+        for (int index = 0; index < size; index++) {
+            properties[index] = new HashMap<>();
+            properties[index].put("prop1-with-dash", String.valueOf(index));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,145 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.nodoverifykotodatastore.field.FieldPath;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class EventFolderTest {
+
+    private static final List<FieldPath> SIGNATURE = List.of(FieldPath.of("creditor.idStation"), FieldPath.of("faultBean.faultCode"), FieldPath.of("debtorPosition.noticeNumber"));
+    EventFolder folder = new EventFolder(SIGNATURE, 300, 2, 2);
+    VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(SIGNATURE, new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED));
+
+    @Test
+    @SneakyThrows
+    void fold_collapsesEventsWithSameSignature() {
+        // generating input
+        List<TransformedEvent> events = List.of(
+                event("uuid-1", "302040000090000000", "18:34:39"),
+                event("uuid-2", "302040000090000000", "18:34:50"),
+                event("uuid-3", "302040000090000000", "18:34:59"),
+                event("uuid-4", "302040000090000001", "18:34:39"),
+                transformer.transform(TestUtil.readStringFromFile("events/event_ok_1.json").replace("\"noticeNumber\": \"302040000090000000\",", ""), new HashMap<>()));
+
+        // execute logic
+        EventFolder.Folding folding = folder.fold(events);
+
+        // test assertion
+        List<TransformedEvent> documents = folding.getDocuments();
+        assertEquals(3, documents.size());
+        JsonNode folded = new ObjectMapper().readTree(documents.get(0).getDocument());
+        assertEquals(documents.get(0).getId(), folded.get("id").asText());
+        assertEquals("20231212-77777777777-88888888888", folded.get("PartitionKey").asText());
+        assertEquals("77777777777_01|PPT_STAZIONE_INT_PA_ERRORE_RESPONSE|302040000090000000", folded.get("folding").get("signature").asText());
+        assertEquals(3, folded.get("folding").get("count").asLong());
+        assertEquals(1702406079, folded.get("folding").get("firstTimestamp").asLong());
+        assertEquals(1702406099, folded.get("folding").get("lastTimestamp").asLong());
+        assertEquals(List.of("uuid-1", "uuid-2"), List.of(folded.get("folding").get("ids").get(0).asText(), folded.get("folding").get("ids").get(1).asText()));
+        assertEquals(2, folded.get("folding").get("ids").size());
+        assertEquals(1, new ObjectMapper().readTree(documents.get(1).getDocument()).get("folding").get("count").asLong());
+        assertEquals("uuid-001", documents.get(2).getId());
+        assertEquals(documents.get(0).getId(), folding.getDocumentId("uuid-3"));
+        assertEquals("uuid-001", folding.getDocumentId("uuid-001"));
+    }
+
+    @Test
+    @SneakyThrows
+    void commit_accumulatesOnlyPersistedBatches() {
+        // generating input
+        List<TransformedEvent> first = List.of(event("uuid-1", "302040000090000000", "18:34:39"), event("uuid-2", "302040000090000000", "18:34:40"));
+        List<TransformedEvent> second = List.of(event("uuid-3", "302040000090000000", "18:34:41"));
+
+        // execute logic
+        folder.commit(folder.fold(first));
+        EventFolder.Folding failed = folder.fold(second);
+        folder.abort(failed);
+        EventFolder.Folding retried = folder.fold(second);
+        folder.commit(retried);
+        EventFolder.Folding next = folder.fold(List.of(event("uuid-4", "302040000090000000", "18:34:42")));
+
+        // test assertion
+        assertEquals(failed.getDocuments().get(0).getId(), retried.getDocuments().get(0).getId());
+        assertEquals(3, count(retried.getDocuments().get(0)));
+        assertEquals(4, count(next.getDocuments().get(0)));
+    }
+
+    @Test
+    @SneakyThrows
+    void fold_waitsForWindowsHeldByConcurrentBatch() {
+        // generating input
+        List<TransformedEvent> first = List.of(event("uuid-1", "302040000090000000", "18:34:39"));
+        List<TransformedEvent> second = List.of(event("uuid-2", "302040000090000000", "18:34:40"));
+
+        // execute logic
+        EventFolder.Folding held = folder.fold(first);
+        CompletableFuture<EventFolder.Folding> concurrent = CompletableFuture.supplyAsync(() -> folder.fold(second));
+        Thread.sleep(200);
+        boolean doneBeforeCommit = concurrent.isDone();
+        folder.commit(held);
+        EventFolder.Folding folded = concurrent.get(5, TimeUnit.SECONDS);
+
+        // test assertion
+        assertFalse(doneBeforeCommit);
+        assertEquals(2, count(folded.getDocuments().get(0)));
+    }
+
+    @Test
+    @SneakyThrows
+    void fold_evictsClosedAndExceedingWindows() {
+        // generating input
+        TransformedEvent event = event("uuid-1", "302040000090000000", "18:34:39");
+
+        // execute logic
+        String id = folder.fold(List.of(event)).getDocuments().get(0).getId();
+        folder.fold(List.of(event("uuid-2", "302040000090000001", "18:34:39"), event("uuid-3", "302040000090000002", "18:34:39")));
+        int openWindows = folder.getOpenWindows();
+        String idAfterEviction = folder.fold(List.of(event("uuid-4", "302040000090000000", "18:34:40"))).getDocuments().get(0).getId();
+        folder.fold(List.of(event("uuid-5", "302040000090000003", "18:44:39")));
+        folder.fold(List.of());
+
+        // test assertion
+        assertEquals(2, openWindows);
+        assertNotEquals(id, idAfterEviction);
+        assertEquals(1, folder.getOpenWindows());
+    }
+
+    @Test
+    @SneakyThrows
+    void fold_derivesSameIdAfterRestart() {
+        // generating input
+        List<TransformedEvent> events = List.of(event("uuid-1", "302040000090000000", "18:34:39"), event("uuid-2", "302040000090000000", "18:34:40"));
+
+        // execute logic
+        String id = folder.fold(events).getDocuments().get(0).getId();
+        String idAfterRestart = new EventFolder(SIGNATURE, 300, 2, 2).fold(events).getDocuments().get(0).getId();
+
+        // test assertion
+        assertEquals(id, idAfterRestart);
+    }
+
+    @SneakyThrows
+    private TransformedEvent event(String id, String noticeNumber, String time) {
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json")
+                .replace("uuid-001", id)
+                .replace("302040000090000000", noticeNumber)
+                .replace("18:34:39", time);
+        return transformer.transform(event, new HashMap<>(Map.of()));
+    }
+
+    @SneakyThrows
+    private static long count(TransformedEvent document) {
+        return new ObjectMapper().readTree(document.getDocument()).get("folding").get("count").asLong();
+    }
+}
@@ -0,0 +1,221 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.EventPage;
+import it.gov.pagopa.nodoverifykotodatastore.model.EventQuery;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.sink.InMemoryEventSink;
+import it.gov.pagopa.nodoverifykotodatastore.store.EventStore;
+import it.gov.pagopa.nodoverifykotodatastore.store.InMemoryEventStore;
+import org.junit.jupiter.api.Test;
+
+class EventQueryServiceTest {
+
+    private static final String KEY = "20231212-77777777777-88888888888";
+    private static final PartitionKeyBuilder PARTITION_KEY_BUILDER = new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED);
+
+    InMemoryEventSink sink = new InMemoryEventSink();
+    AtomicLong clock = new AtomicLong();
+
+    @Test
+    void query_pagesThroughSaltedPartitions() {
+        // mocking objects
+        EventQueryService queryService = new EventQueryService(new InMemoryEventStore(sink), PARTITION_KEY_BUILDER, 2, null, null);
+        persist(KEY, "uuid-1", "300");
+        persist(KEY, "uuid-2", "301");
+        persist(KEY + "#1", "uuid-3", "302");
+        persist("20231212-77777777777-99999999999", "uuid-4", "303");
+
+        // execute logic
+        List<String> documents = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            EventPage page = queryService.query(query(null, 2, continuationToken));
+            documents.addAll(page.getDocuments());
+            continuationToken = page.getContinuationToken();
+            tokens.add(continuationToken);
+        } while (continuationToken != null);
+
+        // test assertion
+        assertEquals(KEY, queryService.getPartitionKey(query(null, 2, null)));
+        assertEquals(List.of(document("uuid-1", "300"), document("uuid-2", "301"), document("uuid-3", "302")), documents);
+        assertEquals(2, tokens.size());
+    }
+
+    @Test
+    void query_skipsUnsaltedPartitions() {
+        // mocking objects
+        RecordingEventStore store = new RecordingEventStore(new InMemoryEventStore(sink));
+        EventQueryService queryService = new EventQueryService(store, PARTITION_KEY_BUILDER, 4, null, null);
+        persist(KEY, "uuid-1", "300");
+        persist(KEY + "#2", "uuid-2", "301");
+
+        // execute logic
+        EventPage first = queryService.query(query(null, 1, null));
+        EventPage second = queryService.query(query(null, 1, first.getContinuationToken()));
+        EventPage unsalted = queryService.query(EventQuery.builder().date(LocalDate.of(2023, 12, 12)).creditorId("77777777777").pspId("99999999999").pageSize(10).build());
+
+        // test assertion
+        assertEquals(List.of(document("uuid-1", "300")), first.getDocuments());
+        assertEquals(List.of(document("uuid-2", "301")), second.getDocuments());
+        assertNull(second.getContinuationToken());
+        assertTrue(unsalted.getDocuments().isEmpty());
+        assertEquals(List.of(KEY, KEY + "#2", "20231212-77777777777-99999999999"), store.queriedKeys);
+    }
+
+    @Test
+    void query_returnsEventsOnBaseAndSaltedKeyOnce() {
+        // mocking objects
+        EventQueryService queryService = new EventQueryService(new InMemoryEventStore(sink), PARTITION_KEY_BUILDER, 2, null, null);
+        persist(KEY, "uuid-1", "300");
+        persist(KEY + "#0", "uuid-1", "300");
+        persist(KEY + "#0", "uuid-2", "301");
+
+        // execute logic
+        EventPage page = queryService.query(query(null, 10, null));
+
+        // test assertion
+        assertEquals(List.of(document("uuid-1", "300"), document("uuid-2", "301")), page.getDocuments());
+        assertNull(page.getContinuationToken());
+    }
+
+    @Test
+    void query_cachesSaltsOfKey() {
+        // mocking objects
+        RecordingEventStore store = new RecordingEventStore(new InMemoryEventStore(sink));
+        EventQueryService queryService = new EventQueryService(store, PARTITION_KEY_BUILDER, 2, null, new QueryResultCache<>(10, 30_000, clock::get));
+        persist(KEY, "uuid-1", "300");
+        persist(KEY + "#1", "uuid-2", "301");
+
+        // execute logic
+        queryService.query(query(null, 10, null));
+        queryService.query(query("301", 10, null));
+
+        // test assertion
+        assertEquals(1, store.saltLookups.get());
+    }
+
+    @Test
+    void query_filtersByNoticeNumber() {
+        // mocking objects
+        EventQueryService queryService = new EventQueryService(new InMemoryEventStore(sink), PARTITION_KEY_BUILDER, 0, null, null);
+        persist(KEY, "uuid-1", "300");
+        persist(KEY, "uuid-2", "301");
+
+        // execute logic
+        EventPage page = queryService.query(query("301", 10, null));
+
+        // test assertion
+        assertEquals(List.of(document("uuid-2", "301")), page.getDocuments());
+        assertNull(page.getContinuationToken());
+    }
+
+    @Test
+    void query_cachesPages() {
+        // mocking objects
+        RecordingEventStore store = new RecordingEventStore(new InMemoryEventStore(sink));
+        EventQueryService queryService = new EventQueryService(store, PARTITION_KEY_BUILDER, 0, new QueryResultCache<>(10, 30_000, clock::get), null);
+        persist(KEY, "uuid-1", "300");
+
+        // execute logic
+        EventPage first = queryService.query(query(null, 10, null));
+        persist(KEY, "uuid-2", "301");
+        EventPage cached = queryService.query(query(null, 10, null));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        EventPage expired = queryService.query(query(null, 10, null));
+
+        // test assertion
+        assertSame(first, cached);
+        assertEquals(2, expired.getDocuments().size());
+        assertEquals(2, store.queriedKeys.size());
+    }
+
+    @Test
+    void query_rejectsInvalidToken() {
+        // mocking objects
+        EventQueryService queryService = new EventQueryService(new InMemoryEventStore(sink), PARTITION_KEY_BUILDER, 0, null, null);
+
+        // generating input
+        EventQuery query = query(null, 10, "not-a-token");
+
+        // execute logic and test assertion
+        assertThrows(IllegalArgumentException.class, () -> queryService.query(query));
+    }
+
+    @Test
+    void cache_evictsLeastRecentlyUsed() {
+        // mocking objects
+        QueryResultCache<String> cache = new QueryResultCache<>(2, 30_000, clock::get);
+
+        // execute logic
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        // test assertion
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    /**
+     * Records the partition keys queried and the salt lookups on the wrapped store.
+     */
+    private static class RecordingEventStore implements EventStore {
+
+        private final EventStore store;
+        private final List<String> queriedKeys = new ArrayList<>();
+        private final AtomicInteger saltLookups = new AtomicInteger();
+
+        private RecordingEventStore(EventStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public EventPage query(String partitionKey, String noticeNumber, String continuationToken, int pageSize) {
+            queriedKeys.add(partitionKey);
+            return store.query(partitionKey, noticeNumber, continuationToken, pageSize);
+        }
+
+        @Override
+        public Set<String> findIds(String partitionKey, List<String> ids) {
+            return store.findIds(partitionKey, ids);
+        }
+
+        @Override
+        public Set<Integer> findSalts(String partitionKey, int buckets) {
+            saltLookups.incrementAndGet();
+            return store.findSalts(partitionKey, buckets);
+        }
+    }
+
+    private void persist(String partitionKey, String id, String noticeNumber) {
+        sink.persist(List.of(TransformedEvent.builder().id(id).partitionKey(partitionKey).document(document(id, noticeNumber)).build()));
+    }
+
+    private static String document(String id, String noticeNumber) {
+        return "{\"id\":\"" + id + "\",\"debtorPosition\":{\"noticeNumber\":\"" + noticeNumber + "\"}}";
+    }
+
+    private static EventQuery query(String noticeNumber, int pageSize, String continuationToken) {
+        return EventQuery.builder()
+                .date(LocalDate.of(2023, 12, 12))
+                .creditorId("77777777777")
+                .pspId("88888888888")
+                .noticeNumber(noticeNumber)
+                .pageSize(pageSize)
+                .continuationToken(continuationToken)
+                .build();
+    }
+}
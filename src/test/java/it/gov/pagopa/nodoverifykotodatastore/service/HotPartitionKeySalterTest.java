@@ -0,0 +1,166 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class HotPartitionKeySalterTest {
+
+    private static final String HOT_KEY = "20231212-77777777777-88888888888";
+    private static final String COLD_KEY = "20231212-11111111111-88888888888";
+
+    AtomicLong clock = new AtomicLong();
+    // 2 salt buckets, hot above 10 writes/s over a window of 6 seconds, made of 6 intervals of 1 second
+    HotPartitionKeySalter salter = new HotPartitionKeySalter(2, 10, 6000, 3, 2, clock::get);
+
+    @Test
+    void salt_saltsOnlyHotKeys() {
+        // execute logic
+        int coldSalt = write(COLD_KEY, 10);
+        int hotSalt = write(HOT_KEY, 61);
+
+        // test assertion
+        assertEquals(-1, coldSalt);
+        assertEquals(Math.floorMod("uuid-60".hashCode(), 2), hotSalt);
+        assertTrue(salter.isHot(HOT_KEY));
+        assertFalse(salter.isHot(COLD_KEY));
+        assertEquals(salter.salt(HOT_KEY, "uuid-1"), salter.salt(HOT_KEY, "uuid-1"));
+    }
+
+    @Test
+    void salt_coolsDownAfterTheWindow() {
+        // generating input
+        write(HOT_KEY, 61);
+
+        // execute logic
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        boolean hotWithinWindow = salter.salt(HOT_KEY, "uuid-a") >= 0;
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        boolean hotAfterWindow = salter.salt(HOT_KEY, "uuid-b") >= 0;
+
+        // test assertion
+        assertTrue(hotWithinWindow);
+        assertFalse(hotAfterWindow);
+        // only the writes of the last 6 seconds are counted, i.e. the ones at 3 and 7 seconds
+        assertEquals(2 / 6.0, salter.getRate(HOT_KEY), 1e-9);
+    }
+
+    @Test
+    void salt_doesNotCountRetriedWrites() {
+        // generating input
+        write(HOT_KEY, 30);
+
+        // execute logic
+        int retriedSalt = -1;
+        for (int index = 0; index < 100; index++) {
+            retriedSalt = salter.salt(HOT_KEY, "uuid-" + index, false);
+        }
+
+        // test assertion
+        assertEquals(-1, retriedSalt);
+        assertFalse(salter.isHot(HOT_KEY));
+        assertEquals(30 / 6.0, salter.getRate(HOT_KEY), 1e-9);
+    }
+
+    @Test
+    @SneakyThrows
+    void salt_countsConcurrentWrites() {
+        // mocking objects
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // execute logic
+        List<Future<Integer>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            writers.add(executor.submit(() -> write(HOT_KEY, 1000)));
+        }
+        for (Future<Integer> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+
+        // test assertion
+        assertEquals(4000 / 6.0, salter.getRate(HOT_KEY), 1e-9);
+        assertTrue(salter.isHot(HOT_KEY));
+    }
+
+    @Test
+    void salt_tracksBoundedKeys() {
+        // execute logic
+        write("key-1", 1);
+        write("key-2", 1);
+        write("key-3", 1);
+        int untracked = write("key-4", 100);
+
+        // test assertion
+        assertEquals(-1, untracked);
+        assertEquals(0, salter.getRate("key-4"));
+    }
+
+    @Test
+    void pollReport_returnsHottestKeysOncePerInterval() {
+        // generating input
+        write(HOT_KEY, 61);
+        write(COLD_KEY, 5);
+        write("key-3", 1);
+
+        // execute logic
+        List<HotPartitionKeySalter.KeyRate> pending = salter.pollReport();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        List<HotPartitionKeySalter.KeyRate> report = salter.pollReport();
+        List<HotPartitionKeySalter.KeyRate> polledAgain = salter.pollReport();
+
+        // test assertion
+        assertNull(pending);
+        assertNull(polledAgain);
+        assertEquals(2, report.size());
+        assertEquals(HOT_KEY, report.get(0).getPartitionKey());
+        assertEquals(61, report.get(0).getRate(), 1e-9);
+        assertTrue(report.get(0).isSalted());
+        assertEquals(COLD_KEY, report.get(1).getPartitionKey());
+        assertFalse(report.get(1).isSalted());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void transform_recordsSaltingOnDocument() {
+        // mocking objects
+        VerifyKOEventTransformer transformer = new VerifyKOEventTransformer(List.of(), new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED), salter, false);
+        write(HOT_KEY, 61);
+
+        // generating input
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json");
+
+        // execute logic
+        TransformedEvent transformedEvent = transformer.transform(event, new HashMap<>());
+
+        // test assertion
+        int salt = Math.floorMod("uuid-001".hashCode(), 2);
+        assertEquals(HOT_KEY + "#" + salt, transformedEvent.getPartitionKey());
+        Map<String, Object> document = new ObjectMapper().readValue(transformedEvent.getDocument(), Map.class);
+        assertEquals(HOT_KEY + "#" + salt, document.get("PartitionKey"));
+        assertEquals(Map.of("baseKey", HOT_KEY, "salt", salt, "buckets", 2), document.get("partitionKeySalting"));
+    }
+
+    private int write(String partitionKey, int writes) {
+        int salt = -1;
+        for (int index = 0; index < writes; index++) {
+            salt = salter.salt(partitionKey, "uuid-" + index);
+        }
+        return salt;
+    }
+}
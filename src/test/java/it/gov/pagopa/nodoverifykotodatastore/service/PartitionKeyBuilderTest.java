@@ -0,0 +1,40 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PartitionKeyBuilderTest {
+
+    @Test
+    void build_padded() {
+        PartitionKeyBuilder builder = new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED);
+
+        assertEquals("20230105-77777777777-88888888888", builder.build(2023, 1, 5, "77777777777", "88888888888"));
+        assertEquals("20231105-77777777777-88888888888", builder.build(2023, 11, 5, "77777777777", "88888888888"));
+        assertEquals("20230115-77777777777-88888888888", builder.build(2023, 1, 15, "77777777777", "88888888888"));
+        assertEquals("20231212-NA-NA", builder.build(2023, 12, 12, "NA", "NA"));
+    }
+
+    @Test
+    void build_legacy() {
+        PartitionKeyBuilder builder = new PartitionKeyBuilder(PartitionKeyBuilder.Format.LEGACY);
+
+        assertEquals("202315-77777777777-88888888888", builder.build(2023, 1, 5, "77777777777", "88888888888"));
+        assertEquals("2023115-77777777777-88888888888", builder.build(2023, 11, 5, "77777777777", "88888888888"));
+        assertEquals("2023115-77777777777-88888888888", builder.build(2023, 1, 15, "77777777777", "88888888888"));
+        assertEquals("20231212-77777777777-88888888888", builder.build(2023, 12, 12, "77777777777", "88888888888"));
+    }
+
+    @Test
+    void build_reusesCachedKeys() {
+        PartitionKeyBuilder builder = new PartitionKeyBuilder(PartitionKeyBuilder.Format.PADDED);
+
+        String first = builder.build(2023, 12, 12, "77777777777", "88888888888");
+        String second = builder.build(2023, 12, 12, new String("77777777777"), new String("88888888888"));
+        String otherPsp = builder.build(2023, 12, 12, "77777777777", "99999999999");
+
+        assertSame(first, second);
+        assertEquals("20231212-77777777777-99999999999", otherPsp);
+    }
+}
@@ -0,0 +1,70 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class PropertyNameNormalizerTest {
+
+    private static final Pattern REPLACE_DASH_PATTERN = Pattern.compile("-([a-zA-Z])");
+
+    @Test
+    void normalize_replacesDashFollowedByLetter() {
+        // mocking objects
+        PropertyNameNormalizer normalizer = new PropertyNameNormalizer(16);
+
+        // test assertion
+        assertEquals("prop1WithDash", normalizer.normalize("prop1-with-dash"));
+        assertEquals("prop1_without_dash", normalizer.normalize("prop1_without_dash"));
+        assertEquals("a-1B-", normalizer.normalize("a-1-b-"));
+        assertEquals("a-B", normalizer.normalize("a--b"));
+        assertEquals("X", normalizer.normalize("-x"));
+    }
+
+    @Test
+    void normalize_matchesRegexTranslation() {
+        // generating input
+        Random random = new Random(42);
+        String alphabet = "ab-Z9_-";
+
+        for (int run = 0; run < 10_000; run++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int index = 0; index < length; index++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String input = builder.toString();
+
+            // test assertion
+            assertEquals(replaceWithRegex(input), PropertyNameNormalizer.replaceDashWithUppercase(input), input);
+        }
+    }
+
+    @Test
+    void normalize_boundsCacheSize() {
+        // mocking objects
+        PropertyNameNormalizer normalizer = new PropertyNameNormalizer(8);
+
+        // execute logic
+        for (int index = 0; index < 100; index++) {
+            assertEquals("customProperty" + index, normalizer.normalize("custom-property" + index));
+        }
+
+        // test assertion
+        assertEquals(8, normalizer.size());
+    }
+
+    private static String replaceWithRegex(String input) {
+        Matcher matcher = REPLACE_DASH_PATTERN.matcher(input);
+        StringBuilder builder = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(builder, matcher.group(1).toUpperCase());
+        }
+        matcher.appendTail(builder);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package it.gov.pagopa.nodoverifykotodatastore.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.nodoverifykotodatastore.exception.InvalidEventException;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.ValidationError;
+import it.gov.pagopa.nodoverifykotodatastore.util.TestUtil;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class VerifyKOEventTransformerTest {
+
+    VerifyKOEventTransformer transformer = new VerifyKOEventTransformer();
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void transform_copiesEventAndExtractsFields() {
+        // generating input
+        String eventInStringForm = TestUtil.readStringFromFile("events/event_ok_1.json");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("prop1-with-dash", "1");
+        properties.put("version", "3");
+
+        // execute logic
+        TransformedEvent transformedEvent = transformer.transform(eventInStringForm, properties);
+
+        // test assertion
+        assertEquals("uuid-001", transformedEvent.getId());
+        assertEquals("20231212-77777777777-88888888888", transformedEvent.getPartitionKey());
+        assertEquals(1702406079L, transformedEvent.getTimestamp());
+        assertEquals("2023-12-12T18:34:39.860654", transformedEvent.getDateTime());
+
+        Map<String, Object> expectedEvent = new ObjectMapper().readValue(eventInStringForm, Map.class);
+        Map<String, Object> actualEvent = new ObjectMapper().readValue(transformedEvent.getDocument(), Map.class);
+        assertEquals(expectedEvent.get("debtorPosition"), actualEvent.get("debtorPosition"));
+        assertEquals(expectedEvent.get("creditor"), actualEvent.get("creditor"));
+        assertEquals("1", actualEvent.get("prop1WithDash"));
+        assertEquals("3", actualEvent.get("version"));
+        assertEquals("20231212-77777777777-88888888888", actualEvent.get("PartitionKey"));
+        Map<String, Object> faultBean = (Map<String, Object>) actualEvent.get("faultBean");
+        assertEquals(1702406079, faultBean.get("timestamp"));
+        assertEquals("2023-12-12T18:34:39.860654", faultBean.get("dateTime"));
+        assertEquals(List.of("faultCode", "description", "timestamp", "dateTime"), List.copyOf(faultBean.keySet()));
+    }
+
+    @Test
+    @SneakyThrows
+    void transform_bytesMatchString() {
+        // generating input
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json").replace("EC service error", "Errore del servizio dell'EC \u00e8 \u2013");
+        Map<String, Object> properties = Map.of("prop1-with-dash", "1");
+
+        // execute logic
+        TransformedEvent fromString = transformer.transform(event, properties);
+        TransformedEvent fromBytes = transformer.transform(event.getBytes(StandardCharsets.UTF_8), properties);
+
+        // test assertion
+        assertEquals(fromString.getDocument(), fromBytes.getDocument());
+        assertEquals(fromString.getPartitionKey(), fromBytes.getPartitionKey());
+        assertEquals(fromString.getId(), fromBytes.getId());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void transform_replacesExistingComputedFields() {
+        // generating input
+        String event = "{\"id\":\"uuid-010\",\"PartitionKey\":\"old\",\"creditor\":{\"idPA\":\"1\"},\"psp\":{}," +
+                "\"faultBean\":{\"dateTime\":\"old\",\"timestamp\":\"2023-01-05T08:00:00.1\"}}";
+
+        // execute logic
+        TransformedEvent transformedEvent = transformer.transform(event, new HashMap<>());
+
+        // test assertion
+        assertEquals("20230105-1-NA", transformedEvent.getPartitionKey());
+        Map<String, Object> actualEvent = new ObjectMapper().readValue(transformedEvent.getDocument(), Map.class);
+        assertEquals("20230105-1-NA", actualEvent.get("PartitionKey"));
+        assertEquals(Map.of("timestamp", 1672905600, "dateTime", "2023-01-05T08:00:00.100000"), actualEvent.get("faultBean"));
+    }
+
+    @Test
+    @SneakyThrows
+    void transform_replacesPropertiesNamedAsComputedFields() {
+        // generating input
+        String event = TestUtil.readStringFromFile("events/event_ok_1.json");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("PartitionKey", "old");
+        properties.put("partitionKeySalting", "old");
+
+        // execute logic
+        TransformedEvent transformedEvent = transformer.transform(event, properties);
+
+        // test assertion
+        JsonNode actualEvent = new ObjectMapper().enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION).readTree(transformedEvent.getDocument());
+        assertEquals("20231212-77777777777-88888888888", actualEvent.get("PartitionKey").asText());
+        assertFalse(actualEvent.has("partitionKeySalting"));
+    }
+
+    @Test
+    @SneakyThrows
+    void transform_failsOnMissingFields() {
+        // generating input
+        String eventWithoutTimestamp = TestUtil.readStringFromFile("events/event_ko_1.json");
+        String eventWithoutPsp = TestUtil.readStringFromFile("events/event_ko_2.json");
+        Map<String, Object> properties = new HashMap<>();
+
+        // execute logic and test assertion
+        assertEquals(ValidationError.MISSING_FAULT_BEAN, assertThrows(InvalidEventException.class, () -> transformer.transform(eventWithoutTimestamp, properties)).getError());
+        InvalidEventException exception = assertThrows(InvalidEventException.class, () -> transformer.transform(eventWithoutPsp, properties));
+        assertEquals(ValidationError.MISSING_PSP, exception.getError());
+        assertEquals("The field [psp.idPsp] does not exists in the passed event.", exception.getMessage());
+        assertEquals(ValidationError.NOT_AN_OBJECT, assertThrows(InvalidEventException.class, () -> transformer.transform("[]", properties)).getError());
+        assertThrows(JsonProcessingException.class, () -> transformer.transform("{\"id\":", properties));
+    }
+
+    @Test
+    void transform_classifiesInvalidEvents() {
+        // generating input
+        Map<String, Object> properties = new HashMap<>();
+        String valid = "{\"id\":\"uuid-020\",\"creditor\":{},\"psp\":{},\"faultBean\":{\"timestamp\":\"2023-01-05T08:00:00\"}}";
+
+        // execute logic and test assertion
+        assertDoesNotThrow(() -> transformer.transform(valid, properties));
+        assertInvalid(ValidationError.EMPTY_EVENT, " \n");
+        assertInvalid(ValidationError.INVALID_ID, valid.replace("\"uuid-020\"", "20"));
+        assertInvalid(ValidationError.INVALID_ID, valid.replace("\"uuid-020\"", "\" \""));
+        assertInvalid(ValidationError.INVALID_ID, valid.replace("\"id\":\"uuid-020\",", ""));
+        assertInvalid(ValidationError.MISSING_FAULT_BEAN, valid.replace(",\"faultBean\":{\"timestamp\":\"2023-01-05T08:00:00\"}", ""));
+        assertInvalid(ValidationError.INVALID_FAULT_BEAN, valid.replace("{\"timestamp\":\"2023-01-05T08:00:00\"}", "\"2023-01-05T08:00:00\""));
+        assertInvalid(ValidationError.MISSING_TIMESTAMP, valid.replace("2023-01-05T08:00:00", "ERROR"));
+        assertInvalid(ValidationError.MISSING_TIMESTAMP, valid.replace("\"timestamp\":\"2023-01-05T08:00:00\"", "\"faultCode\":\"PPT_ERRORE\""));
+        assertInvalid(ValidationError.INVALID_TIMESTAMP, valid.replace("2023-01-05T08:00:00", "05/01/2023 08:00"));
+        assertInvalid(ValidationError.INVALID_TIMESTAMP, valid.replace("2023-01-05T08:00:00", "2023-13-05T08:00:00"));
+        assertInvalid(ValidationError.INVALID_TIMESTAMP, valid.replace("\"2023-01-05T08:00:00\"", "1672905600"));
+        assertInvalid(ValidationError.MISSING_CREDITOR, valid.replace("\"creditor\":{},", ""));
+    }
+
+    private void assertInvalid(ValidationError expected, String event) {
+        InvalidEventException fromString = assertThrows(InvalidEventException.class, () -> transformer.transform(event, Map.of()));
+        InvalidEventException fromBytes = assertThrows(InvalidEventException.class, () -> transformer.transform(event.getBytes(StandardCharsets.UTF_8), Map.of()));
+        assertEquals(expected, fromString.getError(), event);
+        assertEquals(expected, fromBytes.getError(), event);
+    }
+
+    @Test
+    @SneakyThrows
+    void toJsonArray_joinsDocuments() {
+        // generating input
+        List<TransformedEvent> events = List.of(
+                TransformedEvent.builder().document("{\"id\":\"1\"}").build(),
+                TransformedEvent.builder().document("{\"id\":\"2\"}").build());
+
+        // execute logic and test assertion
+        assertEquals("[{\"id\":\"1\"},{\"id\":\"2\"}]", VerifyKOEventTransformer.toJsonArray(events));
+        assertEquals("[]", VerifyKOEventTransformer.toJsonArray(List.of()));
+    }
+}
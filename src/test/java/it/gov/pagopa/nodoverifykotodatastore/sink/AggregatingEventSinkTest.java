@@ -0,0 +1,119 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import it.gov.pagopa.nodoverifykotodatastore.exception.PersistenceException;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AggregatingEventSinkTest {
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    InMemoryEventSink store = new InMemoryEventSink();
+
+    List<Integer> writes = Collections.synchronizedList(new ArrayList<>());
+
+    EventSink recordingSink = events -> {
+        writes.add(events.size());
+        return store.persist(events);
+    };
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SneakyThrows
+    void persist_coalescesConcurrentInvocations() {
+        // mocking objects
+        AggregatingEventSink sink = new AggregatingEventSink(recordingSink, 6, 60_000);
+
+        // execute logic
+        Future<SinkResult> first = executor.submit(() -> sink.persist(events("a", 3)));
+        Future<SinkResult> second = executor.submit(() -> sink.persist(events("b", 3)));
+
+        // test assertion
+        assertEquals(List.of("a-0", "a-1", "a-2"), ids(first.get()));
+        assertEquals(List.of("b-0", "b-1", "b-2"), ids(second.get()));
+        assertEquals(List.of(6), writes);
+        assertEquals(6, store.size());
+        assertEquals(3 * 5.5, first.get().getRequestCharge(), 0.001);
+    }
+
+    @Test
+    void persist_flushesAfterDelay() {
+        // mocking objects
+        AggregatingEventSink sink = new AggregatingEventSink(recordingSink, 100, 20);
+
+        // execute logic
+        SinkResult result = sink.persist(events("a", 2));
+
+        // test assertion
+        assertTrue(result.isSuccess());
+        assertEquals(List.of(2), writes);
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void persist_returnsEmptyBatchImmediately() {
+        // mocking objects
+        AggregatingEventSink sink = new AggregatingEventSink(recordingSink, 100, 60_000);
+
+        // execute logic
+        SinkResult result = sink.persist(List.of());
+
+        // test assertion
+        assertTrue(result.isSuccess());
+        assertTrue(result.getItems().isEmpty());
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void persist_failsAllInvocationsOfBatch() {
+        // mocking objects
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        AggregatingEventSink sink = new AggregatingEventSink(events -> {
+            throw new PersistenceException("unavailable");
+        }, 4, 60_000);
+
+        // execute logic
+        Future<?> first = executor.submit(() -> {
+            started.complete(null);
+            return sink.persist(events("a", 2));
+        });
+        started.get();
+        PersistenceException error = assertThrows(PersistenceException.class, () -> sink.persist(events("b", 2)));
+
+        // test assertion
+        assertEquals("unavailable", error.getMessage());
+        Exception firstError = assertThrows(Exception.class, first::get);
+        assertTrue(firstError.getCause() instanceof PersistenceException);
+    }
+
+    private static List<TransformedEvent> events(String prefix, int count) {
+        List<TransformedEvent> events = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            String id = prefix + "-" + index;
+            events.add(TransformedEvent.builder().id(id).partitionKey("20231212-A-P").document("{\"id\":\"" + id + "\"}").build());
+        }
+        return events;
+    }
+
+    private static List<String> ids(SinkResult result) {
+        return result.getItems().stream().map(ItemResult::getId).sorted().collect(Collectors.toList());
+    }
+}
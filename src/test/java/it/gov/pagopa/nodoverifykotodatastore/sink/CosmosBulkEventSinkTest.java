@@ -0,0 +1,110 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import org.junit.jupiter.api.Test;
+
+class CosmosBulkEventSinkTest {
+
+    List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void persist_retriesThrottledWrites() {
+        // mocking objects
+        Map<String, Integer> throttles = new HashMap<>(Map.of("uuid-2", 2, "uuid-3", 1));
+        List<List<String>> rounds = new ArrayList<>();
+        CosmosBulkEventSink sink = new CosmosBulkEventSink(events -> {
+            rounds.add(events.stream().map(TransformedEvent::getId).collect(Collectors.toList()));
+            return events.stream()
+                    .map(event -> throttles.merge(event.getId(), -1, Integer::sum) >= 0
+                            ? result(event, 429, 1.0, 300)
+                            : result(event, 201, 5.5, 0))
+                    .collect(Collectors.toList());
+        }, 5, sleeps::add);
+
+        // generating input
+        List<TransformedEvent> events = List.of(event("uuid-1", "20231212-B-P"), event("uuid-2", "20231212-A-P"), event("uuid-3", "20231212-A-P"));
+
+        // execute logic
+        SinkResult result = sink.persist(events);
+
+        // test assertion
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getItems().size());
+        assertEquals(3, result.getAttempts());
+        assertEquals(3, result.getThrottledWrites());
+        assertEquals(3 * 5.5 + 3 * 1.0, result.getRequestCharge(), 0.001);
+        assertEquals(List.of(List.of("uuid-2", "uuid-3", "uuid-1"), List.of("uuid-2", "uuid-3"), List.of("uuid-2")), rounds);
+        assertEquals(List.of(300L, 300L), sleeps);
+    }
+
+    @Test
+    void persist_backsOffWithoutRetryAfter() {
+        // mocking objects
+        CosmosBulkEventSink sink = new CosmosBulkEventSink(events -> events.stream()
+                .map(event -> result(event, 503, 0, 0))
+                .collect(Collectors.toList()), 4, sleeps::add);
+
+        // execute logic
+        SinkResult result = sink.persist(List.of(event("uuid-1", "20231212-A-P")));
+
+        // test assertion
+        assertFalse(result.isSuccess());
+        assertEquals(4, result.getAttempts());
+        assertEquals(List.of(100L, 200L, 400L), sleeps);
+        assertEquals(503, result.getFailedItems().get(0).getStatusCode());
+    }
+
+    @Test
+    void persist_doesNotRetryPermanentFailures() {
+        // mocking objects
+        CosmosBulkEventSink sink = new CosmosBulkEventSink(events -> events.stream()
+                .map(event -> "uuid-1".equals(event.getId()) ? result(event, 400, 1.0, 0) : result(event, 201, 5.5, 0))
+                .collect(Collectors.toList()), 5, sleeps::add);
+
+        // execute logic
+        SinkResult result = sink.persist(List.of(event("uuid-1", "20231212-A-P"), event("uuid-2", "20231212-A-P")));
+
+        // test assertion
+        assertEquals(1, result.getAttempts());
+        assertTrue(sleeps.isEmpty());
+        assertEquals(1, result.getFailedItems().size());
+        assertEquals("uuid-1", result.getFailedItems().get(0).getId());
+    }
+
+    @Test
+    void persist_inMemoryUpsertsDocuments() {
+        // mocking objects
+        InMemoryEventSink sink = new InMemoryEventSink();
+
+        // execute logic
+        sink.persist(List.of(event("uuid-1", "20231212-A-P")));
+        SinkResult result = sink.persist(List.of(event("uuid-1", "20231212-A-P"), event("uuid-1", "20231212-B-P")));
+
+        // test assertion
+        assertEquals(2, sink.size());
+        assertEquals(List.of(200, 201), result.getItems().stream().map(ItemResult::getStatusCode).collect(Collectors.toList()));
+        assertEquals("{\"id\":\"uuid-1\"}", sink.getDocument("20231212-B-P", "uuid-1"));
+    }
+
+    private static TransformedEvent event(String id, String partitionKey) {
+        return TransformedEvent.builder().id(id).partitionKey(partitionKey).document("{\"id\":\"" + id + "\"}").build();
+    }
+
+    private static ItemResult result(TransformedEvent event, int statusCode, double requestCharge, long retryAfterMillis) {
+        return ItemResult.builder()
+                .id(event.getId())
+                .partitionKey(event.getPartitionKey())
+                .statusCode(statusCode)
+                .requestCharge(requestCharge)
+                .retryAfterMillis(retryAfterMillis)
+                .build();
+    }
+}
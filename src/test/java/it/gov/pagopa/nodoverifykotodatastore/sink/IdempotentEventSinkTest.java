@@ -0,0 +1,97 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import org.junit.jupiter.api.Test;
+
+class IdempotentEventSinkTest {
+
+    AtomicLong clock = new AtomicLong();
+
+    List<List<String>> writes = new ArrayList<>();
+
+    InMemoryEventSink store = new InMemoryEventSink();
+
+    EventSink recordingSink = events -> {
+        writes.add(events.stream().map(TransformedEvent::getId).collect(Collectors.toList()));
+        return store.persist(events);
+    };
+
+    @Test
+    void persist_skipsEventsPersistedByPreviousAttempt() {
+        // mocking objects
+        IdempotentEventSink sink = new IdempotentEventSink(recordingSink, new RecentlyPersistedCache(100, 60_000, clock::get));
+
+        // execute logic
+        sink.persist(List.of(event("uuid-1", "20231212-A-P"), event("uuid-2", "20231212-A-P")));
+        SinkResult result = sink.persist(List.of(event("uuid-1", "20231212-A-P"), event("uuid-2", "20231212-A-P"), event("uuid-3", "20231212-A-P")));
+
+        // test assertion
+        assertEquals(List.of(List.of("uuid-1", "uuid-2"), List.of("uuid-3")), writes);
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getItems().size());
+        assertEquals(2, result.getSkippedCount());
+    }
+
+    @Test
+    void persist_writesDuplicatesOfBatchOnce() {
+        // mocking objects
+        IdempotentEventSink sink = new IdempotentEventSink(recordingSink, new RecentlyPersistedCache(100, 60_000, clock::get));
+
+        // generating input
+        TransformedEvent last = event("uuid-1", "20231212-A-P").toBuilder().document("{\"id\":\"uuid-1\",\"v\":2}").build();
+
+        // execute logic
+        sink.persist(List.of(event("uuid-1", "20231212-A-P"), event("uuid-1", "20231212-B-P"), last));
+
+        // test assertion
+        assertEquals(List.of(List.of("uuid-1", "uuid-1")), writes);
+        assertEquals("{\"id\":\"uuid-1\",\"v\":2}", store.getDocument("20231212-A-P", "uuid-1"));
+    }
+
+    @Test
+    void persist_rewritesFailedAndExpiredEvents() {
+        // mocking objects
+        RecentlyPersistedCache cache = new RecentlyPersistedCache(100, 1_000, clock::get);
+        IdempotentEventSink failingSink = new IdempotentEventSink(events -> new SinkResult(events.stream()
+                .map(event -> ItemResult.builder().id(event.getId()).partitionKey(event.getPartitionKey()).statusCode(429).build())
+                .collect(Collectors.toList()), 0, 1, events.size()), cache);
+        IdempotentEventSink sink = new IdempotentEventSink(recordingSink, cache);
+
+        // execute logic
+        failingSink.persist(List.of(event("uuid-1", "20231212-A-P")));
+        sink.persist(List.of(event("uuid-1", "20231212-A-P")));
+        clock.addAndGet(1_000_000_000L);
+        sink.persist(List.of(event("uuid-1", "20231212-A-P")));
+
+        // test assertion
+        assertEquals(List.of(List.of("uuid-1"), List.of("uuid-1")), writes);
+    }
+
+    @Test
+    void cache_evictsEldestEntries() {
+        // mocking objects
+        RecentlyPersistedCache cache = new RecentlyPersistedCache(2, 60_000, clock::get);
+
+        // execute logic
+        cache.add("a");
+        cache.add("b");
+        cache.add("c");
+
+        // test assertion
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("a"));
+        assertTrue(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+    }
+
+    private static TransformedEvent event(String id, String partitionKey) {
+        return TransformedEvent.builder().id(id).partitionKey(partitionKey).document("{\"id\":\"" + id + "\"}").build();
+    }
+}
@@ -0,0 +1,133 @@
+package it.gov.pagopa.nodoverifykotodatastore.sink;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.gov.pagopa.nodoverifykotodatastore.model.RollupDelta;
+import org.junit.jupiter.api.Test;
+
+class RollupSinkTest {
+
+    private static final String KEY = "20231212-77777777777-88888888888";
+
+    List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void apply_createsThenIncrementsDocuments() {
+        // mocking objects
+        InMemoryRollupExecutor executor = new InMemoryRollupExecutor();
+        RollupSink sink = new RollupSink(executor, 5, sleeps::add);
+
+        // execute logic
+        SinkResult created = sink.apply(List.of(delta(KEY, "PPT_A", 2, "PPT_B", 1)));
+        SinkResult incremented = sink.apply(List.of(delta(KEY, "PPT_B", 3, "PPT_C", 1)));
+
+        // test assertion
+        assertTrue(created.isSuccess());
+        assertEquals(2, created.getAttempts());
+        assertTrue(incremented.isSuccess());
+        assertEquals(1, incremented.getAttempts());
+        assertTrue(sleeps.isEmpty());
+        ObjectNode document = executor.getDocument(KEY);
+        assertEquals(KEY, document.get("PartitionKey").asText());
+        assertEquals("2023-12-12", document.get("day").asText());
+        assertEquals(7, document.get("count").asLong());
+        assertEquals(2, document.get("faultCodes").get("PPT_A").asLong());
+        assertEquals(4, document.get("faultCodes").get("PPT_B").asLong());
+        assertEquals(1, document.get("faultCodes").get("PPT_C").asLong());
+    }
+
+    @Test
+    void apply_patchesAgainOnConflictingCreation() {
+        // mocking objects
+        InMemoryRollupExecutor executor = new InMemoryRollupExecutor();
+        List<String> rounds = new ArrayList<>();
+        RollupSink sink = new RollupSink(operations -> {
+            rounds.add(operations.stream().map(operation -> operation.isCreate() ? "create" : "patch").collect(Collectors.joining(",")));
+            if (operations.get(0).isCreate()) {
+                // a concurrent invocation creates the document first
+                executor.execute(List.of(new RollupSink.Operation(delta(KEY, "PPT_A", 5), true)));
+            }
+            return executor.execute(operations);
+        }, 5, sleeps::add);
+
+        // execute logic
+        SinkResult result = sink.apply(List.of(delta(KEY, "PPT_A", 1)));
+
+        // test assertion
+        assertTrue(result.isSuccess());
+        assertEquals(List.of("patch", "create", "patch"), rounds);
+        assertEquals(6, executor.getDocument(KEY).get("count").asLong());
+    }
+
+    @Test
+    void apply_retriesThrottledWrites() {
+        // mocking objects
+        InMemoryRollupExecutor executor = new InMemoryRollupExecutor();
+        int[] throttles = {2};
+        RollupSink sink = new RollupSink(operations -> throttles[0]-- > 0
+                ? operations.stream().map(operation -> ItemResult.builder().id(operation.getDelta().getId()).statusCode(429).retryAfterMillis(300).build()).collect(Collectors.toList())
+                : executor.execute(operations), 5, sleeps::add);
+
+        // execute logic
+        SinkResult result = sink.apply(List.of(delta(KEY, "PPT_A", 1)));
+
+        // test assertion
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getThrottledWrites());
+        assertEquals(List.of(300L, 300L), sleeps);
+        assertEquals(1, executor.getDocument(KEY).get("count").asLong());
+    }
+
+    @Test
+    void apply_doesNotRetryTimedOutIncrements() {
+        // mocking objects
+        InMemoryRollupExecutor executor = new InMemoryRollupExecutor();
+        executor.execute(List.of(new RollupSink.Operation(delta(KEY, "PPT_A", 1), true)));
+        RollupSink sink = new RollupSink(operations -> {
+            // the increment is applied, but the response is lost
+            executor.execute(operations);
+            return operations.stream().map(operation -> ItemResult.builder().id(operation.getDelta().getId()).statusCode(408).build()).collect(Collectors.toList());
+        }, 5, sleeps::add);
+
+        // execute logic
+        SinkResult result = sink.apply(List.of(delta(KEY, "PPT_A", 1)));
+
+        // test assertion
+        assertFalse(result.isSuccess());
+        assertEquals(1, result.getAttempts());
+        assertEquals(2, executor.getDocument(KEY).get("count").asLong());
+    }
+
+    @Test
+    void split_respectsPatchOperationsLimit() {
+        // generating input
+        RollupDelta delta = new RollupDelta(KEY, "2023-12-12", "77777777777", "88888888888");
+        for (int index = 0; index < 12; index++) {
+            delta.add("PPT_" + index, index + 1);
+        }
+
+        // execute logic
+        List<RollupDelta> parts = delta.split(RollupSink.MAX_PATCH_OPERATIONS);
+
+        // test assertion
+        assertEquals(2, parts.size());
+        assertEquals(78, parts.get(0).getCount());
+        assertEquals(9, parts.get(0).getFaultCodes().size());
+        assertEquals(0, parts.get(1).getCount());
+        assertEquals(3, parts.get(1).getFaultCodes().size());
+        assertEquals("a~1b~0c", CosmosRollupExecutor.escape("a/b~c"));
+    }
+
+    private static RollupDelta delta(String id, Object... faultCodes) {
+        RollupDelta delta = new RollupDelta(id, "2023-12-12", "77777777777", "88888888888");
+        for (int index = 0; index < faultCodes.length; index += 2) {
+            delta.add((String) faultCodes[index], (Integer) faultCodes[index + 1]);
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,157 @@
+package it.gov.pagopa.nodoverifykotodatastore.tuning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveControllerTest {
+
+    @Test
+    void observe_halvesConcurrencyOnThrottling() {
+        // mocking objects
+        AdaptiveController controller = new AdaptiveController(true, 1000, 8, 8, 100, 1000);
+
+        // execute logic
+        boolean changed = controller.observe(observation(100, 200, 3, 5000));
+
+        // test assertion
+        assertTrue(changed);
+        assertEquals(4, controller.getConcurrency());
+        assertEquals(100, controller.getFlushSize());
+    }
+
+    @Test
+    void observe_recoversConcurrencyAfterThrottling() {
+        // mocking objects
+        AdaptiveController controller = new AdaptiveController(true, 1000, 8, 8, 100, 1000);
+        controller.observe(observation(100, 200, 3, -1));
+
+        // execute logic
+        int recovered = 0;
+        for (int batch = 0; batch < 100; batch++) {
+            if (controller.observe(observation(100, 200, 0, -1))) {
+                recovered++;
+            }
+        }
+
+        // test assertion
+        assertEquals(4, recovered);
+        assertEquals(8, controller.getConcurrency());
+        assertEquals(100, controller.getFlushSize());
+    }
+
+    @Test
+    void observe_shrinksFlushSizeOnSlowBatches() {
+        // mocking objects
+        AdaptiveController controller = new AdaptiveController(true, 1000, 2, 8, 400, 1000);
+
+        // execute logic
+        controller.observe(observation(400, 3000, 0, 5000));
+
+        // test assertion
+        assertEquals(2, controller.getConcurrency());
+        assertEquals(200, controller.getFlushSize());
+        assertEquals(200, controller.getRecommendation().getMaxEventBatchSize());
+        assertEquals(400, controller.getRecommendation().getPrefetchCount());
+    }
+
+    @Test
+    void observe_keepsTuningWithinTarget() {
+        // mocking objects
+        AdaptiveController controller = new AdaptiveController(true, 1000, 2, 8, 50, 1000);
+
+        // execute logic
+        boolean changed = controller.observe(observation(50, 100, 0, 200));
+
+        // test assertion
+        assertFalse(changed);
+        assertEquals(2, controller.getConcurrency());
+        assertEquals(50, controller.getFlushSize());
+    }
+
+    @Test
+    void observe_convergesOnSimulatedSink() {
+        // mocking objects
+        AdaptiveController controller = new AdaptiveController(true, 2000, 1, 16, 10, 1000);
+        SimulatedSink sink = new SimulatedSink(3000, 5.5, 2.0, 20, 400);
+
+        // execute logic
+        int throttledBatches = 0;
+        int peakConcurrency = 0;
+        for (int batch = 0; batch < 300; batch++) {
+            BatchObservation observation = sink.process(controller.getFlushSize(), controller.getConcurrency());
+            if (batch >= 250 && observation.getThrottledWrites() > 0) {
+                throttledBatches++;
+            }
+            controller.observe(observation);
+            peakConcurrency = Math.max(peakConcurrency, controller.getConcurrency());
+        }
+
+        // test assertion
+        assertTrue(controller.getFlushSize() > 10, "the flush size grows to drain the backlog");
+        assertTrue(peakConcurrency > 1, "the concurrency grows to drain the backlog");
+        assertTrue(sink.getLagMillis() < 2000, "the backlog is drained: " + sink.getLagMillis());
+        assertTrue(throttledBatches < 10, "the throttling is rare once converged: " + throttledBatches);
+    }
+
+    private static BatchObservation observation(int batchSize, long processingMillis, int throttledWrites, long lagMillis) {
+        return BatchObservation.builder()
+                .batchSize(batchSize)
+                .processingMillis(processingMillis)
+                .throttledWrites(throttledWrites)
+                .requestCharge(batchSize * 5.5)
+                .lagMillis(lagMillis)
+                .build();
+    }
+
+    /**
+     * Simulates a container with a provisioned throughput fed by an Event Hub partition with a steady arrival rate:
+     * the writes run faster with more concurrency until they exceed the throughput and are throttled,
+     * waiting a retry-after of one second.
+     */
+    private static class SimulatedSink {
+
+        private final double requestUnitsPerSecond;
+        private final double requestChargePerEvent;
+        private final double millisPerEvent;
+        private final double overheadMillis;
+        private final double arrivalsPerSecond;
+
+        private double backlog = 20_000;
+        private double lagMillis;
+
+        private SimulatedSink(double requestUnitsPerSecond, double requestChargePerEvent, double millisPerEvent, double overheadMillis, double arrivalsPerSecond) {
+            this.requestUnitsPerSecond = requestUnitsPerSecond;
+            this.requestChargePerEvent = requestChargePerEvent;
+            this.millisPerEvent = millisPerEvent;
+            this.overheadMillis = overheadMillis;
+            this.arrivalsPerSecond = arrivalsPerSecond;
+        }
+
+        private BatchObservation process(int flushSize, int concurrency) {
+            int batchSize = (int) Math.max(1, Math.min(backlog, flushSize));
+            double requestCharge = batchSize * requestChargePerEvent;
+            double millis = overheadMillis + batchSize * millisPerEvent / concurrency;
+            double requestRate = requestCharge * 1000 / millis;
+            int throttledWrites = 0;
+            if (requestRate > requestUnitsPerSecond) {
+                throttledWrites = (int) Math.ceil(batchSize * (1 - requestUnitsPerSecond / requestRate));
+                millis += 1000;
+            }
+
+            backlog = Math.max(0, backlog - batchSize + arrivalsPerSecond * millis / 1000);
+            lagMillis = backlog / arrivalsPerSecond * 1000;
+            return BatchObservation.builder()
+                    .batchSize(batchSize)
+                    .processingMillis((long) millis)
+                    .throttledWrites(throttledWrites)
+                    .requestCharge(requestCharge)
+                    .lagMillis((long) lagMillis)
+                    .build();
+        }
+
+        private double getLagMillis() {
+            return lagMillis;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.nodoverifykotodatastore.model.FailedEvent;
+import it.gov.pagopa.nodoverifykotodatastore.model.TransformedEvent;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class BatchTraceTest {
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @SneakyThrows
+    void ofTransformedEvents_capsIds() {
+        // generating input
+        List<TransformedEvent> events = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            events.add(TransformedEvent.builder()
+                    .id("uuid-" + index)
+                    .partitionKey("20231212-" + (index % 7) + "-P")
+                    .timestamp(1702406000L + index)
+                    .build());
+        }
+
+        // execute logic
+        String trace = BatchTrace.ofTransformedEvents("invocation-1", 2, events, 3, 5);
+
+        // test assertion
+        Map<String, Object> record = new ObjectMapper().readValue(trace, Map.class);
+        assertEquals("invocation-1", record.get("invocationId"));
+        assertEquals(2, record.get("retryIndex"));
+        assertEquals(1003, record.get("events"));
+        assertEquals(1000, record.get("persisted"));
+        assertEquals(3, record.get("failed"));
+        assertEquals(7, record.get("partitionKeys"));
+        assertEquals(1702406000, record.get("minEventTimestamp"));
+        assertEquals(1702406999, record.get("maxEventTimestamp"));
+        assertEquals(List.of("uuid-0", "uuid-1", "uuid-2", "uuid-3", "uuid-4"), record.get("ids"));
+        assertEquals(true, record.get("truncated"));
+    }
+
+    @Test
+    void ofFailedEvents_capsCauses() {
+        // generating input
+        List<FailedEvent> failedEvents = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            failedEvents.add(new FailedEvent(index, "{}", Map.of(), new IllegalStateException("missing " + index)));
+        }
+
+        // execute logic
+        String trace = BatchTrace.ofFailedEvents(failedEvents, 2);
+
+        // test assertion
+        assertEquals("[0: java.lang.IllegalStateException: missing 0, 1: java.lang.IllegalStateException: missing 1, ... 2 more]", trace);
+    }
+}
@@ -0,0 +1,125 @@
+package it.gov.pagopa.nodoverifykotodatastore.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import it.gov.pagopa.nodoverifykotodatastore.model.FaultTimestamp;
+import org.junit.jupiter.api.Test;
+
+class FaultTimestampCodecTest {
+
+    private static final int SAMPLES = 20_000;
+    private static final DateTimeFormatter CANONICAL = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+    private static final long MIN_EPOCH_SECOND = LocalDateTime.of(1900, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_EPOCH_SECOND = LocalDateTime.of(2200, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private final Random random = new Random(20231212L);
+
+    @Test
+    void parse_matchesLegacyUpToSixFractionDigits() {
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            // generating input
+            LocalDateTime dateTime = randomDateTime();
+            String timestamp = format(dateTime, random.nextInt(7), random.nextBoolean());
+
+            // execute logic
+            FaultTimestamp expected = FaultTimestampCodec.parseLegacy(timestamp);
+            FaultTimestamp actual = FaultTimestampCodec.parseFast(timestamp);
+
+            // test assertion
+            assertNotNull(actual, timestamp);
+            assertEquivalent(expected, actual, timestamp);
+        }
+    }
+
+    @Test
+    void parse_truncatesLongFractions() {
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            // generating input
+            LocalDateTime dateTime = randomDateTime();
+            String timestamp = format(dateTime, 7 + random.nextInt(3), true);
+
+            // execute logic
+            FaultTimestamp actual = FaultTimestampCodec.parse(timestamp);
+
+            // test assertion
+            LocalDateTime expected = LocalDateTime.parse(timestamp).truncatedTo(ChronoUnit.MICROS);
+            assertEquals(expected.toEpochSecond(ZoneOffset.UTC), actual.getEpochSecond(), timestamp);
+            assertEquals(expected.getNano() / 1_000, actual.getMicros(), timestamp);
+            assertEquals(CANONICAL.format(expected), actual.getDateTime(), timestamp);
+        }
+    }
+
+    @Test
+    void parse_convertsOffsetsToUtc() {
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            // generating input
+            LocalDateTime dateTime = randomDateTime();
+            ZoneOffset offset = random.nextInt(4) == 0 ? ZoneOffset.UTC : ZoneOffset.ofTotalSeconds((random.nextInt(37) - 18) * 1800);
+            String timestamp = format(dateTime, random.nextInt(10), true) + (offset == ZoneOffset.UTC ? "Z" : offset.getId());
+
+            // execute logic
+            FaultTimestamp actual = FaultTimestampCodec.parse(timestamp);
+
+            // test assertion
+            LocalDateTime expected = OffsetDateTime.parse(timestamp).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime().truncatedTo(ChronoUnit.MICROS);
+            assertEquals(expected.toEpochSecond(ZoneOffset.UTC), actual.getEpochSecond(), timestamp);
+            assertEquals(CANONICAL.format(expected), actual.getDateTime(), timestamp);
+            assertEquals(expected.getYear(), actual.getYear(), timestamp);
+            assertEquals(expected.getMonthValue(), actual.getMonth(), timestamp);
+            assertEquals(expected.getDayOfMonth(), actual.getDayOfMonth(), timestamp);
+        }
+    }
+
+    @Test
+    void parse_fallsBackToLegacy() {
+        // non canonical shapes and out of range values are handled as before
+        assertEquivalent(FaultTimestampCodec.parseLegacy("2023-02-30T10:00:00.1"), FaultTimestampCodec.parse("2023-02-30T10:00:00.1"), null);
+        assertNull(FaultTimestampCodec.parseFast("2023-02-30T10:00:00.1"));
+        assertThrows(DateTimeParseException.class, () -> FaultTimestampCodec.parse("2023-13-01T10:00:00"));
+        assertThrows(DateTimeParseException.class, () -> FaultTimestampCodec.parse("2023-12-12 18:34:39.860654"));
+        assertThrows(DateTimeParseException.class, () -> FaultTimestampCodec.parse("2023-12-12T18:34:39.8606541234"));
+        assertThrows(DateTimeParseException.class, () -> FaultTimestampCodec.parse("not a timestamp"));
+    }
+
+    @Test
+    void parse_reusesCanonicalInput() {
+        String timestamp = "2023-12-12T18:34:39.860654";
+
+        FaultTimestamp actual = FaultTimestampCodec.parse(timestamp);
+
+        assertSame(timestamp, actual.getDateTime());
+        assertEquals(1702406079L, actual.getEpochSecond());
+        assertEquals(1702406079860654L, actual.getEpochMicros());
+    }
+
+    private LocalDateTime randomDateTime() {
+        long epochSecond = MIN_EPOCH_SECOND + (long) (random.nextDouble() * (MAX_EPOCH_SECOND - MIN_EPOCH_SECOND));
+        return LocalDateTime.ofEpochSecond(epochSecond, random.nextInt(1_000_000_000), ZoneOffset.UTC);
+    }
+
+    /**
+     * Formats the passed date time with the passed fraction digits, omitting the dot when there are none if so requested.
+     */
+    private String format(LocalDateTime dateTime, int fractionDigits, boolean withDot) {
+        String base = DateTimeFormatter.ISO_LOCAL_DATE.format(dateTime) + "T" + DateTimeFormatter.ofPattern("HH:mm:ss").format(dateTime);
+        String fraction = String.format("%09d", dateTime.getNano()).substring(0, fractionDigits);
+        return fractionDigits == 0 && !withDot ? base : base + "." + fraction;
+    }
+
+    private static void assertEquivalent(FaultTimestamp expected, FaultTimestamp actual, String message) {
+        assertEquals(expected.getEpochSecond(), actual.getEpochSecond(), message);
+        assertEquals(expected.getMicros(), actual.getMicros(), message);
+        assertEquals(expected.getDateTime(), actual.getDateTime(), message);
+        assertEquals(expected.getYear(), actual.getYear(), message);
+        assertEquals(expected.getMonth(), actual.getMonth(), message);
+        assertEquals(expected.getDayOfMonth(), actual.getDayOfMonth(), message);
+    }
+}
@@ -4,8 +4,11 @@ import lombok.experimental.UtilityClass;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @UtilityClass
 public class TestUtil {
@@ -15,4 +18,11 @@ public class TestUtil {
         File file = new File(Objects.requireNonNull(classLoader.getResource(relativePath)).getPath());
         return Files.readString(file.toPath());
     }
+
+    /**
+     * Encodes the passed events in UTF-8, as bound by the Event Hub trigger with the <code>binary</code> data type.
+     */
+    public List<byte[]> toBinary(List<String> events) {
+        return events.stream().map(event -> event.getBytes(StandardCharsets.UTF_8)).collect(Collectors.toList());
+    }
 }